@@ -0,0 +1,94 @@
+package at.catalysts.tools.reversedependencies;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * generated repository cache for benchmarks
+ * <br><br>
+ * lines look like a scanned cache: query artifact used by a consumer<br>
+ * artifactId,groupId,version,usedby-artifactId,usedby-groupId,usedby-version<br>
+ * about one consumer version per ten lines, same seed gives the same dataset
+ *
+ */
+public class CacheDataset {
+
+    public static final String QUERY_GROUP = "org.query";
+    public static final String CONSUMER_GROUP = "at.catalysts.ms";
+
+    private static final int QUERY_ARTIFACTS = 50;
+    private static final int QUERY_VERSIONS = 20;
+    private static final int CONSUMER_VERSIONS = 7;
+    private static final Path DATASET_DIR = Paths.get("target", "jmh-datasets");
+    private static final long SEED = 42;
+
+    private final int size;
+
+    public CacheDataset(int size) {
+        this.size = size;
+    }
+
+    /**
+     * @return cache lines in csv format, the same for every call
+     */
+    public List<String> lines() {
+        Random random = new Random(SEED);
+        List<String> lines = new ArrayList<>(size);
+        int consumers = consumers();
+        for (int i = 0; i < size; i++) {
+            int consumer = random.nextInt(consumers);
+            lines.add("query-" + random.nextInt(QUERY_ARTIFACTS) + "," + QUERY_GROUP + ",1." + random.nextInt(QUERY_VERSIONS)
+                    + ",ms-" + consumer + "," + CONSUMER_GROUP + ",2." + (consumer % CONSUMER_VERSIONS));
+        }
+        return lines;
+    }
+
+    /**
+     * write dataset to target/jmh-datasets once and reuse it for later runs
+     * 
+     * @return path of cache file
+     */
+    public Path file() {
+        Path file = DATASET_DIR.resolve("cache-" + size + ".csv");
+        if (Files.exists(file)) {
+            return file;
+        }
+        try {
+            Files.createDirectories(DATASET_DIR);
+            Path tmp = Files.createTempFile(DATASET_DIR, "cache", ".tmp");
+            try (BufferedWriter out = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                for (String line : lines()) {
+                    out.write(line);
+                    out.newLine();
+                }
+            }
+            Files.move(tmp, file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return file;
+    }
+
+    /**
+     * @return number of distinct consumer artifacts
+     */
+    public int consumers() {
+        return Math.max(size / 10, 1);
+    }
+
+    /**
+     * @return number of distinct consumer versions per artifact
+     */
+    public static int consumerVersions() {
+        return CONSUMER_VERSIONS;
+    }
+
+}
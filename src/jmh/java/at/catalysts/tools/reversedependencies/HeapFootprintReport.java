@@ -0,0 +1,100 @@
+package at.catalysts.tools.reversedependencies;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.ref.Reference;
+import java.util.ArrayList;
+import java.util.List;
+
+import at.catalysts.tools.reversedependencies.data.DependencyTree;
+import at.catalysts.tools.reversedependencies.io.DependencyFileReader;
+
+/**
+ * report retained heap of a read cache with the former dependency model
+ * (own strings per dependency, eagerly allocated lists) against the current one
+ * <br><br>
+ * run after mvn test-compile -P JMH:
+ * <br>java -cp target/classes:target/test-classes at.catalysts.tools.reversedependencies.HeapFootprintReport 1000000
+ *
+ */
+public class HeapFootprintReport {
+
+    private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        CacheDataset dataset = new CacheDataset(size);
+        String file = dataset.file().toString();
+
+        long before = usedHeap();
+        List<LegacyTree> legacy = readLegacy(dataset.lines());
+        long legacyBytes = usedHeap() - before;
+        Reference.reachabilityFence(legacy);
+        legacy = null;
+
+        before = usedHeap();
+        DependencyFileReader reader = new DependencyFileReader(file);
+        reader.setReversedWithUsedByDependencies(true);
+        List<DependencyTree> current = reader.readDependencyTreeFile();
+        long currentBytes = usedHeap() - before;
+        Reference.reachabilityFence(current);
+
+        System.out.println("cache lines: " + size);
+        System.out.println(String.format("former model:  %,d bytes, %d bytes per line", legacyBytes, legacyBytes / size));
+        System.out.println(String.format("current model: %,d bytes, %d bytes per line", currentBytes, currentBytes / size));
+    }
+
+    /**
+     * parse lines like the former reader did: split strings kept per dependency
+     */
+    private static List<LegacyTree> readLegacy(List<String> lines) {
+        List<LegacyTree> trees = new ArrayList<>();
+        for (String line : lines) {
+            String[] values = line.trim().split(",");
+            LegacyTree tree = new LegacyTree(new LegacyDependency(values[0].trim(), values[1].trim(), values[2].trim()));
+            tree.usedBy.add(new LegacyTree(new LegacyDependency(values[3].trim(), values[4].trim(), values[5].trim())));
+            trees.add(tree);
+        }
+        return trees;
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return MEMORY.getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * layout of the former dependency
+     */
+    private static class LegacyDependency {
+
+        private final String artifactId;
+        private final String groupId;
+        private final String version;
+        private String scope;
+        private String type;
+
+        private LegacyDependency(String artifactId, String groupId, String version) {
+            this.artifactId = artifactId;
+            this.groupId = groupId;
+            this.version = version;
+        }
+    }
+
+    /**
+     * layout of the former dependency tree
+     */
+    private static class LegacyTree {
+
+        private final LegacyDependency dependency;
+        private final List<LegacyTree> uses = new ArrayList<>();
+        private final List<LegacyTree> usedBy = new ArrayList<>();
+
+        private LegacyTree(LegacyDependency dependency) {
+            this.dependency = dependency;
+        }
+    }
+
+}
@@ -0,0 +1,88 @@
+package at.catalysts.tools.reversedependencies.io;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import at.catalysts.tools.reversedependencies.CacheDataset;
+import at.catalysts.tools.reversedependencies.data.Dependency;
+import at.catalysts.tools.reversedependencies.data.DependencyTree;
+import at.catalysts.tools.reversedependencies.util.DependencyMatcher;
+
+/**
+ * load and match the csv cache against the memory mapped binary cache
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class BinaryDependencyCacheBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    private int cacheLines;
+
+    @Param({"1000"})
+    private int matchDependencies;
+
+    private String csvFile;
+    private String binaryFile;
+    private List<Dependency> matchDs;
+
+    @Setup
+    public void setup() {
+        CacheDataset dataset = new CacheDataset(cacheLines);
+        csvFile = dataset.file().toString();
+        binaryFile = csvFile.replace(".csv", ".bin");
+        CacheConverter.csvToBinary(csvFile, binaryFile);
+        Random random = new Random(42);
+        matchDs = new ArrayList<>(matchDependencies);
+        for (int i = 0; i < matchDependencies; i++) {
+            matchDs.add(new Dependency("ms-" + random.nextInt(dataset.consumers()), "",
+                    "2." + random.nextInt(CacheDataset.consumerVersions())));
+        }
+    }
+
+    @Benchmark
+    public List<DependencyTree> csvRead() {
+        return readCsv();
+    }
+
+    @Benchmark
+    public List<DependencyTree> binaryRead() throws IOException {
+        return BinaryDependencyCache.open(binaryFile).readDependencyTrees();
+    }
+
+    @Benchmark
+    public List<DependencyTree> csvMatch() {
+        return DependencyMatcher.matchDependencyQuery(readCsv(), matchDs, false);
+    }
+
+    @Benchmark
+    public List<DependencyTree> binaryMatch() throws IOException {
+        return BinaryDependencyCache.open(binaryFile).matchDependencyQuery(matchDs, false);
+    }
+
+    private List<DependencyTree> readCsv() {
+        DependencyFileReader reader = new DependencyFileReader(csvFile);
+        reader.setReversedWithUsedByDependencies(true);
+        return reader.readDependencyTreeFile();
+    }
+
+}
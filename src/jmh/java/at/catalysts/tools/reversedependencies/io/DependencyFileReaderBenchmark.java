@@ -0,0 +1,75 @@
+package at.catalysts.tools.reversedependencies.io;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import at.catalysts.tools.reversedependencies.CacheDataset;
+import at.catalysts.tools.reversedependencies.data.DependencyTree;
+
+/**
+ * parse cache lines and read cache files line by line and in parallel chunks
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class DependencyFileReaderBenchmark {
+
+    private static final int CHUNKED_THREADS = 4;
+
+    @Param({"10000", "100000", "1000000"})
+    private int cacheLines;
+
+    private List<String> lines;
+    private String cacheFile;
+    private DependencyFileReader reader;
+    private DependencyFileReader chunkedReader;
+
+    @Setup
+    public void setup() {
+        CacheDataset dataset = new CacheDataset(cacheLines);
+        lines = dataset.lines();
+        cacheFile = dataset.file().toString();
+        reader = new DependencyFileReader(cacheFile);
+        reader.setReversedWithUsedByDependencies(true);
+        reader.setThreads(1);
+        chunkedReader = new DependencyFileReader(cacheFile);
+        chunkedReader.setReversedWithUsedByDependencies(true);
+        chunkedReader.setThreads(CHUNKED_THREADS);
+        chunkedReader.setChunkBytes(Math.max(dataset.file().toFile().length() / (CHUNKED_THREADS * 4) + 1, 64 * 1024));
+    }
+
+    @Benchmark
+    public void parseLine(Blackhole blackhole) {
+        for (String line : lines) {
+            blackhole.consume(reader.parseLine(line));
+        }
+    }
+
+    @Benchmark
+    public List<DependencyTree> readDependencyTreeFile() {
+        return reader.readDependencyTreeFile();
+    }
+
+    @Benchmark
+    public List<DependencyTree> readDependencyTreeFileChunked() {
+        return chunkedReader.readDependencyTreeFile();
+    }
+
+}
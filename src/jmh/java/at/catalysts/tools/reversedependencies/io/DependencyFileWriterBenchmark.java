@@ -0,0 +1,88 @@
+package at.catalysts.tools.reversedependencies.io;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import at.catalysts.tools.reversedependencies.data.Dependency;
+
+/**
+ * append cache lines with the open writer (flushed per record and batched)
+ * against the former reopening of the file per line
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class DependencyFileWriterBenchmark {
+
+    private static final String FILE = "target/jmh-datasets/append-cache.csv";
+
+    @Param({"10000"})
+    private int records;
+
+    private List<Dependency> used;
+    private Dependency usedBy;
+
+    @Setup
+    public void setup() {
+        new File(FILE).getParentFile().mkdirs();
+        used = new ArrayList<>(records);
+        for (int i = 0; i < records; i++) {
+            used.add(new Dependency("lib-" + i, "at.catalysts", "1." + (i % 10)));
+        }
+        usedBy = new Dependency("ms-bench", "at.catalysts", "2.0");
+    }
+
+    @Benchmark
+    public void flushEveryRecord() {
+        append(1);
+    }
+
+    @Benchmark
+    public void flushBatched() {
+        append(1000);
+    }
+
+    @Benchmark
+    public void reopenPerRecord() throws IOException {
+        new DependencyFileWriter(FILE, false, true).createFile();
+        for (Dependency dep : used) {
+            try (PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(FILE, true)))) {
+                out.println(dep.getArtifactId() + "," + dep.getGroupId() + "," + dep.getVersion()
+                        + "," + usedBy.getArtifactId() + "," + usedBy.getGroupId() + "," + usedBy.getVersion());
+            }
+        }
+    }
+
+    private void append(int flushRecords) {
+        DependencyFileWriter writer = new DependencyFileWriter(FILE, false, true);
+        writer.setFlushRecords(flushRecords);
+        writer.createFile();
+        for (Dependency dep : used) {
+            writer.appendToFile(dep, usedBy);
+        }
+        writer.close();
+    }
+
+}
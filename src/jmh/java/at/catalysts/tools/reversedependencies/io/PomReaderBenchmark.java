@@ -0,0 +1,112 @@
+package at.catalysts.tools.reversedependencies.io;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.model.Model;
+import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
+import org.codehaus.plexus.util.ReaderFactory;
+import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import at.catalysts.tools.reversedependencies.data.PomInfo;
+
+/**
+ * compare reading a pom into the maven model against streaming only needed elements,
+ * run with -prof gc for allocations per pom
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class PomReaderBenchmark {
+
+    @Param({"10", "100"})
+    private int dependencies;
+
+    private byte[] pom;
+    private PomReader modelReader;
+    private PomReader streamingReader;
+
+    @Setup
+    public void setup() {
+        pom = createPom(dependencies).getBytes(StandardCharsets.UTF_8);
+        modelReader = new MavenModelPomReader();
+        streamingReader = new StreamingPomReader();
+    }
+
+    @Benchmark
+    public PomInfo model() throws IOException, XmlPullParserException {
+        return modelReader.read(new ByteArrayInputStream(pom));
+    }
+
+    @Benchmark
+    public Model modelConcat() throws IOException, XmlPullParserException {
+        return new MavenXpp3Reader().read(new StringReader(readPomConcat(new ByteArrayInputStream(pom))));
+    }
+
+    @Benchmark
+    public PomInfo stream() throws IOException, XmlPullParserException {
+        return streamingReader.read(new ByteArrayInputStream(pom));
+    }
+
+    /**
+     * former line concatenation of the model reader as baseline
+     */
+    private static String readPomConcat(InputStream stream) throws IOException {
+        String file = "";
+        BufferedReader in = new BufferedReader(ReaderFactory.newXmlReader(stream));
+        String inputLine;
+        while ((inputLine = in.readLine()) != null) {
+            file += inputLine;
+        }
+        return file;
+    }
+
+    /**
+     * typical service pom: dependencies first, a large build and reporting section afterwards
+     */
+    private static String createPom(int dependencies) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        sb.append("<project xmlns=\"http://maven.apache.org/POM/4.0.0\">\n");
+        sb.append("  <modelVersion>4.0.0</modelVersion>\n");
+        sb.append("  <groupId>at.catalysts</groupId>\n  <artifactId>ms-bench</artifactId>\n  <version>1.0.0</version>\n");
+        sb.append("  <description>benchmark pom &amp; more</description>\n");
+        sb.append("  <dependencies>\n");
+        for (int i = 0; i < dependencies; i++) {
+            sb.append("    <dependency>\n      <groupId>at.catalysts</groupId>\n      <artifactId>ms-lib-").append(i)
+                .append("</artifactId>\n      <version>2.").append(i % 7).append("</version>\n")
+                .append("      <exclusions><exclusion><groupId>x</groupId><artifactId>y</artifactId></exclusion></exclusions>\n")
+                .append("    </dependency>\n");
+        }
+        sb.append("  </dependencies>\n  <build>\n    <plugins>\n");
+        for (int i = 0; i < dependencies; i++) {
+            sb.append("      <plugin>\n        <artifactId>plugin-").append(i).append("</artifactId>\n")
+                .append("        <version>1.").append(i).append("</version>\n")
+                .append("        <configuration><source>11</source><target>11</target></configuration>\n")
+                .append("      </plugin>\n");
+        }
+        sb.append("    </plugins>\n  </build>\n</project>\n");
+        return sb.toString();
+    }
+
+}
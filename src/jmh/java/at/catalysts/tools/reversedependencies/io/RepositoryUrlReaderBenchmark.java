@@ -0,0 +1,121 @@
+package at.catalysts.tools.reversedependencies.io;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import at.catalysts.tools.reversedependencies.CacheDataset;
+import at.catalysts.tools.reversedependencies.data.Dependency;
+import at.catalysts.tools.reversedependencies.data.DependencyTree;
+import at.catalysts.tools.reversedependencies.data.UrlDirectory;
+import at.catalysts.tools.reversedependencies.util.DependencyCacheIndex;
+
+/**
+ * cache lookups by folder url and scanning a generated repository against the cache
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class RepositoryUrlReaderBenchmark {
+
+    private static final String REPO = "http://repo/";
+    private static final String CONSUMER_FOLDER = CacheDataset.CONSUMER_GROUP.replace('.', '/') + "/";
+    private static final int LOOKUPS = 10000;
+    private static final int SCANNED_ARTIFACTS = 1000;
+
+    @Param({"10000", "100000", "1000000"})
+    private int cacheLines;
+
+    private DependencyCacheIndex cacheIndex;
+    private List<String> lookupUrls;
+    private GeneratedRepositoryReader repoReader;
+
+    @Setup
+    public void setup() {
+        CacheDataset dataset = new CacheDataset(cacheLines);
+        DependencyFileReader reader = new DependencyFileReader(dataset.file().toString());
+        reader.setReversedWithUsedByDependencies(true);
+        List<DependencyTree> cache = reader.readDependencyTreeFile();
+        cacheIndex = new DependencyCacheIndex(cache);
+        repoReader = new GeneratedRepositoryReader();
+        repoReader.setupCache(new DependencyFileWriter("target/jmh-datasets/scan-cache.csv", false, true), cache);
+        repoReader.setSubdirectory(CONSUMER_FOLDER);
+
+        // version folders of consumers, most of them not cached, and some folders outside of the cache
+        Random random = new Random(7);
+        lookupUrls = new ArrayList<>(LOOKUPS);
+        for (int i = 0; i < LOOKUPS; i++) {
+            if (i % 10 == 0) {
+                lookupUrls.add(REPO + "org/other/lib-" + i + "/1.0/");
+            } else {
+                lookupUrls.add(REPO + CONSUMER_FOLDER + "ms-" + random.nextInt(dataset.consumers())
+                        + "/2." + random.nextInt(CacheDataset.consumerVersions()) + "/");
+            }
+        }
+    }
+
+    @Benchmark
+    public void findCachedDependencyTrees(Blackhole blackhole) {
+        for (String url : lookupUrls) {
+            blackhole.consume(RepositoryUrlReader.findCachedDependencyTrees(cacheIndex, REPO, url));
+        }
+    }
+
+    @Benchmark
+    public List<DependencyTree> scanUrlDirectory() {
+        return repoReader.scanUrlDirectory(new ArrayList<>());
+    }
+
+    /**
+     * repository of consumer artifacts with all their versions, poms are not read
+     */
+    private static class GeneratedRepositoryReader extends RepositoryUrlReader {
+
+        GeneratedRepositoryReader() {
+            super(REPO);
+        }
+
+        @Override
+        UrlDirectory readUrlDirectory(String url) {
+            UrlDirectory dir = new UrlDirectory();
+            String path = url.substring(REPO.length());
+            if (path.equals(CONSUMER_FOLDER)) {
+                for (int i = 0; i < SCANNED_ARTIFACTS; i++) {
+                    dir.getFolders().add(url + "ms-" + i + "/");
+                }
+            } else if (path.split("/").length == CONSUMER_FOLDER.split("/").length + 1) {
+                for (int v = 0; v < CacheDataset.consumerVersions(); v++) {
+                    dir.getFolders().add(url + "2." + v + "/");
+                }
+            } else {
+                dir.getPoms().add(url + "consumer.pom");
+            }
+            return dir;
+        }
+
+        @Override
+        List<DependencyTree> lookForDependenciesInPom(String pom, List<Dependency> queryDependencies) {
+            return Collections.emptyList();
+        }
+    }
+
+}
@@ -0,0 +1,98 @@
+package at.catalysts.tools.reversedependencies.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import at.catalysts.tools.reversedependencies.CacheDataset;
+import at.catalysts.tools.reversedependencies.data.Dependency;
+import at.catalysts.tools.reversedependencies.data.DependencyTree;
+import at.catalysts.tools.reversedependencies.io.DependencyFileReader;
+
+/**
+ * compare indexed matching against the former nested loop matching
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class DependencyMatcherBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    private int cacheLines;
+
+    @Param({"1000"})
+    private int matchDependencies;
+
+    private List<DependencyTree> reverseDTs;
+    private List<Dependency> matchDs;
+
+    @Setup
+    public void setup() {
+        CacheDataset dataset = new CacheDataset(cacheLines);
+        DependencyFileReader reader = new DependencyFileReader(dataset.file().toString());
+        reader.setReversedWithUsedByDependencies(true);
+        reverseDTs = reader.readDependencyTreeFile();
+        Random random = new Random(42);
+        matchDs = new ArrayList<>(matchDependencies);
+        for (int i = 0; i < matchDependencies; i++) {
+            matchDs.add(new Dependency("ms-" + random.nextInt(dataset.consumers()), "",
+                    "2." + random.nextInt(CacheDataset.consumerVersions())));
+        }
+    }
+
+    @Benchmark
+    public List<DependencyTree> indexed() {
+        return DependencyMatcher.matchDependencyQuery(reverseDTs, matchDs, false);
+    }
+
+    @Benchmark
+    public List<DependencyTree> nestedLoop() {
+        return matchNestedLoop(reverseDTs, matchDs);
+    }
+
+    /**
+     * former implementation as baseline
+     */
+    private static List<DependencyTree> matchNestedLoop(List<DependencyTree> reverseDTs, List<Dependency> matchDependencies) {
+        List<DependencyTree> found = new ArrayList<>();
+        for (DependencyTree revDT : reverseDTs) {
+            Dependency revD = revDT.getDependency();
+            if (revD.getArtifactId().isEmpty() || revD.getArtifactId().equals("null")
+                    || revD.getVersion().isEmpty() || revD.getVersion().equals("null")) {
+                continue;
+            }
+            if (revDT.getUsedBy().isEmpty()) {
+                continue;
+            }
+            Dependency revDUsedBy = revDT.getUsedBy().get(0).getDependency();
+            for (Dependency matchD : matchDependencies) {
+                if (matchD.getVersion().isEmpty() || matchD.getVersion().equals("null")) {
+                    continue;
+                }
+                if (revDUsedBy.getArtifactId().equals(matchD.getArtifactId())
+                        && revDUsedBy.getVersion().equals(matchD.getVersion())) {
+                    DependencyMatcher.addMatchedDependency(found, revD, revDUsedBy);
+                }
+            }
+        }
+        return found;
+    }
+
+}
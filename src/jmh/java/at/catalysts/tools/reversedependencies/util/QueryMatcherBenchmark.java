@@ -0,0 +1,87 @@
+package at.catalysts.tools.reversedependencies.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import at.catalysts.tools.reversedependencies.data.Dependency;
+import at.catalysts.tools.reversedependencies.io.RepositoryUrlReader;
+
+/**
+ * compare the compiled query against the former loop over all queries per pom
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class QueryMatcherBenchmark {
+
+    private static final String POSTFIXES = "-client,-bus-client,-api";
+
+    @Param({"10", "1000"})
+    private int queries;
+
+    @Param({"50"})
+    private int pomDependencies;
+
+    private List<Dependency> queryDs;
+    private List<Dependency> pomDs;
+    private QueryMatcher matcher;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        queryDs = new ArrayList<>(queries);
+        for (int i = 0; i < queries; i++) {
+            queryDs.add(new Dependency("ms-" + i, "", ""));
+        }
+        pomDs = new ArrayList<>(pomDependencies);
+        for (int i = 0; i < pomDependencies; i++) {
+            pomDs.add(new Dependency("ms-" + random.nextInt(queries * 10) + (i % 3 == 0 ? "-client" : ""), "at.catalysts", "1.0"));
+        }
+        matcher = new QueryMatcher(queryDs, POSTFIXES);
+    }
+
+    @Benchmark
+    public List<Dependency> compiled() {
+        return matcher.match(pomDs);
+    }
+
+    @Benchmark
+    public List<Dependency> loop() {
+        return matchLoop(queryDs, pomDs);
+    }
+
+    /**
+     * former implementation as baseline
+     */
+    private static List<Dependency> matchLoop(List<Dependency> queryDependencies, List<Dependency> dependencies) {
+        List<Dependency> found = new ArrayList<>();
+        for (Dependency query : queryDependencies) {
+            for (Dependency dep : dependencies) {
+                if (RepositoryUrlReader.matchesArtifactIdIgnorePostfix(dep.getArtifactId(), query.getArtifactId(), POSTFIXES)) {
+                    found.add(dep);
+                    break;
+                }
+            }
+        }
+        return found;
+    }
+
+}
@@ -1,7 +1,16 @@
 package at.catalysts.tools.reversedependencies;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.PatternSyntaxException;
 
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.CommandLineParser;
@@ -13,10 +22,22 @@ import org.apache.commons.cli.ParseException;
 import at.catalysts.tools.reversedependencies.data.Dependency;
 import at.catalysts.tools.reversedependencies.data.DependencyTree;
 import at.catalysts.tools.reversedependencies.data.Setting;
+import at.catalysts.tools.reversedependencies.io.AdaptiveFetcher;
+import at.catalysts.tools.reversedependencies.io.BinaryDependencyCache;
+import at.catalysts.tools.reversedependencies.io.CacheConverter;
+import at.catalysts.tools.reversedependencies.io.CrawlCheckpoint;
+import at.catalysts.tools.reversedependencies.io.CrawlMetrics;
 import at.catalysts.tools.reversedependencies.io.DependencyFileReader;
 import at.catalysts.tools.reversedependencies.io.DependencyFileWriter;
+import at.catalysts.tools.reversedependencies.io.DependencyQueryServer;
+import at.catalysts.tools.reversedependencies.io.DirectoryManifest;
+import at.catalysts.tools.reversedependencies.io.HttpClientFetcher;
+import at.catalysts.tools.reversedependencies.io.LocalRepositoryFetcher;
 import at.catalysts.tools.reversedependencies.io.RepositoryUrlReader;
-import at.catalysts.tools.reversedependencies.util.DependencyMatcher;
+import at.catalysts.tools.reversedependencies.io.StreamingPomReader;
+import at.catalysts.tools.reversedependencies.util.DependencyGraph;
+import at.catalysts.tools.reversedependencies.util.DependencyMatchIndex;
+import at.catalysts.tools.reversedependencies.util.RepositoryPathFilter;
 
 /**
  * read a list of dependencies of interest and<br>
@@ -35,6 +56,8 @@ public class ReverseDependencies {
     public final static String HELP_TXT = "java -jar reverseDependencies.jar -q query.txt -m inuse.csv"
             + " -r https://repo1.maven.org/maven2/ -c cache.csv";
 
+    private static final String VIRTUAL_THREADS = "virtual";
+
     public static Setting setting;
 
     /**
@@ -49,46 +72,220 @@ public class ReverseDependencies {
         if (setting == null) {
             return;
         }
+        if (setting.serve() && !setting.queryRepository() && !setting.matchResult() && !setting.queryImpact()) {
+            // the server reads the cache itself
+            serve();
+            return;
+        }
 
         List<DependencyTree> reverseDependencyTrees = new ArrayList<>();
-        if (setting.useCache()) {
+        BinaryDependencyCache binaryCache = null;
+        if (setting.useBinaryCache() && isBinaryCacheCurrent()) {
+            binaryCache = openBinaryCache();
+        }
+        if (binaryCache != null && !setting.queryRepository() && !setting.queryImpact()) {
+            // match on the mapped cache without reading all lines
+            System.out.println("reverse dep in binary cache: " + binaryCache.size());
+        } else if (binaryCache != null) {
+            reverseDependencyTrees = binaryCache.readDependencyTrees();
+            System.out.println("reverse dep in binary cache: " + reverseDependencyTrees.size());
+        } else if (setting.useCache()) {
             DependencyFileReader reader = new DependencyFileReader(setting.getPathRepositoryCache());
             reader.setReversedWithUsedByDependencies(true);
-            reverseDependencyTrees = reader.readDependencyTreeFile();
+            try {
+                reverseDependencyTrees = reader.readDependencyTreeFile();
+            } catch (UncheckedIOException e) {
+                // a partly read cache is neither snapshot as binary nor extended by a scan
+                System.out.println(e.getClass() + ", msg: " + e.getMessage());
+                return;
+            }
             System.out.println("reverse dep in cache: " + reverseDependencyTrees.size());
+            if (setting.useBinaryCache() && !setting.queryRepository()) {
+                BinaryDependencyCache.write(reverseDependencyTrees, setting.getPathBinaryCache());
+            }
         }
 
         if (setting.queryRepository()) {
             System.out.println("query repository: " + setting.getRepositoryUrl());
-            if (!setting.getSubdirectory().isEmpty()) {
-                System.out.println("query subdirectory: " + setting.getSubdirectory());
+            for (String subdirectory : setting.getSubdirectories()) {
+                System.out.println("query subdirectory: " + subdirectory);
             }
             List<Dependency> queryDependencies = new ArrayList<>();
             queryDependencies.addAll(new DependencyFileReader(setting.getPathQueryDependencies()).readDependencyFile());
 
             RepositoryUrlReader repoReader = new RepositoryUrlReader(setting.getRepositoryUrl());
+            DependencyFileWriter cacheWriter = null;
             if (setting.useCache()) {
-                DependencyFileWriter cacheWriter = new DependencyFileWriter(setting.getPathRepositoryCache(), false, true);
+                cacheWriter = new DependencyFileWriter(setting.getPathRepositoryCache(), false, true);
+                cacheWriter.setFlushRecords(setting.getCacheFlushRecords());
+                cacheWriter.setFlushIntervalMillis(TimeUnit.SECONDS.toMillis(setting.getCacheFlushIntervalSeconds()));
                 repoReader.setupCache(cacheWriter, reverseDependencyTrees);
             }
-            repoReader.setSubdirectory(setting.getSubdirectory());
+            repoReader.setSubdirectories(setting.getSubdirectories());
+            if (setting.usePathFilter()) {
+                RepositoryPathFilter pathFilter = new RepositoryPathFilter(setting.getIncludePatterns(), setting.getExcludePatterns());
+                pathFilter.setLatestVersions(setting.getLatestVersions());
+                repoReader.setPathFilter(pathFilter);
+            }
             repoReader.setIgnorePostfixCsv(setting.getIgnorePostfixCsv());
+            repoReader.setThreads(setting.getThreads());
+            repoReader.setVirtualThreads(setting.isVirtualThreads());
+            repoReader.setHostConcurrency(setting.getHostConcurrency());
+            if (setting.usePipeline()) {
+                repoReader.setPipeline(setting.getPipelineFetchThreads(), setting.getPipelineParseThreads(), setting.getPipelineMatchThreads());
+                repoReader.setPipelineQueueSize(setting.getPipelineQueueSize());
+            }
+            AdaptiveFetcher adaptiveFetcher = null;
+            if (!LocalRepositoryFetcher.isLocal(setting.getRepositoryUrl())) {
+                adaptiveFetcher = new AdaptiveFetcher(new HttpClientFetcher(Duration.ofSeconds(setting.getConnectTimeoutSeconds()),
+                        Duration.ofSeconds(setting.getReadTimeoutSeconds())));
+                adaptiveFetcher.setRequestsPerSecond(setting.getRequestsPerSecond());
+                adaptiveFetcher.setMaxRetries(setting.getMaxRetries());
+                if (setting.getHostConcurrency() > 0) {
+                    adaptiveFetcher.setMaxConcurrency(setting.getHostConcurrency());
+                } else if (!setting.isVirtualThreads()) {
+                    adaptiveFetcher.setMaxConcurrency(setting.getThreads() + setting.getPipelineFetchThreads());
+                }
+                repoReader.setFetcher(adaptiveFetcher);
+            }
+            if (setting.useStreamingPomParser()) {
+                repoReader.setPomReader(new StreamingPomReader());
+            }
+            if (setting.useIndex()) {
+                repoReader.setupIndex(Arrays.asList(setting.getIndexLocationsCsv().split(",")));
+            }
+            if (setting.isResolveVersions()) {
+                repoReader.setupPomResolver(setting.getPomCacheSize(),
+                        setting.getPathPomCache().isEmpty() ? null : new File(setting.getPathPomCache()));
+            }
+            if (setting.useManifest()) {
+                DirectoryManifest manifest = new DirectoryManifest(setting.getPathManifest());
+                manifest.setTtlMillis(TimeUnit.MINUTES.toMillis(setting.getManifestTtlMinutes()));
+                repoReader.setupManifest(manifest);
+            }
+            if (setting.useCheckpoint()) {
+                CrawlCheckpoint checkpoint = new CrawlCheckpoint(setting.getPathCheckpoint());
+                checkpoint.setIntervalMillis(TimeUnit.SECONDS.toMillis(setting.getCheckpointIntervalSeconds()));
+                repoReader.setupCheckpoint(checkpoint, setting.isResume());
+            }
+            CrawlMetrics metrics = repoReader.getMetrics();
+            if (setting.isJmx()) {
+                metrics.registerMBean();
+            }
+            metrics.startReporting(TimeUnit.SECONDS.toMillis(setting.getProgressIntervalSeconds()),
+                    setting.getPathMetrics().isEmpty() ? null : setting.getPathMetrics());
             reverseDependencyTrees.addAll(repoReader.scanUrlDirectory(queryDependencies));
+            metrics.stopReporting();
+            if (cacheWriter != null) {
+                cacheWriter.close();
+            }
+            if (setting.useBinaryCache()) {
+                // scan results hold cached trees again, the csv cache is the complete source
+                CacheConverter.csvToBinary(setting.getPathRepositoryCache(), setting.getPathBinaryCache());
+            }
             System.out.println("caching used for: " + repoReader.getCacheUsageCount());
+            if (adaptiveFetcher != null) {
+                System.out.println("fetch retries: " + adaptiveFetcher.getRetryCount() + ", throttled responses: " + adaptiveFetcher.getThrottledCount());
+            }
+            System.out.println(metrics.getSummary());
         }
 
         if (setting.matchResult()) {
-            System.out.println("match results with: " + setting.getPathMatchDependencies());
-            List<Dependency> matchDependencies = new ArrayList<>();
-            matchDependencies.addAll(new DependencyFileReader(setting.getPathMatchDependencies()).readDependencyFile());
+            // the cache is indexed once for all environments
+            DependencyMatchIndex matchIndex = null;
+            if (binaryCache == null || setting.queryRepository()) {
+                matchIndex = new DependencyMatchIndex(reverseDependencyTrees);
+            }
+            for (String pathMatch : setting.getPathsMatchDependencies()) {
+                System.out.println("match results with: " + pathMatch);
+                List<Dependency> matchDependencies = new ArrayList<>();
+                matchDependencies.addAll(new DependencyFileReader(pathMatch).readDependencyFile());
 
-            List<DependencyTree> result = DependencyMatcher.matchDependencyQuery(reverseDependencyTrees, matchDependencies, setting.isMatchMajorVersionOnly());
-            DependencyFileWriter resultWriter = new DependencyFileWriter(setting.getPathOutputCsv(), true, setting.printUsedBy());
-            resultWriter.writeDependencyList(result);
-            System.out.println("dep in use found: " + result.size());
+                List<DependencyTree> result;
+                if (matchIndex == null) {
+                    result = binaryCache.matchDependencyQuery(matchDependencies, setting.isMatchMajorVersionOnly());
+                } else {
+                    result = matchIndex.match(matchDependencies, setting.isMatchMajorVersionOnly());
+                }
+                DependencyFileWriter resultWriter = new DependencyFileWriter(setting.getPathOutputCsv(pathMatch), true, setting.printUsedBy());
+                resultWriter.writeDependencyList(result);
+                System.out.println("dep in use found: " + result.size());
+            }
+        }
+
+        if (setting.queryImpact()) {
+            System.out.println("search dependents of: " + setting.getPathImpactDependencies());
+            List<DependencyTree> impact = findImpact(reverseDependencyTrees,
+                    new DependencyFileReader(setting.getPathImpactDependencies()).readDependencyFile());
+            new DependencyFileWriter(setting.getPathImpactCsv(), true, true).writeDependencyList(impact);
         }
         long elapsedTime = System.nanoTime() - start;
         System.out.println("took: " + (elapsedTime/1000000) + " ms");
+
+        if (setting.serve()) {
+            serve();
+        }
+    }
+
+    /**
+     * answer queries on the cache until the process is stopped
+     */
+    private static void serve() {
+        DependencyQueryServer server = new DependencyQueryServer(setting.getPathRepositoryCache(), setting.getServePort());
+        server.setThreads(setting.getThreads());
+        server.setRefreshIntervalMillis(TimeUnit.SECONDS.toMillis(setting.getServeRefreshSeconds()));
+        try {
+            server.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(server::stop, "query-server-stop"));
+            server.await();
+        } catch (IOException e) {
+            System.out.println(e.getClass() + ", msg: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            server.stop();
+        }
+    }
+
+    /**
+     * search the dependencies using the impact dependencies directly or transitively
+     *
+     * @param reverseDependencyTrees all cached and scanned dependencies
+     * @param impactDependencies
+     * @return impact dependencies with all dependents as used by
+     */
+    private static List<DependencyTree> findImpact(List<DependencyTree> reverseDependencyTrees, List<Dependency> impactDependencies) {
+        DependencyGraph graph = DependencyGraph.build(reverseDependencyTrees);
+        graph.setThreads(setting.getThreads());
+        System.out.println("dependency graph nodes: " + graph.getNodeCount() + ", edges: " + graph.getEdgeCount());
+        List<DependencyTree> impact = new ArrayList<>();
+        for (Dependency dependency : impactDependencies) {
+            DependencyTree tree = new DependencyTree(dependency);
+            for (DependencyGraph.Dependent dependent : graph.findDependents(dependency, setting.getImpactDepth())) {
+                tree.addUsedBy(new DependencyTree(dependent.getDependency()));
+            }
+            System.out.println("dependents of " + dependency.getArtifactId() + ": " + tree.getUsedBy().size());
+            impact.add(tree);
+        }
+        return impact;
+    }
+
+    /**
+     * binary cache is current if not older than the csv cache it was converted from
+     */
+    private static boolean isBinaryCacheCurrent() {
+        File csv = new File(setting.getPathRepositoryCache());
+        File binary = new File(setting.getPathBinaryCache());
+        return csv.isFile() && BinaryDependencyCache.isBinaryCache(binary.getPath()) && binary.lastModified() >= csv.lastModified();
+    }
+
+    private static BinaryDependencyCache openBinaryCache() {
+        try {
+            System.out.println("read binary cache: " + setting.getPathBinaryCache());
+            return BinaryDependencyCache.open(setting.getPathBinaryCache());
+        } catch (IOException e) {
+            System.out.println(e.getClass() + ", msg: " + e.getMessage());
+            return null;
+        }
     }
 
     protected static Setting parseArguments(String[] args) {
@@ -97,13 +294,45 @@ public class ReverseDependencies {
         Setting setting = new Setting();
         Options options = new Options();
         options.addOption("q", "query", true, "path: dependencies we are looking for; eg: query.txt");
-        options.addOption("m", "match", true, "path: dependencies currently in use to check against; eg: inuse.csv");
-        options.addOption("r", "repository", true, "url: repository to check; eg: https://repo1.maven.org/maven2/");
-        options.addOption("s", "subdirectory", true, "url: repository to check; eg: org/apache/maven/plugins/");
+        options.addOption("m", "match", true, "path: dependencies currently in use to check against, repeat or use a directory for one output per environment; eg: inuse.csv");
+        options.addOption("r", "repository", true, "url/path: repository to check, local directories are read from disk; eg: https://repo1.maven.org/maven2/");
+        options.addOption("s", "subdirectory", true, "url: repository to check, repeat for several; eg: org/apache/maven/plugins/");
+        options.addOption(null, "include", true, "glob or regex:pattern: only scan folders matching the path, repeat for several; eg: org/apache/**");
+        options.addOption(null, "exclude", true, "glob or regex:pattern: skip folders matching the path, repeat for several; eg: **/*-SNAPSHOT");
+        options.addOption(null, "latest", true, "number: only scan the latest versions of each artifact; eg: 3");
         options.addOption("i", "ignore", true, "string: add postfixes to include for matching; eg: -client,-bus-client");
         options.addOption("c", "cache", true, "path: optional file for caching repo for next use; eg: nexus-cache.csv");
         options.addOption("o", "ouput", true, "path: resulting output of dep <- used in dep; eg: depMatches.csv");
         options.addOption("x", "major", false, "specifiy to only match major versions; no output of used-by dependencies");
+        options.addOption("t", "threads", true, "number: concurrent repository scan workers or 'virtual' for virtual threads; eg: 8");
+        options.addOption(null, "cache-binary", true, "path: optional memory mapped snapshot of the cache, rewritten when outdated; eg: nexus-cache.bin");
+        options.addOption(null, "cache-flush-records", true, "number: flush cache file after this many records, 1 loses none on crash; eg: 1000");
+        options.addOption(null, "cache-flush-interval", true, "number: seconds after which the cache file is flushed at latest; eg: 5");
+        options.addOption(null, "host-limit", true, "number: maximum concurrent requests per repository host; eg: 4");
+        options.addOption(null, "pipeline", true, "numbers: threads downloading, parsing and matching poms in stages apart from listing folders; eg: 16,2,1");
+        options.addOption(null, "pipeline-queue", true, "number: poms waiting before each stage of the pipeline; eg: 256");
+        options.addOption(null, "pom-parser", true, "string: 'model' reads full maven model, 'stream' only needed elements; eg: stream");
+        options.addOption(null, "rate", true, "number: maximum requests per second to the repository host, concurrency adapts below; eg: 50");
+        options.addOption(null, "retries", true, "number: retries of a request failed or answered 429/5xx, with backoff, 0 for none; eg: 3");
+        options.addOption(null, "progress", true, "number: seconds between progress lines of the scan; eg: 10");
+        options.addOption(null, "metrics", true, "path: optional file of scan metrics in prometheus text format, rewritten with progress; eg: metrics.prom");
+        options.addOption(null, "jmx", false, "specify to expose scan metrics as JMX MBean");
+        options.addOption(null, "connect-timeout", true, "number: seconds to wait for a repository connection; eg: 10");
+        options.addOption(null, "read-timeout", true, "number: seconds to wait for a repository response and for more of its body; eg: 30");
+        options.addOption(null, "manifest", true, "path: optional file of directory listings for incremental scans; eg: nexus-manifest.tsv");
+        options.addOption(null, "manifest-ttl", true, "number: minutes a directory of the manifest is not requested again; eg: 1440");
+        options.addOption(null, "index", true, "path/url: repository index files (full or incremental, oldest first) instead of listings; eg: nexus-maven-repository-index.gz");
+        options.addOption(null, "resolve-versions", false, "specify to resolve versions managed or defined by parents and boms");
+        options.addOption(null, "pom-cache", true, "path: optional directory keeping parsed parents and boms; eg: pom-cache");
+        options.addOption(null, "pom-cache-size", true, "number: parents and boms kept in memory; eg: 1000");
+        options.addOption(null, "checkpoint", true, "path: optional file of the crawl frontier, needs a cache; eg: nexus-checkpoint.tsv");
+        options.addOption(null, "checkpoint-interval", true, "number: seconds between two checkpoints of the crawl, 0 for one at the end only; eg: 60");
+        options.addOption(null, "resume", false, "specify to continue the crawl of the checkpoint file");
+        options.addOption(null, "impact", true, "path: dependencies to find all direct and transitive dependents of; eg: impact.txt");
+        options.addOption(null, "impact-depth", true, "number: maximum dependency hops searched for dependents; eg: 3");
+        options.addOption(null, "serve", true, "number: port on localhost answering queries on the cache after the run, needs a cache; eg: 8080");
+        options.addOption(null, "serve-refresh", true, "number: seconds between checks for a changed cache file while serving, 0 for never; eg: 10");
+        options.addOption(null, "impact-output", true, "path: resulting output of dep <- transitive dependent; eg: depImpact.csv");
 
         try {
             CommandLine line = parser.parse(options, args);
@@ -111,13 +340,28 @@ public class ReverseDependencies {
                 setting.setPathQueryDependencies(line.getOptionValue("query"));
             }
             if (line.hasOption("match")) {
-                setting.setPathMatchDependencies(line.getOptionValue("match"));
+                setting.setPathsMatchDependencies(findMatchFiles(line.getOptionValues("match")));
             }
             if (line.hasOption("repository")) {
-                setting.setRepositoryUrl(line.getOptionValue("repository"));
+                String repository = line.getOptionValue("repository");
+                File directory = new File(repository);
+                if (!repository.contains("://") && !LocalRepositoryFetcher.isLocal(repository) && directory.isDirectory()) {
+                    // file url of a directory ends with a slash
+                    repository = directory.getAbsoluteFile().toURI().toString();
+                }
+                setting.setRepositoryUrl(repository);
             }
             if (line.hasOption("subdirectory")) {
-                setting.setSubdirectory(line.getOptionValue("subdirectory"));
+                setting.setSubdirectories(Arrays.asList(line.getOptionValues("subdirectory")));
+            }
+            if (line.hasOption("include")) {
+                setting.setIncludePatterns(parsePathPatterns("include", line.getOptionValues("include")));
+            }
+            if (line.hasOption("exclude")) {
+                setting.setExcludePatterns(parsePathPatterns("exclude", line.getOptionValues("exclude")));
+            }
+            if (line.hasOption("latest")) {
+                setting.setLatestVersions(parsePositiveNumber("latest", line.getOptionValue("latest")));
             }
             if (line.hasOption("ignore")) {
                 setting.setIgnorePostfixCsv(line.getOptionValue("ignore"));
@@ -131,17 +375,205 @@ public class ReverseDependencies {
             if (line.hasOption("major")) {
                 setting.setMatchMajorVersionOnly(true);
             }
+            if (line.hasOption("threads")) {
+                String threads = line.getOptionValue("threads");
+                if (VIRTUAL_THREADS.equalsIgnoreCase(threads)) {
+                    setting.setVirtualThreads(true);
+                } else {
+                    setting.setThreads(parsePositiveNumber("threads", threads));
+                }
+            }
+            if (line.hasOption("cache-binary")) {
+                setting.setPathBinaryCache(line.getOptionValue("cache-binary"));
+            }
+            if (line.hasOption("cache-flush-records")) {
+                setting.setCacheFlushRecords(parsePositiveNumber("cache-flush-records", line.getOptionValue("cache-flush-records")));
+            }
+            if (line.hasOption("cache-flush-interval")) {
+                setting.setCacheFlushIntervalSeconds(parsePositiveNumber("cache-flush-interval", line.getOptionValue("cache-flush-interval")));
+            }
+            if (line.hasOption("host-limit")) {
+                setting.setHostConcurrency(parsePositiveNumber("host-limit", line.getOptionValue("host-limit")));
+            }
+            if (line.hasOption("pipeline")) {
+                String[] stageThreads = line.getOptionValue("pipeline").split(",");
+                if (stageThreads.length != 3) {
+                    throw new ParseException("pipeline needs threads of the download, parse and match stage: " + line.getOptionValue("pipeline"));
+                }
+                setting.setPipelineFetchThreads(parsePositiveNumber("pipeline", stageThreads[0]));
+                setting.setPipelineParseThreads(parsePositiveNumber("pipeline", stageThreads[1]));
+                setting.setPipelineMatchThreads(parsePositiveNumber("pipeline", stageThreads[2]));
+            }
+            if (line.hasOption("pipeline-queue")) {
+                setting.setPipelineQueueSize(parsePositiveNumber("pipeline-queue", line.getOptionValue("pipeline-queue")));
+            }
+            if (line.hasOption("pom-parser")) {
+                String pomParser = line.getOptionValue("pom-parser");
+                if (!Setting.POM_PARSER_MODEL.equals(pomParser) && !Setting.POM_PARSER_STREAM.equals(pomParser)) {
+                    throw new ParseException("pom-parser needs 'model' or 'stream': " + pomParser);
+                }
+                setting.setPomParser(pomParser);
+            }
+            if (line.hasOption("rate")) {
+                setting.setRequestsPerSecond(parsePositiveNumber("rate", line.getOptionValue("rate")));
+            }
+            if (line.hasOption("retries")) {
+                setting.setMaxRetries(parseNonNegativeNumber("retries", line.getOptionValue("retries")));
+            }
+            if (line.hasOption("progress")) {
+                setting.setProgressIntervalSeconds(parsePositiveNumber("progress", line.getOptionValue("progress")));
+            }
+            if (line.hasOption("metrics")) {
+                setting.setPathMetrics(line.getOptionValue("metrics"));
+            }
+            if (line.hasOption("jmx")) {
+                setting.setJmx(true);
+            }
+            if (line.hasOption("connect-timeout")) {
+                setting.setConnectTimeoutSeconds(parsePositiveNumber("connect-timeout", line.getOptionValue("connect-timeout")));
+            }
+            if (line.hasOption("read-timeout")) {
+                setting.setReadTimeoutSeconds(parsePositiveNumber("read-timeout", line.getOptionValue("read-timeout")));
+            }
+            if (line.hasOption("manifest")) {
+                setting.setPathManifest(line.getOptionValue("manifest"));
+            }
+            if (line.hasOption("manifest-ttl")) {
+                setting.setManifestTtlMinutes(parsePositiveNumber("manifest-ttl", line.getOptionValue("manifest-ttl")));
+            }
+            if (line.hasOption("index")) {
+                setting.setIndexLocationsCsv(line.getOptionValue("index"));
+            }
+            if (line.hasOption("resolve-versions")) {
+                setting.setResolveVersions(true);
+            }
+            if (line.hasOption("pom-cache")) {
+                setting.setPathPomCache(line.getOptionValue("pom-cache"));
+            }
+            if (line.hasOption("pom-cache-size")) {
+                setting.setPomCacheSize(parsePositiveNumber("pom-cache-size", line.getOptionValue("pom-cache-size")));
+            }
+            if (line.hasOption("checkpoint")) {
+                setting.setPathCheckpoint(line.getOptionValue("checkpoint"));
+                if (!setting.useCache()) {
+                    throw new ParseException("checkpoint needs a cache keeping the results of finished folders");
+                }
+            }
+            if (line.hasOption("checkpoint-interval")) {
+                setting.setCheckpointIntervalSeconds(parseNonNegativeNumber("checkpoint-interval", line.getOptionValue("checkpoint-interval")));
+            }
+            if (line.hasOption("resume")) {
+                if (!setting.useCheckpoint()) {
+                    throw new ParseException("resume needs a checkpoint file");
+                }
+                setting.setResume(true);
+            }
+            if (line.hasOption("impact")) {
+                setting.setPathImpactDependencies(line.getOptionValue("impact"));
+            }
+            if (line.hasOption("impact-depth")) {
+                setting.setImpactDepth(parsePositiveNumber("impact-depth", line.getOptionValue("impact-depth")));
+            }
+            if (line.hasOption("impact-output")) {
+                setting.setPathImpactCsv(line.getOptionValue("impact-output"));
+            }
+            if (line.hasOption("serve")) {
+                setting.setServePort(parsePositiveNumber("serve", line.getOptionValue("serve")));
+                if (!setting.useCache()) {
+                    throw new ParseException("serve needs a cache to answer queries on");
+                }
+            }
+            if (line.hasOption("serve-refresh")) {
+                setting.setServeRefreshSeconds(parseNonNegativeNumber("serve-refresh", line.getOptionValue("serve-refresh")));
+            }
+            checkOutputFiles(setting);
         } catch(ParseException exp) {
             formatter.printHelp(HELP_TXT, options);
             System.err.println("argument parsing failed: " + exp.getMessage());
             return null;
         }
-        if (setting.getPathQueryDependencies() == null && setting.getPathMatchDependencies() == null) {
+        if (setting.getPathQueryDependencies() == null && setting.getPathMatchDependencies() == null && !setting.queryImpact()
+                && !setting.serve()) {
             formatter.printHelp(HELP_TXT, options);
-            System.err.println("specify at least a path to query or matching dependencies!");
+            System.err.println("specify at least a path to query, matching or impact dependencies or a port to serve!");
             return null;
         }
         return setting;
     }
 
+    /**
+     * @param paths files of dependencies in use or directories of them
+     * @return files, those of a directory ordered by name
+     * @throws ParseException if a directory holds no files
+     */
+    private static List<String> findMatchFiles(String[] paths) throws ParseException {
+        List<String> files = new ArrayList<>();
+        for (String path : paths) {
+            File directory = new File(path);
+            if (!directory.isDirectory()) {
+                files.add(path);
+                continue;
+            }
+            File[] environments = directory.listFiles(file -> file.isFile() && !file.getName().startsWith("."));
+            if (environments == null || environments.length == 0) {
+                throw new ParseException("match directory holds no files: " + path);
+            }
+            Arrays.sort(environments);
+            for (File environment : environments) {
+                files.add(environment.getPath());
+            }
+        }
+        return files;
+    }
+
+    /**
+     * @throws ParseException if match files of several environments would write the same output file
+     */
+    private static void checkOutputFiles(Setting setting) throws ParseException {
+        Map<String, String> matchByOutput = new HashMap<>();
+        for (String pathMatch : setting.getPathsMatchDependencies()) {
+            String other = matchByOutput.put(setting.getPathOutputCsv(pathMatch), pathMatch);
+            if (other != null) {
+                throw new ParseException("match files " + other + " and " + pathMatch + " have the same output file: "
+                        + setting.getPathOutputCsv(pathMatch) + ", rename one");
+            }
+        }
+    }
+
+    /**
+     * @return patterns of the option, compiled once to report invalid ones
+     */
+    private static List<String> parsePathPatterns(String option, String[] patterns) throws ParseException {
+        try {
+            new RepositoryPathFilter(Arrays.asList(patterns), new ArrayList<>());
+        } catch (PatternSyntaxException e) {
+            throw new ParseException(option + " needs a valid glob or regex: " + e.getMessage());
+        }
+        return Arrays.asList(patterns);
+    }
+
+    private static int parsePositiveNumber(String option, String value) throws ParseException {
+        try {
+            int number = Integer.parseInt(value.trim());
+            if (number > 0) {
+                return number;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new ParseException(option + " needs a positive number: " + value);
+    }
+
+    private static int parseNonNegativeNumber(String option, String value) throws ParseException {
+        try {
+            int number = Integer.parseInt(value.trim());
+            if (number >= 0) {
+                return number;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new ParseException(option + " needs a number of 0 or more: " + value);
+    }
+
 }
\ No newline at end of file
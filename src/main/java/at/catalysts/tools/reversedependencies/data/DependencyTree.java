@@ -5,14 +5,16 @@ import java.util.List;
 
 /**
  * object holding information to a dependency with its dependencies in use
+ * <br>
+ * lists are allocated on first use, most trees only hold a single used-by entry
  *
  */
 public class DependencyTree {
 
     private Dependency dependency;
 
-    private List<DependencyTree> uses = new ArrayList<>();
-    private List<DependencyTree> usedBy = new ArrayList<>();
+    private List<DependencyTree> uses;
+    private List<DependencyTree> usedBy;
 
     public DependencyTree() {
     }
@@ -30,6 +32,9 @@ public class DependencyTree {
     }
 
     public List<DependencyTree> getUses() {
+        if (uses == null) {
+            uses = new ArrayList<>();
+        }
         return uses;
     }
 
@@ -37,7 +42,22 @@ public class DependencyTree {
         this.uses = uses;
     }
 
+    /**
+     * add used dependency without allocating more than needed
+     * 
+     * @param tree
+     */
+    public void addUses(DependencyTree tree) {
+        if (uses == null) {
+            uses = new ArrayList<>(1);
+        }
+        uses.add(tree);
+    }
+
     public List<DependencyTree> getUsedBy() {
+        if (usedBy == null) {
+            usedBy = new ArrayList<>();
+        }
         return usedBy;
     }
 
@@ -45,4 +65,27 @@ public class DependencyTree {
         this.usedBy = usedBy;
     }
 
-}
\ No newline at end of file
+    /**
+     * add used by dependency without allocating more than needed
+     * 
+     * @param tree
+     */
+    public void addUsedBy(DependencyTree tree) {
+        if (usedBy == null) {
+            usedBy = new ArrayList<>(1);
+        }
+        usedBy.add(tree);
+    }
+
+    public boolean hasUsedBy() {
+        return usedBy != null && !usedBy.isEmpty();
+    }
+
+    /**
+     * @return dependency of the first used by entry, null if there is none
+     */
+    public Dependency getFirstUsedBy() {
+        return hasUsedBy() ? usedBy.get(0).getDependency() : null;
+    }
+
+}
@@ -0,0 +1,82 @@
+package at.catalysts.tools.reversedependencies.data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * object holding the parts of a pom needed to find reverse dependencies:
+ * coordinates, parent, properties, dependencies and dependency management
+ *
+ */
+public class PomInfo {
+
+    private Dependency project = new Dependency(null, null, null);
+    private Dependency parent;
+    private Properties properties = new Properties();
+    private List<Dependency> dependencies = new ArrayList<>();
+    private List<Dependency> dependencyManagement = new ArrayList<>();
+
+    /**
+     * coordinates of the pom, groupId and version inherited from parent if missing
+     * 
+     * @return
+     */
+    public Dependency getEffectiveProject() {
+        String groupId = project.getGroupId();
+        if (groupId == null && parent != null) {
+            groupId = parent.getGroupId();
+        }
+        String version = project.getVersion();
+        if (version == null && parent != null) {
+            version = parent.getVersion();
+        }
+        return new Dependency(project.getArtifactId(), groupId, version);
+    }
+
+    public Dependency getProject() {
+        return project;
+    }
+
+    public void setProject(Dependency project) {
+        this.project = project;
+    }
+
+    public Dependency getParent() {
+        return parent;
+    }
+
+    public void setParent(Dependency parent) {
+        this.parent = parent;
+    }
+
+    public Properties getProperties() {
+        return properties;
+    }
+
+    public void setProperties(Properties properties) {
+        this.properties = properties;
+    }
+
+    public List<Dependency> getDependencies() {
+        return dependencies;
+    }
+
+    public void setDependencies(List<Dependency> dependencies) {
+        this.dependencies = dependencies;
+    }
+
+    /**
+     * managed dependencies, boms have scope import and type pom
+     * 
+     * @return
+     */
+    public List<Dependency> getDependencyManagement() {
+        return dependencyManagement;
+    }
+
+    public void setDependencyManagement(List<Dependency> dependencyManagement) {
+        this.dependencyManagement = dependencyManagement;
+    }
+
+}
@@ -1,15 +1,28 @@
 package at.catalysts.tools.reversedependencies.data;
 
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 /**
  * object holding arguments
  *
  */
 public class Setting {
 
+    public static final String POM_PARSER_MODEL = "model";
+    public static final String POM_PARSER_STREAM = "stream";
+
     private String pathQueryDependencies;
     private String pathMatchDependencies;
+    private List<String> pathsMatchDependencies = new ArrayList<>();
     private String repositoryUrl;
     private String subdirectory = "";
+    private List<String> subdirectories = new ArrayList<>();
+    private List<String> includePatterns = new ArrayList<>();
+    private List<String> excludePatterns = new ArrayList<>();
+    private int latestVersions = 0;
 
     private String ignorePostfixCsv = "";
     private String pathRepositoryCache = "";
@@ -17,18 +30,64 @@ public class Setting {
 
     private boolean matchMajorVersionOnly = false;
 
+    private int threads = 1;
+    private boolean virtualThreads = false;
+    private int hostConcurrency = 0;
+
+    private int pipelineFetchThreads = 0;
+    private int pipelineParseThreads = 1;
+    private int pipelineMatchThreads = 1;
+    private int pipelineQueueSize = 256;
+
+    private String pomParser = POM_PARSER_MODEL;
+
+    private int requestsPerSecond = 0;
+    private int maxRetries = 3;
+
+    private int connectTimeoutSeconds = 10;
+    private int readTimeoutSeconds = 30;
+
+    private String pathManifest = "";
+    private long manifestTtlMinutes = 0;
+
+    private String pathBinaryCache = "";
+
+    private int cacheFlushRecords = 1;
+    private int cacheFlushIntervalSeconds = 0;
+
+    private String pathCheckpoint = "";
+    private int checkpointIntervalSeconds = 60;
+    private boolean resume = false;
+
+    private boolean resolveVersions = false;
+    private String pathPomCache = "";
+    private int pomCacheSize = 1000;
+
+    private String indexLocationsCsv = "";
+
+    private String pathImpactDependencies = "";
+    private String pathImpactCsv = "dependencyImpact.csv";
+    private int impactDepth = 10;
+
+    private int servePort = 0;
+    private int serveRefreshSeconds = 10;
+
+    private int progressIntervalSeconds = 0;
+    private String pathMetrics = "";
+    private boolean jmx = false;
+
     /**
      * check if repository should be queried
      */
     public boolean queryRepository() {
-        return !pathQueryDependencies.isEmpty() && repositoryUrl != null;
+        return pathQueryDependencies != null && !pathQueryDependencies.isEmpty() && repositoryUrl != null;
     }
 
     /**
      * check if results should be matched
      */
     public boolean matchResult() {
-        return !pathMatchDependencies.isEmpty();
+        return pathMatchDependencies != null && !pathMatchDependencies.isEmpty();
     }
 
     /**
@@ -38,6 +97,55 @@ public class Setting {
         return !matchMajorVersionOnly;
     }
 
+    /**
+     * check if a directory manifest is to be used
+     */
+    public boolean useManifest() {
+        return !pathManifest.isEmpty();
+    }
+
+    /**
+     * check if a binary snapshot of the repository cache is to be used
+     */
+    public boolean useBinaryCache() {
+        return useCache() && !pathBinaryCache.isEmpty();
+    }
+
+    /**
+     * check if the crawl frontier is to be checkpointed
+     */
+    public boolean useCheckpoint() {
+        return !pathCheckpoint.isEmpty();
+    }
+
+    /**
+     * check if poms are discovered by the repository index instead of directory listings
+     */
+    public boolean useIndex() {
+        return !indexLocationsCsv.isEmpty();
+    }
+
+    /**
+     * check if transitive dependents of the impact dependencies should be searched
+     */
+    public boolean queryImpact() {
+        return !pathImpactDependencies.isEmpty();
+    }
+
+    /**
+     * check if queries on the cache should be served over http
+     */
+    public boolean serve() {
+        return servePort > 0;
+    }
+
+    /**
+     * check if poms are read by streaming parser instead of maven model
+     */
+    public boolean useStreamingPomParser() {
+        return POM_PARSER_STREAM.equals(pomParser);
+    }
+
     /**
      * check if repository cache is to be used
      */
@@ -59,6 +167,19 @@ public class Setting {
 
     public void setPathMatchDependencies(String pathMatchDependencies) {
         this.pathMatchDependencies = pathMatchDependencies;
+        this.pathsMatchDependencies = pathMatchDependencies == null ? new ArrayList<>() : Collections.singletonList(pathMatchDependencies);
+    }
+
+    public List<String> getPathsMatchDependencies() {
+        return pathsMatchDependencies;
+    }
+
+    /**
+     * @param pathsMatchDependencies dependencies in use of several environments, matched in one run
+     */
+    public void setPathsMatchDependencies(List<String> pathsMatchDependencies) {
+        this.pathsMatchDependencies = pathsMatchDependencies;
+        this.pathMatchDependencies = pathsMatchDependencies.isEmpty() ? null : pathsMatchDependencies.get(0);
     }
 
     public String getRepositoryUrl() {
@@ -75,6 +196,50 @@ public class Setting {
 
     public void setSubdirectory(String subdirectory) {
         this.subdirectory = subdirectory;
+        this.subdirectories = subdirectory == null || subdirectory.isEmpty() ? new ArrayList<>() : Collections.singletonList(subdirectory);
+    }
+
+    public List<String> getSubdirectories() {
+        return subdirectories;
+    }
+
+    /**
+     * @param subdirectories several roots of the scan within the repository
+     */
+    public void setSubdirectories(List<String> subdirectories) {
+        this.subdirectories = subdirectories;
+        this.subdirectory = subdirectories.isEmpty() ? "" : subdirectories.get(0);
+    }
+
+    /**
+     * check if folders of the repository are skipped by their path
+     */
+    public boolean usePathFilter() {
+        return !includePatterns.isEmpty() || !excludePatterns.isEmpty() || latestVersions > 0;
+    }
+
+    public List<String> getIncludePatterns() {
+        return includePatterns;
+    }
+
+    public void setIncludePatterns(List<String> includePatterns) {
+        this.includePatterns = includePatterns;
+    }
+
+    public List<String> getExcludePatterns() {
+        return excludePatterns;
+    }
+
+    public void setExcludePatterns(List<String> excludePatterns) {
+        this.excludePatterns = excludePatterns;
+    }
+
+    public int getLatestVersions() {
+        return latestVersions;
+    }
+
+    public void setLatestVersions(int latestVersions) {
+        this.latestVersions = latestVersions;
     }
 
     public String getIgnorePostfixCsv() {
@@ -101,6 +266,28 @@ public class Setting {
         this.pathOutputCsv = pathOutputCsv;
     }
 
+    /**
+     * output file of one environment, with several environments named after their file of dependencies in use
+     *
+     * @param pathMatch eg: envs/prod.csv
+     * @return eg: dependencyMatches-prod.csv
+     */
+    public String getPathOutputCsv(String pathMatch) {
+        if (pathsMatchDependencies.size() <= 1) {
+            return pathOutputCsv;
+        }
+        String environment = new File(pathMatch).getName();
+        int dot = environment.lastIndexOf('.');
+        if (dot > 0) {
+            environment = environment.substring(0, dot);
+        }
+        int extension = pathOutputCsv.lastIndexOf('.');
+        if (extension <= pathOutputCsv.lastIndexOf(File.separatorChar) + 1) {
+            return pathOutputCsv + "-" + environment;
+        }
+        return pathOutputCsv.substring(0, extension) + "-" + environment + pathOutputCsv.substring(extension);
+    }
+
     public boolean isMatchMajorVersionOnly() {
         return matchMajorVersionOnly;
     }
@@ -109,4 +296,267 @@ public class Setting {
         this.matchMajorVersionOnly = matchMajorVersionOnly;
     }
 
+    public int getThreads() {
+        return threads;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    public void setVirtualThreads(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+    }
+
+    public int getHostConcurrency() {
+        return hostConcurrency;
+    }
+
+    public void setHostConcurrency(int hostConcurrency) {
+        this.hostConcurrency = hostConcurrency;
+    }
+
+    public String getPathManifest() {
+        return pathManifest;
+    }
+
+    public void setPathManifest(String pathManifest) {
+        this.pathManifest = pathManifest;
+    }
+
+    public long getManifestTtlMinutes() {
+        return manifestTtlMinutes;
+    }
+
+    public void setManifestTtlMinutes(long manifestTtlMinutes) {
+        this.manifestTtlMinutes = manifestTtlMinutes;
+    }
+
+    public int getConnectTimeoutSeconds() {
+        return connectTimeoutSeconds;
+    }
+
+    public void setConnectTimeoutSeconds(int connectTimeoutSeconds) {
+        this.connectTimeoutSeconds = connectTimeoutSeconds;
+    }
+
+    public int getReadTimeoutSeconds() {
+        return readTimeoutSeconds;
+    }
+
+    public void setReadTimeoutSeconds(int readTimeoutSeconds) {
+        this.readTimeoutSeconds = readTimeoutSeconds;
+    }
+
+    public String getPomParser() {
+        return pomParser;
+    }
+
+    public void setPomParser(String pomParser) {
+        this.pomParser = pomParser;
+    }
+
+    public int getCacheFlushRecords() {
+        return cacheFlushRecords;
+    }
+
+    public void setCacheFlushRecords(int cacheFlushRecords) {
+        this.cacheFlushRecords = cacheFlushRecords;
+    }
+
+    public int getCacheFlushIntervalSeconds() {
+        return cacheFlushIntervalSeconds;
+    }
+
+    public void setCacheFlushIntervalSeconds(int cacheFlushIntervalSeconds) {
+        this.cacheFlushIntervalSeconds = cacheFlushIntervalSeconds;
+    }
+
+    public String getPathBinaryCache() {
+        return pathBinaryCache;
+    }
+
+    public void setPathBinaryCache(String pathBinaryCache) {
+        this.pathBinaryCache = pathBinaryCache;
+    }
+
+    public String getPathCheckpoint() {
+        return pathCheckpoint;
+    }
+
+    public void setPathCheckpoint(String pathCheckpoint) {
+        this.pathCheckpoint = pathCheckpoint;
+    }
+
+    public int getCheckpointIntervalSeconds() {
+        return checkpointIntervalSeconds;
+    }
+
+    public void setCheckpointIntervalSeconds(int checkpointIntervalSeconds) {
+        this.checkpointIntervalSeconds = checkpointIntervalSeconds;
+    }
+
+    public boolean isResume() {
+        return resume;
+    }
+
+    public void setResume(boolean resume) {
+        this.resume = resume;
+    }
+
+    public boolean isResolveVersions() {
+        return resolveVersions;
+    }
+
+    public void setResolveVersions(boolean resolveVersions) {
+        this.resolveVersions = resolveVersions;
+    }
+
+    public String getPathPomCache() {
+        return pathPomCache;
+    }
+
+    public void setPathPomCache(String pathPomCache) {
+        this.pathPomCache = pathPomCache;
+    }
+
+    public int getPomCacheSize() {
+        return pomCacheSize;
+    }
+
+    public void setPomCacheSize(int pomCacheSize) {
+        this.pomCacheSize = pomCacheSize;
+    }
+
+    public String getIndexLocationsCsv() {
+        return indexLocationsCsv;
+    }
+
+    public void setIndexLocationsCsv(String indexLocationsCsv) {
+        this.indexLocationsCsv = indexLocationsCsv;
+    }
+
+    public String getPathImpactDependencies() {
+        return pathImpactDependencies;
+    }
+
+    public void setPathImpactDependencies(String pathImpactDependencies) {
+        this.pathImpactDependencies = pathImpactDependencies;
+    }
+
+    public String getPathImpactCsv() {
+        return pathImpactCsv;
+    }
+
+    public void setPathImpactCsv(String pathImpactCsv) {
+        this.pathImpactCsv = pathImpactCsv;
+    }
+
+    public int getImpactDepth() {
+        return impactDepth;
+    }
+
+    public void setImpactDepth(int impactDepth) {
+        this.impactDepth = impactDepth;
+    }
+
+    public int getServePort() {
+        return servePort;
+    }
+
+    public void setServePort(int servePort) {
+        this.servePort = servePort;
+    }
+
+    public int getServeRefreshSeconds() {
+        return serveRefreshSeconds;
+    }
+
+    public void setServeRefreshSeconds(int serveRefreshSeconds) {
+        this.serveRefreshSeconds = serveRefreshSeconds;
+    }
+
+    public int getRequestsPerSecond() {
+        return requestsPerSecond;
+    }
+
+    public void setRequestsPerSecond(int requestsPerSecond) {
+        this.requestsPerSecond = requestsPerSecond;
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    public void setMaxRetries(int maxRetries) {
+        this.maxRetries = maxRetries;
+    }
+
+    public int getProgressIntervalSeconds() {
+        return progressIntervalSeconds;
+    }
+
+    public void setProgressIntervalSeconds(int progressIntervalSeconds) {
+        this.progressIntervalSeconds = progressIntervalSeconds;
+    }
+
+    public String getPathMetrics() {
+        return pathMetrics;
+    }
+
+    public void setPathMetrics(String pathMetrics) {
+        this.pathMetrics = pathMetrics;
+    }
+
+    public boolean isJmx() {
+        return jmx;
+    }
+
+    public void setJmx(boolean jmx) {
+        this.jmx = jmx;
+    }
+
+    /**
+     * check if poms are checked in stages apart from listing folders
+     */
+    public boolean usePipeline() {
+        return pipelineFetchThreads > 0;
+    }
+
+    public int getPipelineFetchThreads() {
+        return pipelineFetchThreads;
+    }
+
+    public void setPipelineFetchThreads(int pipelineFetchThreads) {
+        this.pipelineFetchThreads = pipelineFetchThreads;
+    }
+
+    public int getPipelineParseThreads() {
+        return pipelineParseThreads;
+    }
+
+    public void setPipelineParseThreads(int pipelineParseThreads) {
+        this.pipelineParseThreads = pipelineParseThreads;
+    }
+
+    public int getPipelineMatchThreads() {
+        return pipelineMatchThreads;
+    }
+
+    public void setPipelineMatchThreads(int pipelineMatchThreads) {
+        this.pipelineMatchThreads = pipelineMatchThreads;
+    }
+
+    public int getPipelineQueueSize() {
+        return pipelineQueueSize;
+    }
+
+    public void setPipelineQueueSize(int pipelineQueueSize) {
+        this.pipelineQueueSize = pipelineQueueSize;
+    }
+
 }
@@ -0,0 +1,43 @@
+package at.catalysts.tools.reversedependencies.data;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * symbol table for dependency coordinates
+ * <br><br>
+ * groupIds, artifactIds and versions repeat in millions of cache lines,
+ * every distinct value is kept once and shared by all dependencies read with the same table.
+ * A table is meant for one read of a cache and dropped afterwards, it is safe for parallel use.
+ *
+ */
+public final class SymbolTable {
+
+    private final Map<String, String> symbols = new ConcurrentHashMap<>();
+
+    /**
+     * @param value
+     * @return shared instance equal to value, null for null
+     */
+    public String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        String symbol = symbols.get(value);
+        if (symbol == null) {
+            symbol = symbols.putIfAbsent(value, value);
+            if (symbol == null) {
+                symbol = value;
+            }
+        }
+        return symbol;
+    }
+
+    /**
+     * @return number of distinct values
+     */
+    public int size() {
+        return symbols.size();
+    }
+
+}
@@ -0,0 +1,365 @@
+package at.catalysts.tools.reversedependencies.io;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fetch with a request rate and concurrency adapted to each repository host
+ * <br><br>
+ * requests of a host take a token of a bucket refilled at the configured rate. The number of
+ * concurrent requests is adapted additive increase / multiplicative decrease: it grows by one per
+ * round of successful requests and is halved when the host answers 429 or 5xx, fails, or its
+ * latency climbs over a multiple of the fastest of the last 10 to 20 seconds. A request counts as
+ * concurrent until its response is closed, so bodies still being read hold their slot.
+ * Throttled or failed requests are retried with exponential backoff and full jitter,
+ * a Retry-After header is respected and pauses the host.
+ *
+ */
+public class AdaptiveFetcher implements UrlFetcher {
+
+    public static final int HTTP_TOO_MANY_REQUESTS = 429;
+    public static final int HTTP_SERVER_ERROR = 500;
+
+    private static final double LATENCY_SMOOTHING = 0.2;
+    private static final long LATENCY_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final UrlFetcher delegate;
+    private double requestsPerSecond;
+    private int maxConcurrency;
+    private int maxRetries;
+    private long baseBackoffMillis;
+    private long maxBackoffMillis;
+    private double latencyTolerance;
+    private final Map<String, HostState> hosts = new ConcurrentHashMap<>();
+    private final AtomicLong retryCount = new AtomicLong();
+    private final AtomicLong throttledCount = new AtomicLong();
+
+    /**
+     * construct fetcher without rate limit, adaptive concurrency or retries
+     *
+     * @param delegate doing the requests
+     */
+    public AdaptiveFetcher(UrlFetcher delegate) {
+        this.delegate = delegate;
+        this.requestsPerSecond = 0;
+        this.maxConcurrency = 0;
+        this.maxRetries = 0;
+        this.baseBackoffMillis = 500;
+        this.maxBackoffMillis = TimeUnit.SECONDS.toMillis(30);
+        this.latencyTolerance = 4;
+    }
+
+    public double getRequestsPerSecond() {
+        return requestsPerSecond;
+    }
+
+    /**
+     * @param requestsPerSecond per host, 0 for no limit
+     */
+    public void setRequestsPerSecond(double requestsPerSecond) {
+        this.requestsPerSecond = requestsPerSecond;
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    /**
+     * @param maxConcurrency upper bound of the adapted concurrent requests per host, 0 to not adapt
+     */
+    public void setMaxConcurrency(int maxConcurrency) {
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    /**
+     * @param maxRetries of a request answered 429 or 5xx or failed by an IOException
+     */
+    public void setMaxRetries(int maxRetries) {
+        this.maxRetries = maxRetries;
+    }
+
+    /**
+     * @param baseBackoffMillis upper bound of the first backoff, doubled every retry
+     * @param maxBackoffMillis upper bound of any backoff
+     */
+    public void setBackoffMillis(long baseBackoffMillis, long maxBackoffMillis) {
+        this.baseBackoffMillis = baseBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    /**
+     * @param latencyTolerance smoothed latency over this multiple of the fastest request lowers the concurrency
+     */
+    public void setLatencyTolerance(double latencyTolerance) {
+        this.latencyTolerance = latencyTolerance;
+    }
+
+    public long getRetryCount() {
+        return retryCount.get();
+    }
+
+    /**
+     * @return responses 429 or 5xx
+     */
+    public long getThrottledCount() {
+        return throttledCount.get();
+    }
+
+    /**
+     * @param host
+     * @return current concurrency limit of the host, 0 if not adapted
+     */
+    public int getConcurrencyLimit(String host) {
+        HostState state = hosts.get(host);
+        return state == null ? maxConcurrency : state.getLimit();
+    }
+
+    /**
+     * @param host
+     * @return requests of the host with a response not closed yet
+     */
+    int getInFlight(String host) {
+        HostState state = hosts.get(host);
+        return state == null ? 0 : state.getInFlight();
+    }
+
+    /**
+     * check if a response status is worth a retry
+     *
+     * @param statusCode
+     * @return true for 429 and 5xx
+     */
+    public static boolean isRetryable(int statusCode) {
+        return statusCode == HTTP_TOO_MANY_REQUESTS || statusCode >= HTTP_SERVER_ERROR;
+    }
+
+    @Override
+    public FetchResponse fetch(String url, Map<String, String> headers) throws IOException {
+        HostState host = hosts.computeIfAbsent(getHost(url), h -> new HostState(maxConcurrency));
+        for (int attempt = 0; ; attempt++) {
+            acquire(host);
+            long start = System.nanoTime();
+            FetchResponse response;
+            try {
+                response = delegate.fetch(url, headers);
+            } catch (IOException e) {
+                long now = System.nanoTime();
+                host.release(now, now - start, true, latencyTolerance);
+                // timeouts are InterruptedIOExceptions as well, only an interrupted thread stops
+                if (attempt >= maxRetries || Thread.currentThread().isInterrupted()) {
+                    throw e;
+                }
+                backoff(host, attempt, 0);
+                continue;
+            }
+            boolean retryable = isRetryable(response.getStatusCode());
+            // latency until the headers, the slot is held until the body is read
+            long latencyNanos = System.nanoTime() - start;
+            FetchResponse releasing = new ReleasingResponse(response,
+                    () -> host.release(System.nanoTime(), latencyNanos, retryable, latencyTolerance));
+            if (!retryable) {
+                return releasing;
+            }
+            throttledCount.incrementAndGet();
+            if (attempt >= maxRetries) {
+                return releasing;
+            }
+            long retryAfterMillis = parseRetryAfterMillis(releasing.getHeader("Retry-After"));
+            releasing.close();
+            backoff(host, attempt, retryAfterMillis);
+        }
+    }
+
+    private void acquire(HostState host) throws InterruptedIOException {
+        try {
+            long waitNanos = host.reserve(System.nanoTime(), requestsPerSecond);
+            if (waitNanos > 0) {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            }
+            host.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted waiting for repository host");
+        }
+    }
+
+    /**
+     * pause the host for a random time up to the exponential backoff, at least retry after
+     */
+    private void backoff(HostState host, int attempt, long retryAfterMillis) throws InterruptedIOException {
+        retryCount.incrementAndGet();
+        long ceiling = Math.min(maxBackoffMillis, baseBackoffMillis << Math.min(attempt, 30));
+        long delayMillis = Math.max(retryAfterMillis, ThreadLocalRandom.current().nextLong(ceiling + 1));
+        host.pause(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMillis));
+        try {
+            TimeUnit.MILLISECONDS.sleep(delayMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted in backoff");
+        }
+    }
+
+    /**
+     * @param retryAfter seconds, http dates are ignored
+     * @return 0 if missing
+     */
+    static long parseRetryAfterMillis(String retryAfter) {
+        if (retryAfter == null) {
+            return 0;
+        }
+        try {
+            return TimeUnit.SECONDS.toMillis(Math.max(0, Long.parseLong(retryAfter.trim())));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static String getHost(String url) {
+        try {
+            String host = URI.create(url).getHost();
+            return host == null ? "" : host;
+        } catch (IllegalArgumentException e) {
+            return "";
+        }
+    }
+
+    /**
+     * token bucket and concurrency limit of one host
+     */
+    static class HostState {
+
+        private final int maxLimit;
+        private double limit;
+        private int inFlight;
+        private double tokens = 1;
+        private long refilledNanos;
+        private long pausedUntilNanos;
+        private long minLatencyNanos = Long.MAX_VALUE;
+        private long previousMinLatencyNanos = Long.MAX_VALUE;
+        private long latencyWindowNanos;
+        private double smoothedLatencyNanos;
+        private long decreasedNanos;
+
+        HostState(int maxLimit) {
+            this.maxLimit = maxLimit;
+            this.limit = maxLimit;
+        }
+
+        /**
+         * take a token, the bucket holds one second of requests at most and may go negative
+         *
+         * @return nanos to wait before the request
+         */
+        synchronized long reserve(long nowNanos, double requestsPerSecond) {
+            long waitNanos = Math.max(0, pausedUntilNanos - nowNanos);
+            if (requestsPerSecond <= 0) {
+                return waitNanos;
+            }
+            double burst = Math.max(1, requestsPerSecond);
+            if (refilledNanos != 0) {
+                tokens = Math.min(burst, tokens + (nowNanos - refilledNanos) * requestsPerSecond / TimeUnit.SECONDS.toNanos(1));
+            }
+            refilledNanos = nowNanos;
+            tokens -= 1;
+            if (tokens < 0) {
+                waitNanos = Math.max(waitNanos, (long) (-tokens / requestsPerSecond * TimeUnit.SECONDS.toNanos(1)));
+            }
+            return waitNanos;
+        }
+
+        synchronized void pause(long untilNanos) {
+            pausedUntilNanos = Math.max(pausedUntilNanos, untilNanos);
+        }
+
+        synchronized void acquire() throws InterruptedException {
+            if (maxLimit <= 0) {
+                return;
+            }
+            while (inFlight >= (int) limit) {
+                wait();
+            }
+            inFlight++;
+        }
+
+        /**
+         * @param now System.nanoTime() when the request released its slot
+         * @param latencyNanos of the finished request
+         * @param overloaded host answered 429, 5xx or failed
+         * @param latencyTolerance
+         */
+        synchronized void release(long now, long latencyNanos, boolean overloaded, double latencyTolerance) {
+            if (maxLimit <= 0) {
+                return;
+            }
+            inFlight--;
+            // fastest request of the current and the previous window, a slower host is accepted after two windows
+            if (now - latencyWindowNanos >= LATENCY_WINDOW_NANOS) {
+                previousMinLatencyNanos = now - latencyWindowNanos >= 2 * LATENCY_WINDOW_NANOS ? Long.MAX_VALUE : minLatencyNanos;
+                minLatencyNanos = Long.MAX_VALUE;
+                latencyWindowNanos = now;
+            }
+            minLatencyNanos = Math.min(minLatencyNanos, latencyNanos);
+            long fastestNanos = Math.min(minLatencyNanos, previousMinLatencyNanos);
+            smoothedLatencyNanos = smoothedLatencyNanos == 0 ? latencyNanos
+                    : smoothedLatencyNanos + LATENCY_SMOOTHING * (latencyNanos - smoothedLatencyNanos);
+            if (overloaded || smoothedLatencyNanos > latencyTolerance * fastestNanos) {
+                // decrease once per round of requests in flight
+                if (now - decreasedNanos > smoothedLatencyNanos) {
+                    limit = Math.max(1, limit / 2);
+                    decreasedNanos = now;
+                }
+            } else {
+                limit = Math.min(maxLimit, limit + 1 / limit);
+            }
+            notifyAll();
+        }
+
+        synchronized int getLimit() {
+            return (int) limit;
+        }
+
+        synchronized int getInFlight() {
+            return inFlight;
+        }
+    }
+
+    /**
+     * response releasing the slot of its host once when closed
+     */
+    private static class ReleasingResponse extends FetchResponse {
+
+        private final FetchResponse response;
+        private final Runnable release;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private ReleasingResponse(FetchResponse response, Runnable release) throws IOException {
+            super(response.getUrl(), response.getStatusCode(), response::getHeader,
+                    response.getStatusCode() >= 400 ? null : response.getBody());
+            this.response = response;
+            this.release = release;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                response.close();
+            } finally {
+                if (released.compareAndSet(false, true)) {
+                    release.run();
+                }
+            }
+        }
+    }
+
+}
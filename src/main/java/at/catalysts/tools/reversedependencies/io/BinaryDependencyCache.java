@@ -0,0 +1,440 @@
+package at.catalysts.tools.reversedependencies.io;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import at.catalysts.tools.reversedependencies.data.Dependency;
+import at.catalysts.tools.reversedependencies.data.DependencyTree;
+import at.catalysts.tools.reversedependencies.util.DependencyMatcher;
+
+/**
+ * Binary repository cache, memory mapped for reading
+ * <br><br>
+ * every distinct artifactId, groupId and version is stored once in a dictionary sorted by its utf-8 bytes,
+ * cache lines are rows of dictionary ids. Rows are additionally indexed by their used-by dependency
+ * so lookups and matching binary search the mapped file without parsing all lines.
+ * <br><br>
+ * structure (big endian ints):
+ * <br>magic, stringCount, rowCount
+ * <br>stringCount + 1 offsets into string data, string data padded to 4 bytes
+ * <br>rowCount rows: artifactId groupId version usedByArtifactId usedByGroupId usedByVersion (-1 without used-by)
+ * <br>rowCount row numbers sorted by usedByArtifactId, usedByVersion, usedByGroupId
+ *
+ */
+public class BinaryDependencyCache {
+
+    private static final int MAGIC = 0x52444331;
+    private static final int HEADER_INTS = 3;
+    private static final int ROW_INTS = 6;
+    private static final int NONE = -1;
+    private static final String NULL_VALUE = "null";
+
+    private static final int ARTIFACT_ID = 0;
+    private static final int GROUP_ID = 1;
+    private static final int VERSION = 2;
+    private static final int USED_BY_ARTIFACT_ID = 3;
+    private static final int USED_BY_GROUP_ID = 4;
+    private static final int USED_BY_VERSION = 5;
+
+    private final ByteBuffer strings;
+    private final IntBuffer offsets;
+    private final IntBuffer rows;
+    private final IntBuffer usedByIndex;
+    private final int stringCount;
+    private final int rowCount;
+    private final String[] decoded;
+
+    private BinaryDependencyCache(ByteBuffer buffer) throws IOException {
+        if (buffer.getInt(0) != MAGIC) {
+            throw new IOException("no binary dependency cache");
+        }
+        this.stringCount = buffer.getInt(4);
+        this.rowCount = buffer.getInt(8);
+        int offsetsStart = HEADER_INTS * 4;
+        int stringsStart = offsetsStart + (stringCount + 1) * 4;
+        int stringsLength = buffer.getInt(offsetsStart + stringCount * 4);
+        int rowsStart = stringsStart + pad(stringsLength);
+        int indexStart = rowsStart + rowCount * ROW_INTS * 4;
+        this.offsets = slice(buffer, offsetsStart, (stringCount + 1) * 4).asIntBuffer();
+        this.strings = slice(buffer, stringsStart, stringsLength);
+        this.rows = slice(buffer, rowsStart, rowCount * ROW_INTS * 4).asIntBuffer();
+        this.usedByIndex = slice(buffer, indexStart, rowCount * 4).asIntBuffer();
+        this.decoded = new String[stringCount];
+    }
+
+    /**
+     * map binary cache file
+     *
+     * @param filename
+     * @return cache reading the mapped file
+     * @throws IOException if the file is no binary cache
+     */
+    public static BinaryDependencyCache open(String filename) throws IOException {
+        try (FileChannel channel = FileChannel.open(new File(filename).toPath(), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("binary dependency cache too large: " + channel.size());
+            }
+            return new BinaryDependencyCache(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * check if file starts like a binary cache
+     *
+     * @param filename
+     * @return false if file is missing or not binary
+     */
+    public static boolean isBinaryCache(String filename) {
+        File file = new File(filename);
+        if (!file.isFile() || file.length() < HEADER_INTS * 4) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(4);
+            channel.read(magic, 0);
+            return magic.getInt(0) == MAGIC;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * write reversed dependency trees (dependency with used-by) as binary cache,
+     * the former file is replaced when writing is finished
+     *
+     * @param trees
+     * @param filename
+     */
+    public static void write(List<DependencyTree> trees, String filename) {
+        List<String[]> lines = new ArrayList<>(trees.size());
+        Set<String> values = new HashSet<>();
+        for (DependencyTree tree : trees) {
+            if (tree.getDependency() == null) {
+                continue;
+            }
+            Dependency usedBy = tree.getFirstUsedBy();
+            String[] line = {value(tree.getDependency().getArtifactId()), value(tree.getDependency().getGroupId()),
+                value(tree.getDependency().getVersion()), null, null, null};
+            if (usedBy != null) {
+                line[USED_BY_ARTIFACT_ID] = value(usedBy.getArtifactId());
+                line[USED_BY_GROUP_ID] = value(usedBy.getGroupId());
+                line[USED_BY_VERSION] = value(usedBy.getVersion());
+            }
+            for (String v : line) {
+                if (v != null) {
+                    values.add(v);
+                }
+            }
+            lines.add(line);
+        }
+        byte[][] dictionary = new byte[values.size()][];
+        int i = 0;
+        for (String v : values) {
+            dictionary[i++] = v.getBytes(StandardCharsets.UTF_8);
+        }
+        Arrays.sort(dictionary, Arrays::compareUnsigned);
+        Map<String, Integer> ids = new HashMap<>(dictionary.length * 2);
+        for (i = 0; i < dictionary.length; i++) {
+            ids.put(new String(dictionary[i], StandardCharsets.UTF_8), i);
+        }
+        int[] rowIds = new int[lines.size() * ROW_INTS];
+        for (int row = 0; row < lines.size(); row++) {
+            String[] line = lines.get(row);
+            for (int column = 0; column < ROW_INTS; column++) {
+                rowIds[row * ROW_INTS + column] = line[column] == null ? NONE : ids.get(line[column]);
+            }
+        }
+        Path target = new File(filename).getAbsoluteFile().toPath();
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(dictionary.length);
+            out.writeInt(lines.size());
+            int offset = 0;
+            for (byte[] value : dictionary) {
+                out.writeInt(offset);
+                offset += value.length;
+            }
+            out.writeInt(offset);
+            for (byte[] value : dictionary) {
+                out.write(value);
+            }
+            for (int p = offset; p < pad(offset); p++) {
+                out.write(0);
+            }
+            for (int id : rowIds) {
+                out.writeInt(id);
+            }
+            for (int row : sortByUsedBy(rowIds, lines.size())) {
+                out.writeInt(row);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+        try {
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        System.out.println("wrote binary cache: " + target + ", lines: " + lines.size() + ", strings: " + dictionary.length);
+    }
+
+    public int size() {
+        return rowCount;
+    }
+
+    /**
+     * @param id
+     * @return string of the dictionary, decoded once
+     */
+    public String getString(int id) {
+        String value = decoded[id];
+        if (value == null) {
+            int start = offsets.get(id);
+            byte[] bytes = new byte[offsets.get(id + 1) - start];
+            strings.duplicate().position(start).get(bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+            decoded[id] = value;
+        }
+        return value;
+    }
+
+    /**
+     * binary search the dictionary
+     *
+     * @param value
+     * @return id or -1 if value is not part of the cache
+     */
+    public int findString(String value) {
+        byte[] bytes = value(value).getBytes(StandardCharsets.UTF_8);
+        int low = 0;
+        int high = stringCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compareString(mid, bytes);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * read all lines as reversed dependency trees like the csv cache reader does,
+     * equal values share one string instance
+     *
+     * @return trees in order of the cache lines
+     */
+    public List<DependencyTree> readDependencyTrees() {
+        List<DependencyTree> trees = new ArrayList<>(rowCount);
+        for (int row = 0; row < rowCount; row++) {
+            trees.add(createTree(row));
+        }
+        System.out.println("read dependency trees: " + trees.size());
+        return trees;
+    }
+
+    /**
+     * find cache lines used by the given dependency
+     *
+     * @param usedBy
+     * @return trees in order of the cache lines
+     */
+    public List<DependencyTree> find(Dependency usedBy) {
+        int artifactId = findString(usedBy.getArtifactId());
+        int version = findString(usedBy.getVersion());
+        int groupId = findString(usedBy.getGroupId());
+        List<DependencyTree> trees = new ArrayList<>();
+        if (artifactId == NONE || version == NONE || groupId == NONE) {
+            return trees;
+        }
+        for (int i = lowerBound(artifactId, version, groupId); i < rowCount; i++) {
+            int row = usedByIndex.get(i);
+            if (compareUsedBy(row, artifactId, version, groupId) != 0) {
+                break;
+            }
+            trees.add(createTree(row));
+        }
+        return trees;
+    }
+
+    /**
+     * match dependencies in use against the used-by dependencies of the mapped cache,
+     * gives the same result as {@link DependencyMatcher#matchDependencyQuery(List, List, boolean)}
+     * on the read trees but only decodes matching lines
+     *
+     * @param matchDependencies
+     * @param matchMajorOnly reduce version of reversed dependencies to major version
+     * @return
+     */
+    public List<DependencyTree> matchDependencyQuery(List<Dependency> matchDependencies, boolean matchMajorOnly) {
+        Map<Long, Integer> matchCounts = new HashMap<>();
+        for (Dependency matchD : matchDependencies) {
+            if (matchD.getVersion().isEmpty() || matchD.getVersion().equals(NULL_VALUE)) {
+                continue;
+            }
+            int artifactId = findString(matchD.getArtifactId());
+            int version = findString(matchD.getVersion());
+            if (artifactId != NONE && version != NONE) {
+                matchCounts.merge(createKey(artifactId, version), 1, Integer::sum);
+            }
+        }
+        // matching lines in order of the cache
+        List<Integer> matchedRows = new ArrayList<>();
+        for (long key : matchCounts.keySet()) {
+            int artifactId = (int) (key >>> 32);
+            int version = (int) key;
+            for (int i = lowerBound(artifactId, version, 0); i < rowCount; i++) {
+                int row = usedByIndex.get(i);
+                if (row(row, USED_BY_ARTIFACT_ID) != artifactId || row(row, USED_BY_VERSION) != version) {
+                    break;
+                }
+                matchedRows.add(row);
+            }
+        }
+        matchedRows.sort(null);
+
+        int emptyId = findString("");
+        int nullId = findString(NULL_VALUE);
+        Map<String, DependencyTree> found = new LinkedHashMap<>();
+        for (int row : matchedRows) {
+            int artifactId = row(row, ARTIFACT_ID);
+            int version = row(row, VERSION);
+            if (artifactId == emptyId || artifactId == nullId || version == emptyId || version == nullId) {
+                continue;
+            }
+            DependencyTree tree = createTree(row);
+            Dependency revD = tree.getDependency();
+            if (matchMajorOnly) {
+                int matchCount = matchCounts.get(createKey(row(row, USED_BY_ARTIFACT_ID), row(row, USED_BY_VERSION)));
+                for (int i = 0; i < matchCount; i++) {
+                    revD.setVersion(DependencyMatcher.getMajorVersion(revD.getVersion()));
+                }
+            }
+            found.putIfAbsent(revD.getArtifactId() + ":" + revD.getVersion(), tree);
+        }
+        return new ArrayList<>(found.values());
+    }
+
+    private DependencyTree createTree(int row) {
+        DependencyTree tree = new DependencyTree(new Dependency(getString(row(row, ARTIFACT_ID)),
+                getString(row(row, GROUP_ID)), getString(row(row, VERSION))));
+        if (row(row, USED_BY_ARTIFACT_ID) != NONE) {
+            tree.addUsedBy(new DependencyTree(new Dependency(getString(row(row, USED_BY_ARTIFACT_ID)),
+                    getString(row(row, USED_BY_GROUP_ID)), getString(row(row, USED_BY_VERSION)))));
+        }
+        return tree;
+    }
+
+    private int row(int row, int column) {
+        return rows.get(row * ROW_INTS + column);
+    }
+
+    /**
+     * first index position not below the given used-by ids
+     */
+    private int lowerBound(int artifactId, int version, int groupId) {
+        int low = 0;
+        int high = rowCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compareUsedBy(usedByIndex.get(mid), artifactId, version, groupId) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int compareUsedBy(int row, int artifactId, int version, int groupId) {
+        int cmp = Integer.compare(row(row, USED_BY_ARTIFACT_ID), artifactId);
+        if (cmp == 0) {
+            cmp = Integer.compare(row(row, USED_BY_VERSION), version);
+        }
+        if (cmp == 0) {
+            cmp = Integer.compare(row(row, USED_BY_GROUP_ID), groupId);
+        }
+        return cmp;
+    }
+
+    private int compareString(int id, byte[] bytes) {
+        int start = offsets.get(id);
+        int length = offsets.get(id + 1) - start;
+        int common = Math.min(length, bytes.length);
+        for (int i = 0; i < common; i++) {
+            int cmp = Integer.compare(strings.get(start + i) & 0xff, bytes[i] & 0xff);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return Integer.compare(length, bytes.length);
+    }
+
+    private static int[] sortByUsedBy(int[] rowIds, int rowCount) {
+        Integer[] order = new Integer[rowCount];
+        for (int row = 0; row < rowCount; row++) {
+            order[row] = row;
+        }
+        Arrays.sort(order, (a, b) -> {
+            int cmp = Integer.compare(rowIds[a * ROW_INTS + USED_BY_ARTIFACT_ID], rowIds[b * ROW_INTS + USED_BY_ARTIFACT_ID]);
+            if (cmp == 0) {
+                cmp = Integer.compare(rowIds[a * ROW_INTS + USED_BY_VERSION], rowIds[b * ROW_INTS + USED_BY_VERSION]);
+            }
+            if (cmp == 0) {
+                cmp = Integer.compare(rowIds[a * ROW_INTS + USED_BY_GROUP_ID], rowIds[b * ROW_INTS + USED_BY_GROUP_ID]);
+            }
+            return cmp == 0 ? Integer.compare(a, b) : cmp;
+        });
+        int[] sorted = new int[rowCount];
+        for (int row = 0; row < rowCount; row++) {
+            sorted[row] = order[row];
+        }
+        return sorted;
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, int start, int length) {
+        ByteBuffer slice = buffer.duplicate();
+        slice.position(start).limit(start + length);
+        return slice.slice();
+    }
+
+    private static int pad(int length) {
+        return (length + 3) & ~3;
+    }
+
+    private static long createKey(int artifactId, int version) {
+        return ((long) artifactId << 32) | (version & 0xffffffffL);
+    }
+
+    /**
+     * null values are written like the csv writer does
+     */
+    private static String value(String value) {
+        return value == null ? NULL_VALUE : value;
+    }
+
+}
@@ -0,0 +1,67 @@
+package at.catalysts.tools.reversedependencies.io;
+
+import java.io.IOException;
+import java.util.List;
+
+import at.catalysts.tools.reversedependencies.data.DependencyTree;
+
+/**
+ * Convert the repository cache between csv and binary format
+ * <br><br>
+ * usage: java -cp reverseDependencies.jar at.catalysts.tools.reversedependencies.io.CacheConverter from to
+ * <br>the direction is taken from the format of the source file
+ *
+ */
+public class CacheConverter {
+
+    private static final int CSV_FLUSH_RECORDS = 10000;
+
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.out.println("usage: CacheConverter <from> <to>; eg: nexus-cache.csv nexus-cache.bin");
+            return;
+        }
+        if (BinaryDependencyCache.isBinaryCache(args[0])) {
+            binaryToCsv(args[0], args[1]);
+        } else {
+            csvToBinary(args[0], args[1]);
+        }
+    }
+
+    /**
+     * write csv cache as binary cache
+     *
+     * @param csvFilename
+     * @param binaryFilename
+     */
+    public static void csvToBinary(String csvFilename, String binaryFilename) {
+        DependencyFileReader reader = new DependencyFileReader(csvFilename);
+        reader.setReversedWithUsedByDependencies(true);
+        BinaryDependencyCache.write(reader.readDependencyTreeFile(), binaryFilename);
+    }
+
+    /**
+     * write binary cache as csv cache
+     *
+     * @param binaryFilename
+     * @param csvFilename
+     */
+    public static void binaryToCsv(String binaryFilename, String csvFilename) {
+        List<DependencyTree> trees;
+        try {
+            trees = BinaryDependencyCache.open(binaryFilename).readDependencyTrees();
+        } catch (IOException e) {
+            System.out.println(e.getClass() + ", msg: " + e.getMessage());
+            return;
+        }
+        DependencyFileWriter writer = new DependencyFileWriter(csvFilename, false, true);
+        writer.setFlushRecords(CSV_FLUSH_RECORDS);
+        writer.createFile();
+        for (DependencyTree tree : trees) {
+            writer.appendToFile(tree.getDependency(), tree.getFirstUsedBy());
+        }
+        writer.close();
+        System.out.println("wrote csv cache: " + csvFilename + ", lines: " + trees.size());
+    }
+
+}
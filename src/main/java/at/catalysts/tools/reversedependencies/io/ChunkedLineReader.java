@@ -0,0 +1,130 @@
+package at.catalysts.tools.reversedependencies.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.BiFunction;
+
+/**
+ * Parse the lines of a large utf-8 file in parallel
+ * <br><br>
+ * the file is split into byte ranges ending after a line feed, every range is mapped,
+ * decoded and parsed by its own task of a ForkJoinPool. Results are joined in file order.
+ *
+ */
+class ChunkedLineReader {
+
+    private static final byte LINE_FEED = '\n';
+    private static final int SCAN_BUFFER_SIZE = 8192;
+
+    private ChunkedLineReader() {
+    }
+
+    /**
+     * @param path
+     * @param threads parallelism of the pool
+     * @param chunkBytes approximate size of a range
+     * @param parser parses a line with the tokenizer of the task, null results are skipped
+     * @return parsed lines in file order
+     * @throws IOException if the file can not be read or is no valid utf-8
+     */
+    static <T> List<T> read(Path path, int threads, long chunkBytes, BiFunction<String, LineTokenizer, T> parser) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            List<Callable<List<T>>> tasks = new ArrayList<>();
+            long size = channel.size();
+            for (long start = 0; start < size; ) {
+                long end = nextLineStart(channel, Math.min(size, start + chunkBytes), size);
+                long chunkStart = start;
+                tasks.add(() -> parseChunk(channel, chunkStart, end, parser));
+                start = end;
+            }
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                List<T> result = new ArrayList<>();
+                for (Future<List<T>> chunk : pool.invokeAll(tasks)) {
+                    result.addAll(chunk.get());
+                }
+                return result;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("reading interrupted: " + path, e);
+            } catch (ExecutionException e) {
+                // the pool wraps checked exceptions of a task in a RuntimeException
+                for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+                    if (cause instanceof IOException) {
+                        throw (IOException) cause;
+                    }
+                }
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new IOException(e.getCause());
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    private static <T> List<T> parseChunk(FileChannel channel, long start, long end,
+            BiFunction<String, LineTokenizer, T> parser) throws IOException {
+        ByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        CharBuffer chars = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT)
+                .decode(bytes);
+        String text = chars.toString();
+        LineTokenizer tokenizer = new LineTokenizer();
+        List<T> parsed = new ArrayList<>();
+        int lineStart = 0;
+        for (int i = 0; i <= text.length(); i++) {
+            if (i == text.length() || text.charAt(i) == '\n' || text.charAt(i) == '\r') {
+                // empty lines of crlf or blank lines parse to nothing anyway
+                if (i > lineStart) {
+                    T value = parser.apply(text.substring(lineStart, i), tokenizer);
+                    if (value != null) {
+                        parsed.add(value);
+                    }
+                }
+                lineStart = i + 1;
+            }
+        }
+        return parsed;
+    }
+
+    /**
+     * @return position after the first line feed at or after position - 1, size if there is none
+     */
+    private static long nextLineStart(FileChannel channel, long position, long size) throws IOException {
+        if (position >= size) {
+            return size;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+        long offset = position - 1;
+        while (offset < size) {
+            buffer.clear();
+            int read = channel.read(buffer, offset);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == LINE_FEED) {
+                    return offset + i + 1;
+                }
+            }
+            offset += read;
+        }
+        return size;
+    }
+
+}
@@ -0,0 +1,276 @@
+package at.catalysts.tools.reversedependencies.io;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Checkpoint of the crawl frontier to resume an interrupted repository scan
+ * <br><br>
+ * pending folders are discovered but not done yet, finished folders had their listing
+ * and poms handled. A resumed crawl starts at the pending folders and skips finished ones,
+ * so no listing is fetched twice. Results of finished folders are expected in the cache.
+ * <br><br>
+ * structure (tab separated):
+ * <br>#root url
+ * <br>#query fingerprint
+ * <br>pending url
+ * <br>finished url
+ *
+ */
+public class CrawlCheckpoint {
+
+    private static final String SEPARATOR = "\t";
+    private static final String ROOT_PREFIX = "#root" + SEPARATOR;
+    private static final String QUERY_PREFIX = "#query" + SEPARATOR;
+    private static final String PENDING = "pending";
+    private static final String FINISHED = "finished";
+
+    private final File file;
+    private final Map<String, Boolean> folders = new ConcurrentHashMap<>();
+    private final Set<String> resumeFolders = new LinkedHashSet<>();
+    private String root = "";
+    private String queryFingerprint = "";
+    private long intervalMillis;
+    private Runnable beforeSave;
+    private ScheduledExecutorService saver;
+    private Thread shutdownHook;
+
+    /**
+     * construct checkpoint with file
+     *
+     * @param filename
+     */
+    public CrawlCheckpoint(String filename) {
+        this.file = new File(filename);
+        this.intervalMillis = TimeUnit.MINUTES.toMillis(1);
+    }
+
+    public long getIntervalMillis() {
+        return intervalMillis;
+    }
+
+    /**
+     * @param intervalMillis time between two saves during the crawl, 0 to save at the end only
+     */
+    public void setIntervalMillis(long intervalMillis) {
+        this.intervalMillis = intervalMillis;
+    }
+
+    /**
+     * called before the frontier is written, eg. to flush results of finished folders
+     *
+     * @param beforeSave
+     */
+    public void setBeforeSave(Runnable beforeSave) {
+        this.beforeSave = beforeSave;
+    }
+
+    /**
+     * read frontier of an interrupted crawl, ignored if root or query differ
+     *
+     * @param root url the crawl starts at
+     * @param queryFingerprint of the current query
+     * @return true if the crawl can be resumed
+     */
+    public boolean load(String root, String queryFingerprint) {
+        this.root = root;
+        this.queryFingerprint = queryFingerprint;
+        folders.clear();
+        resumeFolders.clear();
+        if (!file.exists()) {
+            System.out.println("no checkpoint to resume, scanning all: " + file.toPath());
+            return false;
+        }
+        String savedRoot = "";
+        String savedQuery = "";
+        Map<String, Boolean> savedFolders = new ConcurrentHashMap<>();
+        Set<String> savedPending = new LinkedHashSet<>();
+        try (Stream<String> lines = Files.lines(file.toPath(), StandardCharsets.UTF_8)) {
+            for (String line : (Iterable<String>) lines::iterator) {
+                if (line.startsWith(ROOT_PREFIX)) {
+                    savedRoot = line.substring(ROOT_PREFIX.length());
+                } else if (line.startsWith(QUERY_PREFIX)) {
+                    savedQuery = line.substring(QUERY_PREFIX.length());
+                } else if (line.startsWith(FINISHED + SEPARATOR)) {
+                    savedFolders.put(line.substring(FINISHED.length() + 1), Boolean.TRUE);
+                } else if (line.startsWith(PENDING + SEPARATOR)) {
+                    savedPending.add(line.substring(PENDING.length() + 1));
+                }
+            }
+        } catch (IOException e) {
+            System.out.println(e.getClass() + ", msg: " + e.getMessage());
+            return false;
+        }
+        if (!savedRoot.equals(root) || !savedQuery.equals(queryFingerprint)) {
+            System.out.println("checkpoint of another root or query, scanning all: " + savedRoot);
+            return false;
+        }
+        savedPending.removeAll(savedFolders.keySet());
+        folders.putAll(savedFolders);
+        resumeFolders.addAll(savedPending);
+        System.out.println("resume crawl, finished folders: " + savedFolders.size() + ", pending folders: " + savedPending.size());
+        return true;
+    }
+
+    /**
+     * start a crawl without frontier of a former one
+     *
+     * @param root url the crawl starts at
+     * @param queryFingerprint of the current query
+     */
+    public void reset(String root, String queryFingerprint) {
+        this.root = root;
+        this.queryFingerprint = queryFingerprint;
+        folders.clear();
+        resumeFolders.clear();
+    }
+
+    /**
+     * @return pending folders of the loaded checkpoint in saved order, empty if the crawl starts at root
+     */
+    public List<String> getResumeFolders() {
+        return new ArrayList<>(resumeFolders);
+    }
+
+    /**
+     * register a discovered folder as pending
+     *
+     * @param url
+     * @return false if the folder is finished or already pending, it must not be scanned again
+     */
+    public boolean claim(String url) {
+        return folders.putIfAbsent(url, Boolean.FALSE) == null;
+    }
+
+    /**
+     * @param url
+     */
+    public void finish(String url) {
+        folders.put(url, Boolean.TRUE);
+    }
+
+    public boolean isFinished(String url) {
+        return Boolean.TRUE.equals(folders.get(url));
+    }
+
+    public int getPendingCount() {
+        int count = 0;
+        for (Boolean done : folders.values()) {
+            if (!done) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public int getFinishedCount() {
+        return folders.size() - getPendingCount();
+    }
+
+    /**
+     * save frontier every interval and on shutdown of the jvm
+     */
+    public synchronized void start() {
+        stop();
+        if (intervalMillis > 0) {
+            saver = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "crawl-checkpoint");
+                t.setDaemon(true);
+                return t;
+            });
+            saver.scheduleWithFixedDelay(this::save, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        }
+        shutdownHook = new Thread(this::save, "crawl-checkpoint-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    /**
+     * stop saving, the frontier of a complete crawl is deleted
+     *
+     * @param complete true if all folders are finished
+     */
+    public synchronized void stop(boolean complete) {
+        stop();
+        if (complete) {
+            try {
+                Files.deleteIfExists(file.toPath());
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        } else {
+            save();
+        }
+    }
+
+    private void stop() {
+        if (saver != null) {
+            saver.shutdownNow();
+            saver = null;
+        }
+        if (shutdownHook != null) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(shutdownHook);
+            } catch (IllegalStateException e) {
+                // jvm is shutting down, the hook saves
+            }
+            shutdownHook = null;
+        }
+    }
+
+    /**
+     * write frontier to temporary file and replace former checkpoint,
+     * folders finished up to now are taken before results are flushed
+     */
+    public synchronized void save() {
+        List<String> pending = new ArrayList<>();
+        List<String> finished = new ArrayList<>();
+        for (Map.Entry<String, Boolean> folder : folders.entrySet()) {
+            (folder.getValue() ? finished : pending).add(folder.getKey());
+        }
+        if (beforeSave != null) {
+            beforeSave.run();
+        }
+        Collections.sort(pending);
+        Path target = file.getAbsoluteFile().toPath();
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (BufferedWriter out = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            out.write(ROOT_PREFIX + root);
+            out.newLine();
+            out.write(QUERY_PREFIX + queryFingerprint);
+            out.newLine();
+            for (String url : pending) {
+                out.write(PENDING + SEPARATOR + url);
+                out.newLine();
+            }
+            for (String url : finished) {
+                out.write(FINISHED + SEPARATOR + url);
+                out.newLine();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+        try {
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+}
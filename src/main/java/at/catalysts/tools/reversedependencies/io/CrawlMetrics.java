@@ -0,0 +1,319 @@
+package at.catalysts.tools.reversedependencies.io;
+
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import at.catalysts.tools.reversedependencies.util.LatencyHistogram;
+
+/**
+ * Timers and counters of a repository scan
+ * <br><br>
+ * every phase of the scan has a latency histogram, the counters are cheap enough to be always on.
+ * Optional progress lines are printed and a prometheus text file rewritten in an interval,
+ * the metrics can be registered as JMX MBean as well.
+ *
+ */
+public class CrawlMetrics implements CrawlMetricsMXBean {
+
+    public static final String OBJECT_NAME = "at.catalysts.tools.reversedependencies:type=CrawlMetrics";
+
+    private static final String PROMETHEUS_PREFIX = "reverse_dependencies_";
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+    private static final String[] QUANTILE_LABELS = {"0.5", "0.9", "0.99", "0.999"};
+
+    /**
+     * timed parts of a scan
+     */
+    public enum Phase {
+        LISTING_FETCH("listing fetch"),
+        POM_FETCH("pom fetch"),
+        PARSE("parse"),
+        MATCH("match"),
+        CACHE_WRITE("cache write");
+
+        private final String label;
+
+        Phase(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    private final Map<Phase, LatencyHistogram> histograms = new LinkedHashMap<>();
+    private final AtomicLong listings = new AtomicLong();
+    private final AtomicLong poms = new AtomicLong();
+    private final AtomicLong dependenciesFound = new AtomicLong();
+    private final AtomicLong bytesDownloaded = new AtomicLong();
+    private volatile long startNanos;
+    private ScheduledExecutorService reporter;
+    private String prometheusFilename;
+
+    public CrawlMetrics() {
+        for (Phase phase : Phase.values()) {
+            histograms.put(phase, new LatencyHistogram());
+        }
+        this.startNanos = 0;
+    }
+
+    /**
+     * start the clock of the rates when the crawl starts
+     */
+    void start() {
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * @param phase
+     * @param startNanos System.nanoTime() at the start of the phase
+     */
+    public void record(Phase phase, long startNanos) {
+        histograms.get(phase).record(System.nanoTime() - startNanos);
+    }
+
+    public LatencyHistogram getHistogram(Phase phase) {
+        return histograms.get(phase);
+    }
+
+    void addListing() {
+        listings.incrementAndGet();
+    }
+
+    void addPom() {
+        poms.incrementAndGet();
+    }
+
+    void addDependenciesFound(int count) {
+        dependenciesFound.addAndGet(count);
+    }
+
+    /**
+     * @param in response body
+     * @return stream counting the bytes read as downloaded
+     */
+    InputStream countBytes(InputStream in) {
+        return new FilterInputStream(in) {
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b >= 0) {
+                    bytesDownloaded.incrementAndGet();
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int n = super.read(b, off, len);
+                if (n > 0) {
+                    bytesDownloaded.addAndGet(n);
+                }
+                return n;
+            }
+        };
+    }
+
+    @Override
+    public long getListings() {
+        return listings.get();
+    }
+
+    @Override
+    public long getPoms() {
+        return poms.get();
+    }
+
+    @Override
+    public long getDependenciesFound() {
+        return dependenciesFound.get();
+    }
+
+    @Override
+    public long getBytesDownloaded() {
+        return bytesDownloaded.get();
+    }
+
+    @Override
+    public double getPomsPerSecond() {
+        long start = startNanos;
+        double seconds = (System.nanoTime() - start) / (double) TimeUnit.SECONDS.toNanos(1);
+        return start == 0 || seconds <= 0 ? 0 : poms.get() / seconds;
+    }
+
+    @Override
+    public Map<String, Long> getPhaseCounts() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (Map.Entry<Phase, LatencyHistogram> entry : histograms.entrySet()) {
+            counts.put(entry.getKey().getLabel(), entry.getValue().getCount());
+        }
+        return counts;
+    }
+
+    @Override
+    public Map<String, Double> getPhaseP50Millis() {
+        return getPhasePercentileMillis(50);
+    }
+
+    @Override
+    public Map<String, Double> getPhaseP99Millis() {
+        return getPhasePercentileMillis(99);
+    }
+
+    private Map<String, Double> getPhasePercentileMillis(double percentile) {
+        Map<String, Double> millis = new LinkedHashMap<>();
+        for (Map.Entry<Phase, LatencyHistogram> entry : histograms.entrySet()) {
+            millis.put(entry.getKey().getLabel(), entry.getValue().getPercentileMillis(percentile));
+        }
+        return millis;
+    }
+
+    /**
+     * @return one line of counts, rates and the latencies of the fetches
+     */
+    public String getProgressLine() {
+        LatencyHistogram listingFetch = histograms.get(Phase.LISTING_FETCH);
+        LatencyHistogram pomFetch = histograms.get(Phase.POM_FETCH);
+        return String.format(Locale.ROOT, "progress: listings %d, poms %d (%.1f/s), dependencies %d, %.1f MB,"
+                + " listing p50/p99 %.0f/%.0f ms, pom p50/p99 %.0f/%.0f ms",
+                listings.get(), poms.get(), getPomsPerSecond(), dependenciesFound.get(), bytesDownloaded.get() / 1e6,
+                listingFetch.getPercentileMillis(50), listingFetch.getPercentileMillis(99),
+                pomFetch.getPercentileMillis(50), pomFetch.getPercentileMillis(99));
+    }
+
+    /**
+     * @return a line per phase with count, total and percentiles
+     */
+    public String getSummary() {
+        StringBuilder summary = new StringBuilder();
+        for (Map.Entry<Phase, LatencyHistogram> entry : histograms.entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            if (histogram.getCount() == 0) {
+                continue;
+            }
+            summary.append(String.format(Locale.ROOT, "%s: %d, total %d ms, p50 %.2f ms, p90 %.2f ms, p99 %.2f ms, max %.2f ms%n",
+                    entry.getKey().getLabel(), histogram.getCount(), TimeUnit.NANOSECONDS.toMillis(histogram.getTotalNanos()),
+                    histogram.getPercentileMillis(50), histogram.getPercentileMillis(90), histogram.getPercentileMillis(99),
+                    histogram.getMaxNanos() / 1e6));
+        }
+        summary.append(String.format(Locale.ROOT, "downloaded: %.1f MB, poms per second: %.1f",
+                bytesDownloaded.get() / 1e6, getPomsPerSecond()));
+        return summary.toString();
+    }
+
+    @Override
+    public String getPrometheusText() {
+        StringBuilder out = new StringBuilder();
+        appendCounter(out, "listings_total", "directory listings fetched", listings.get());
+        appendCounter(out, "poms_total", "poms read", poms.get());
+        appendCounter(out, "dependencies_found_total", "dependencies of the query found in poms", dependenciesFound.get());
+        appendCounter(out, "downloaded_bytes_total", "bytes of listings and poms downloaded", bytesDownloaded.get());
+        String name = PROMETHEUS_PREFIX + "phase_seconds";
+        out.append("# HELP ").append(name).append(" latency of the scan phases\n");
+        out.append("# TYPE ").append(name).append(" summary\n");
+        for (Map.Entry<Phase, LatencyHistogram> entry : histograms.entrySet()) {
+            String phase = "phase=\"" + entry.getKey().name().toLowerCase(Locale.ROOT) + "\"";
+            LatencyHistogram histogram = entry.getValue();
+            for (int i = 0; i < PERCENTILES.length; i++) {
+                out.append(name).append('{').append(phase).append(",quantile=\"").append(QUANTILE_LABELS[i]).append("\"} ")
+                        .append(toSeconds(histogram.getPercentileNanos(PERCENTILES[i]))).append('\n');
+            }
+            out.append(name).append("_sum{").append(phase).append("} ").append(toSeconds(histogram.getTotalNanos())).append('\n');
+            out.append(name).append("_count{").append(phase).append("} ").append(histogram.getCount()).append('\n');
+        }
+        return out.toString();
+    }
+
+    private static void appendCounter(StringBuilder out, String name, String help, long value) {
+        out.append("# HELP ").append(PROMETHEUS_PREFIX).append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(PROMETHEUS_PREFIX).append(name).append(" counter\n");
+        out.append(PROMETHEUS_PREFIX).append(name).append(' ').append(value).append('\n');
+    }
+
+    private static String toSeconds(long nanos) {
+        return String.format(Locale.ROOT, "%.9f", nanos / 1e9);
+    }
+
+    /**
+     * register as platform MBean, replacing metrics of a former scan
+     */
+    public void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(this, name);
+        } catch (JMException e) {
+            System.out.println(e.getClass() + ", msg: " + e.getMessage());
+        }
+    }
+
+    /**
+     * print progress lines and rewrite the prometheus file in an interval until stopped
+     *
+     * @param intervalMillis 0 for no progress lines
+     * @param prometheusFilename null for no file
+     */
+    public synchronized void startReporting(long intervalMillis, String prometheusFilename) {
+        this.prometheusFilename = prometheusFilename;
+        if (intervalMillis <= 0) {
+            return;
+        }
+        reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "crawl-metrics");
+            t.setDaemon(true);
+            return t;
+        });
+        reporter.scheduleAtFixedRate(() -> {
+            System.out.println(getProgressLine());
+            writePrometheusFile();
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * stop progress lines and write the prometheus file a last time
+     */
+    public synchronized void stopReporting() {
+        if (reporter != null) {
+            reporter.shutdownNow();
+            reporter = null;
+        }
+        writePrometheusFile();
+    }
+
+    private void writePrometheusFile() {
+        if (prometheusFilename == null) {
+            return;
+        }
+        Path file = new File(prometheusFilename).toPath();
+        Path tmp = new File(prometheusFilename + ".tmp").toPath();
+        try {
+            Files.write(tmp, getPrometheusText().getBytes(StandardCharsets.UTF_8));
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            System.out.println(e.getClass() + ", msg: " + e.getMessage());
+        }
+    }
+
+}
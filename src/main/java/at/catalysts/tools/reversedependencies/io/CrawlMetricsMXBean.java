@@ -0,0 +1,35 @@
+package at.catalysts.tools.reversedependencies.io;
+
+import java.util.Map;
+
+/**
+ * crawl metrics exposed by JMX, eg. in jconsole or visualvm
+ *
+ */
+public interface CrawlMetricsMXBean {
+
+    long getListings();
+
+    long getPoms();
+
+    long getDependenciesFound();
+
+    long getBytesDownloaded();
+
+    double getPomsPerSecond();
+
+    /**
+     * @return timed operations by phase
+     */
+    Map<String, Long> getPhaseCounts();
+
+    Map<String, Double> getPhaseP50Millis();
+
+    Map<String, Double> getPhaseP99Millis();
+
+    /**
+     * @return all metrics in prometheus text format
+     */
+    String getPrometheusText();
+
+}
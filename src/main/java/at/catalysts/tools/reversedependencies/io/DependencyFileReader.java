@@ -2,6 +2,7 @@ package at.catalysts.tools.reversedependencies.io;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.List;
@@ -9,6 +10,7 @@ import java.util.stream.Stream;
 
 import at.catalysts.tools.reversedependencies.data.Dependency;
 import at.catalysts.tools.reversedependencies.data.DependencyTree;
+import at.catalysts.tools.reversedependencies.data.SymbolTable;
 
 /**
  * Read dependencies and dependency trees from file
@@ -19,12 +21,23 @@ import at.catalysts.tools.reversedependencies.data.DependencyTree;
  * <br>artifactId
  * <br>artifactId version
  * <br>artifactId groupId   version
+ * <br><br>
+ * files from 8 MB on are parsed in chunks by a pool of threads (number of cores by default).
+ * Coordinates repeating in a file are shared through a symbol table, dropped after the file is read.
  *
  */
 public class DependencyFileReader {
 
+    private static final long PARALLEL_MIN_BYTES = 8L * 1024 * 1024;
+    private static final long MIN_CHUNK_BYTES = 1024 * 1024;
+    private static final int CHUNKS_PER_THREAD = 4;
+
     private File file;
     private boolean reversedWithUsedByDependencies;
+    private final LineTokenizer tokenizer = new LineTokenizer();
+    private int threads;
+    private long chunkBytes;
+    private volatile SymbolTable symbols;
 
     /**
      * construct filereader with file
@@ -34,6 +47,28 @@ public class DependencyFileReader {
     public DependencyFileReader(String filename) {
         this.file = new File(filename);
         this.reversedWithUsedByDependencies = false;
+        this.threads = Runtime.getRuntime().availableProcessors();
+        this.chunkBytes = 0;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * @param threads parsing large files in parallel, 1 to read line by line
+     */
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    /**
+     * fix size of the parsed chunks, for any file size
+     * 
+     * @param chunkBytes 0 to split large files by number of threads
+     */
+    void setChunkBytes(long chunkBytes) {
+        this.chunkBytes = chunkBytes;
     }
 
     public boolean isReversedWithUsedByDependencies() {
@@ -47,10 +82,30 @@ public class DependencyFileReader {
     /**
      * Read dependency trees from file
      * 
-     * @return List<DependencyTree>
+     * @return List<DependencyTree>, empty if the file can not be opened
+     * @throws UncheckedIOException if reading fails, eg. on invalid utf-8
      */
     public List<DependencyTree> readDependencyTreeFile() {
         System.out.println("read dependency trees from: " + file.toPath());
+        this.symbols = new SymbolTable();
+        try {
+            return readDependencyTrees();
+        } finally {
+            this.symbols = null;
+        }
+    }
+
+    private List<DependencyTree> readDependencyTrees() {
+        if (isChunked()) {
+            try {
+                List<DependencyTree> trees = ChunkedLineReader.read(file.toPath(), threads, getChunkBytes(), this::parseLine);
+                System.out.println("read dependency trees: " + trees.size());
+                return trees;
+            } catch (IOException e) {
+                // like a failing line of a sequential read
+                throw new UncheckedIOException(e);
+            }
+        }
         try (Stream<String> lines = Files.lines(file.toPath())) {
             return readDependencyTreeStream(lines);
         } catch (IOException e) {
@@ -62,10 +117,30 @@ public class DependencyFileReader {
     /**
      * Read dependency from file
      * 
-     * @return List<Dependency>
+     * @return List<Dependency>, empty if the file can not be opened
+     * @throws UncheckedIOException if reading fails, eg. on invalid utf-8
      */
     public List<Dependency> readDependencyFile() {
         System.out.println("read dependencies from: " + file.toPath());
+        this.symbols = new SymbolTable();
+        try {
+            return readDependencies();
+        } finally {
+            this.symbols = null;
+        }
+    }
+
+    private List<Dependency> readDependencies() {
+        if (isChunked()) {
+            try {
+                List<Dependency> deps = ChunkedLineReader.read(file.toPath(), threads, getChunkBytes(), this::parseDependency);
+                System.out.println("read dependencies: " + deps.size());
+                return deps;
+            } catch (IOException e) {
+                // like a failing line of a sequential read
+                throw new UncheckedIOException(e);
+            }
+        }
         try (Stream<String> lines = Files.lines(file.toPath())) {
             return readDependencyStream(lines);
         } catch (IOException e) {
@@ -74,6 +149,17 @@ public class DependencyFileReader {
         return new ArrayList<>();
     }
 
+    private boolean isChunked() {
+        return threads > 1 && file.isFile() && (chunkBytes > 0 || file.length() >= PARALLEL_MIN_BYTES);
+    }
+
+    private long getChunkBytes() {
+        if (chunkBytes > 0) {
+            return chunkBytes;
+        }
+        return Math.max(MIN_CHUNK_BYTES, file.length() / ((long) threads * CHUNKS_PER_THREAD) + 1);
+    }
+
     /**
      * Read dependencies from stream
      * 
@@ -84,9 +170,9 @@ public class DependencyFileReader {
         List<Dependency> foundDeps = new ArrayList<>();
 
         for (String line : (Iterable<String>) lines::iterator) {
-            DependencyTree depT = parseLine(line);
-            if (depT != null) {
-                foundDeps.add(depT.getDependency());
+            Dependency dep = parseDependency(line, this.tokenizer);
+            if (dep != null) {
+                foundDeps.add(dep);
             }
         }
         System.out.println("read dependencies: " + foundDeps.size());
@@ -118,59 +204,87 @@ public class DependencyFileReader {
      * @param line String
      * @return DependencyTree
      */
-    private DependencyTree parseLine(String line) {
-        DependencyTree depT = new DependencyTree();
-        String artifactId = line.trim();
+    protected DependencyTree parseLine(String line) {
+        return parseLine(line, this.tokenizer);
+    }
+
+    /**
+     * parse line with the given tokenizer, values are only created for used columns
+     * 
+     * @param line String
+     * @param tokenizer
+     * @return DependencyTree, null if line has no artifactId
+     */
+    DependencyTree parseLine(String line, LineTokenizer tokenizer) {
+        int columns = tokenizer.tokenize(line);
+        Dependency dependency = createDependency(tokenizer, columns);
+        if (dependency == null) {
+            return null;
+        }
+        DependencyTree depT = new DependencyTree(dependency);
+        Dependency related = createRelatedDependency(tokenizer, columns);
+        if (related != null) {
+            if (isReversedWithUsedByDependencies()) {
+                depT.addUsedBy(new DependencyTree(related));
+            } else {
+                depT.addUses(new DependencyTree(related));
+            }
+        }
+        return depT;
+    }
+
+    /**
+     * parse dependency of a line without the related dependency
+     * 
+     * @param line String
+     * @param tokenizer
+     * @return Dependency, null if line has no artifactId
+     */
+    Dependency parseDependency(String line, LineTokenizer tokenizer) {
+        return createDependency(tokenizer, tokenizer.tokenize(line));
+    }
+
+    private Dependency createDependency(LineTokenizer tokenizer, int columns) {
+        String artifactId = tokenizer.column(0);
+        if (artifactId.isEmpty()) {
+            return null;
+        }
         String groupId = "";
         String version = "";
-        String rArtifactId = "";
-        String rGroupId = "";
-        String rVersion = "";
-        String[] values = null;
-
-        if (artifactId.split(",").length > 1) {
-            values = artifactId.split(",");
-        } else if (artifactId.split("\\s+").length > 1) {
-            values = artifactId.split("\\s+");
+        if (columns == 2 || columns == 4) {
+            version = tokenizer.column(1);
+        }
+        if (columns == 3 || columns == 6) {
+            groupId = tokenizer.column(1);
+            version = tokenizer.column(2);
         }
+        return newDependency(artifactId, groupId, version);
+    }
 
-        if (values != null) {
-            if (values.length > 0) {
-                artifactId = values[0].trim();
-            }
-            if (values.length == 2 || values.length == 4) {
-                version = values[1].trim();
-            }
-            if (values.length == 4) {
-                rArtifactId = values[2].trim();
-                rVersion = values[3].trim();
-            }
-            if (values.length == 3 || values.length == 6) {
-                groupId = values[1].trim();
-                version = values[2].trim();
-            }
-            if (values.length == 6) {
-                rArtifactId = values[3].trim();
-                rGroupId = values[4].trim();
-                rVersion = values[5].trim();
-            }
+    /**
+     * @return used/used by dependency of 4 or 6 columns, null if there is none
+     */
+    private Dependency createRelatedDependency(LineTokenizer tokenizer, int columns) {
+        if (columns == 4) {
+            String rArtifactId = tokenizer.column(2);
+            return rArtifactId.isEmpty() ? null : newDependency(rArtifactId, "", tokenizer.column(3));
         }
-        if (!artifactId.equals("")) {
-            Dependency depR = new Dependency(artifactId, groupId, version);
-            depT.setDependency(depR);
-
-            if (!(rArtifactId.equals(""))) {
-                Dependency depM = new Dependency(rArtifactId, rGroupId, rVersion);
-                DependencyTree depMT = new DependencyTree(depM);
-                if (isReversedWithUsedByDependencies()) {
-                    depT.getUsedBy().add(depMT);
-                } else {
-                    depT.getUses().add(depMT);
-                }
-            }
-            return depT;
+        if (columns == 6) {
+            String rArtifactId = tokenizer.column(3);
+            return rArtifactId.isEmpty() ? null : newDependency(rArtifactId, tokenizer.column(4), tokenizer.column(5));
         }
         return null;
     }
 
-}
\ No newline at end of file
+    /**
+     * @return dependency with coordinates shared by the read file, not shared outside of a read
+     */
+    private Dependency newDependency(String artifactId, String groupId, String version) {
+        SymbolTable table = this.symbols;
+        if (table == null) {
+            return new Dependency(artifactId, groupId, version);
+        }
+        return new Dependency(table.intern(artifactId), table.intern(groupId), table.intern(version));
+    }
+
+}
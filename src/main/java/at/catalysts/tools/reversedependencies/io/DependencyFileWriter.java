@@ -6,6 +6,9 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import at.catalysts.tools.reversedependencies.data.Dependency;
 import at.catalysts.tools.reversedependencies.data.DependencyTree;
@@ -16,6 +19,11 @@ import at.catalysts.tools.reversedependencies.data.DependencyTree;
  * possible structures: <br>
  * artifactId,groupId,version,usedby-artifactId,usedby-groupId,usedby-version<br>
  * artifactId,groupId,version
+ * <br><br>
+ * appended lines are written by a writer kept open until close, flushed after a number of
+ * records and/or a time interval. By default every record is flushed, so a crash loses no line;
+ * with batched flushes at most the unflushed records are lost when the process is killed,
+ * a regular exit flushes by shutdown hook.
  *
  */
 public class DependencyFileWriter {
@@ -24,6 +32,13 @@ public class DependencyFileWriter {
     private boolean printHeader;
     private boolean printUsedBy;
 
+    private int flushRecords;
+    private long flushIntervalMillis;
+    private BufferedWriter out;
+    private int pendingRecords;
+    private ScheduledExecutorService flusher;
+    private Thread shutdownHook;
+
     /**
      * construct filewriter with file
      * 
@@ -33,6 +48,34 @@ public class DependencyFileWriter {
         this.file = new File(filename);
         this.printHeader = printHeader;
         this.printUsedBy = printUsedBy;
+        this.flushRecords = 1;
+        this.flushIntervalMillis = 0;
+    }
+
+    public int getFlushRecords() {
+        return flushRecords;
+    }
+
+    /**
+     * flush appended lines after this many records
+     *
+     * @param flushRecords 1 to flush every record
+     */
+    public void setFlushRecords(int flushRecords) {
+        this.flushRecords = Math.max(flushRecords, 1);
+    }
+
+    public long getFlushIntervalMillis() {
+        return flushIntervalMillis;
+    }
+
+    /**
+     * flush appended lines at least every interval
+     *
+     * @param flushIntervalMillis 0 to flush by record count only
+     */
+    public void setFlushIntervalMillis(long flushIntervalMillis) {
+        this.flushIntervalMillis = flushIntervalMillis;
     }
 
     /**
@@ -59,6 +102,7 @@ public class DependencyFileWriter {
      * create/clear file
      */
     public void createFile() {
+        close();
         System.out.println("create/clear file: " + file.toPath());
         try (PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(file, false)))) {
             if (printHeader) {
@@ -84,15 +128,16 @@ public class DependencyFileWriter {
                 Dependency i = u.getDependency();
                 if (printUsedBy) {
                     System.out.println(" <- " + i.getArtifactId() + "," + i.getGroupId() + "," + i.getVersion());
-                    appendToFile(t.getDependency(), i);
+                    writeLine(t.getDependency(), i);
                     countFound++;
                 }
             }
             if (!printUsedBy) {
-                appendToFile(d);
+                writeLine(d, null);
                 countFound++;
             }
         }
+        close();
         System.out.println("wrote dependencies: " + countFound);
     }
 
@@ -106,21 +151,89 @@ public class DependencyFileWriter {
     }
 
     /**
-     * append dependency-line to file
+     * append dependency-line to file, safe to be called by concurrent scanners
      * 
      * @param used dependency in question
      * @param model used by this dependency
      */
-    public void appendToFile(Dependency dep, Dependency usedBy) {
-        try (PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(file, true)))) {
-            String line = dep.getArtifactId() + "," + dep.getGroupId() + "," + dep.getVersion();
-            if (printUsedBy && usedBy != null) {
-                line += "," + usedBy.getArtifactId() + "," + usedBy.getGroupId() + "," + usedBy.getVersion();
-            }
-            out.println(line);
+    public synchronized void appendToFile(Dependency dep, Dependency usedBy) {
+        if (writeLine(dep, usedBy) && ++pendingRecords >= flushRecords) {
+            flush();
+        }
+    }
+
+    /**
+     * write pending lines to file
+     */
+    public synchronized void flush() {
+        if (out == null || pendingRecords == 0) {
+            return;
+        }
+        try {
+            out.flush();
         } catch (IOException e) {
             e.printStackTrace();
         }
+        pendingRecords = 0;
+    }
+
+    /**
+     * flush and close file, a later append opens it again
+     */
+    public synchronized void close() {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        out = null;
+        pendingRecords = 0;
+        if (flusher != null) {
+            flusher.shutdownNow();
+            flusher = null;
+        }
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException e) {
+            // closed by the shutdown hook itself
+        }
+        shutdownHook = null;
+    }
+
+    private synchronized boolean writeLine(Dependency dep, Dependency usedBy) {
+        String line = dep.getArtifactId() + "," + dep.getGroupId() + "," + dep.getVersion();
+        if (printUsedBy && usedBy != null) {
+            line += "," + usedBy.getArtifactId() + "," + usedBy.getGroupId() + "," + usedBy.getVersion();
+        }
+        try {
+            open();
+            out.write(line);
+            out.newLine();
+            return true;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    private void open() throws IOException {
+        if (out != null) {
+            return;
+        }
+        out = new BufferedWriter(new FileWriter(file, true));
+        shutdownHook = new Thread(this::close, "cache-writer-close");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+        if (flushIntervalMillis > 0) {
+            flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "cache-writer-flush");
+                thread.setDaemon(true);
+                return thread;
+            });
+            flusher.scheduleWithFixedDelay(this::flush, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+        }
     }
 
-}
\ No newline at end of file
+}
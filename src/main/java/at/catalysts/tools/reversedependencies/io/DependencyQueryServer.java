@@ -0,0 +1,351 @@
+package at.catalysts.tools.reversedependencies.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import at.catalysts.tools.reversedependencies.data.Dependency;
+import at.catalysts.tools.reversedependencies.data.DependencyTree;
+import at.catalysts.tools.reversedependencies.util.DependencyCacheIndex;
+import at.catalysts.tools.reversedependencies.util.DependencyGraph;
+import at.catalysts.tools.reversedependencies.util.DependencyMatchIndex;
+
+/**
+ * Serve queries on the repository cache over http on localhost
+ * <br><br>
+ * the cache is read once into indexes, they are rebuilt in the background when the cache file
+ * changes and swapped when complete, queries in the meantime are answered by the previous indexes.
+ * <br><br>
+ * GET /status<br>
+ * GET /dependents?artifactId=junit[&amp;groupId=junit][&amp;version=4.12][&amp;depth=1]: direct and transitive users<br>
+ * GET /uses?artifactId=ms-test&amp;groupId=at.test&amp;version=1.0: dependencies used by a cached dependency<br>
+ * POST /match[?major=true]: body with dependencies in use like a match file, result like the output file
+ *
+ */
+public class DependencyQueryServer {
+
+    private static final String CONTENT_TYPE = "text/csv; charset=utf-8";
+    private static final int HTTP_OK = 200;
+    private static final int HTTP_BAD_REQUEST = 400;
+    private static final int HTTP_NOT_FOUND = 404;
+    private static final int HTTP_BAD_METHOD = 405;
+    private static final int HTTP_INTERNAL_ERROR = 500;
+
+    private final File cacheFile;
+    private final int port;
+    private int threads;
+    private long refreshIntervalMillis;
+    private volatile Snapshot snapshot;
+    private HttpServer server;
+    private ExecutorService executor;
+    private ScheduledExecutorService refresher;
+    private final CountDownLatch stopped = new CountDownLatch(1);
+
+    /**
+     * construct server of a cache file
+     *
+     * @param cacheFilename reverse dependency cache, eg: nexus-cache.csv
+     * @param port on localhost, 0 for any free port
+     */
+    public DependencyQueryServer(String cacheFilename, int port) {
+        this.cacheFile = new File(cacheFilename);
+        this.port = port;
+        this.threads = Runtime.getRuntime().availableProcessors();
+        this.refreshIntervalMillis = TimeUnit.SECONDS.toMillis(10);
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * @param threads answering requests and reading the cache
+     */
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    public long getRefreshIntervalMillis() {
+        return refreshIntervalMillis;
+    }
+
+    /**
+     * @param refreshIntervalMillis check for a changed cache file, 0 to never reload
+     */
+    public void setRefreshIntervalMillis(long refreshIntervalMillis) {
+        this.refreshIntervalMillis = refreshIntervalMillis;
+    }
+
+    /**
+     * @return bound port, eg. if constructed with 0
+     */
+    public int getPort() {
+        return server == null ? port : server.getAddress().getPort();
+    }
+
+    /**
+     * read the cache and start answering requests
+     *
+     * @throws IOException if the port can not be bound
+     */
+    public void start() throws IOException {
+        refresh();
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/status", exchange -> handle(exchange, "GET", this::status));
+        server.createContext("/dependents", exchange -> handle(exchange, "GET", this::dependents));
+        server.createContext("/uses", exchange -> handle(exchange, "GET", this::uses));
+        server.createContext("/match", exchange -> handle(exchange, "POST", this::match));
+        executor = Executors.newFixedThreadPool(threads);
+        server.setExecutor(executor);
+        server.start();
+        if (refreshIntervalMillis > 0) {
+            refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "cache-refresh");
+                t.setDaemon(true);
+                return t;
+            });
+            refresher.scheduleWithFixedDelay(() -> {
+                // an exception would cancel all later refreshes
+                try {
+                    refreshIfChanged();
+                } catch (RuntimeException e) {
+                    System.out.println(e.getClass() + ", msg: " + e.getMessage());
+                }
+            }, refreshIntervalMillis, refreshIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+        System.out.println("serving queries on: http://localhost:" + getPort() + "/");
+    }
+
+    /**
+     * stop answering requests
+     */
+    public void stop() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+        stopped.countDown();
+    }
+
+    /**
+     * wait until the server is stopped
+     *
+     * @throws InterruptedException
+     */
+    public void await() throws InterruptedException {
+        stopped.await();
+    }
+
+    /**
+     * reload the cache if its file changed since it was read
+     */
+    void refreshIfChanged() {
+        Snapshot current = snapshot;
+        if (current == null || current.lastModified != cacheFile.lastModified() || current.length != cacheFile.length()) {
+            refresh();
+        }
+    }
+
+    /**
+     * read the cache and swap in the new indexes, the previous indexes are kept if the file
+     * can not be read or has no dependency trees although it is not empty, eg. while it is rewritten
+     */
+    void refresh() {
+        long start = System.nanoTime();
+        long lastModified = cacheFile.lastModified();
+        long length = cacheFile.length();
+        List<DependencyTree> trees = new ArrayList<>();
+        if (cacheFile.isFile()) {
+            DependencyFileReader reader = new DependencyFileReader(cacheFile.getPath());
+            reader.setReversedWithUsedByDependencies(true);
+            reader.setThreads(threads);
+            try {
+                trees = reader.readDependencyTreeFile();
+            } catch (RuntimeException e) {
+                System.out.println(e.getClass() + ", msg: " + e.getMessage());
+                trees = null;
+            }
+        }
+        if (snapshot != null && (trees == null || (trees.isEmpty() && length > 0))) {
+            System.out.println("keep previous reverse dep: " + snapshot.matchIndex.size() + ", cache not readable: " + cacheFile);
+            return;
+        }
+        if (trees == null) {
+            trees = new ArrayList<>();
+        }
+        Snapshot next = new Snapshot(trees, lastModified, length);
+        next.graph.setThreads(threads);
+        snapshot = next;
+        System.out.println("indexed reverse dep: " + trees.size() + ", took: " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+    }
+
+    Snapshot getSnapshot() {
+        return snapshot;
+    }
+
+    private String status(HttpExchange exchange, Map<String, String> params) {
+        Snapshot current = snapshot;
+        return "trees," + current.matchIndex.size() + "\n"
+                + "nodes," + current.graph.getNodeCount() + "\n"
+                + "edges," + current.graph.getEdgeCount() + "\n"
+                + "lastModified," + current.lastModified + "\n";
+    }
+
+    private String dependents(HttpExchange exchange, Map<String, String> params) {
+        Dependency query = createDependency(params);
+        int depth = parsePositiveNumber(params, "depth", 1);
+        StringBuilder out = new StringBuilder("artifactId,groupId,version,depth\n");
+        for (DependencyGraph.Dependent dependent : snapshot.graph.findDependents(query, depth)) {
+            appendDependency(out, dependent.getDependency()).append(',').append(dependent.getDepth()).append('\n');
+        }
+        return out.toString();
+    }
+
+    private String uses(HttpExchange exchange, Map<String, String> params) {
+        Dependency usedBy = createDependency(params);
+        StringBuilder out = new StringBuilder("artifactId,groupId,version\n");
+        for (DependencyTree tree : snapshot.usesIndex.find(usedBy)) {
+            appendDependency(out, tree.getDependency()).append('\n');
+        }
+        return out.toString();
+    }
+
+    private String match(HttpExchange exchange, Map<String, String> params) throws IOException {
+        List<Dependency> matchDependencies;
+        try (InputStream in = exchange.getRequestBody()) {
+            String body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            matchDependencies = new DependencyFileReader("").readDependencyStream(body.lines());
+        }
+        boolean major = Boolean.parseBoolean(params.get("major"));
+        StringBuilder out = new StringBuilder(major ? "queryArtifactId,queryGroupId,queryVersion\n"
+                : "queryArtifactId,queryGroupId,queryVersion,usedByArtifactId,usedByGroupId,usedByVersion\n");
+        for (DependencyTree tree : snapshot.matchIndex.match(matchDependencies, major)) {
+            if (major) {
+                appendDependency(out, tree.getDependency()).append('\n');
+                continue;
+            }
+            for (DependencyTree usedBy : tree.getUsedBy()) {
+                appendDependency(out, tree.getDependency()).append(',');
+                appendDependency(out, usedBy.getDependency()).append('\n');
+            }
+        }
+        return out.toString();
+    }
+
+    private void handle(HttpExchange exchange, String method, Handler handler) throws IOException {
+        int status = HTTP_OK;
+        String body;
+        try {
+            if (!method.equals(exchange.getRequestMethod())) {
+                status = HTTP_BAD_METHOD;
+                body = "use " + method + "\n";
+            } else if (!exchange.getRequestURI().getPath().equals(exchange.getHttpContext().getPath())) {
+                status = HTTP_NOT_FOUND;
+                body = "unknown path: " + exchange.getRequestURI().getPath() + "\n";
+            } else {
+                body = handler.handle(exchange, parseQuery(exchange.getRequestURI().getRawQuery()));
+            }
+        } catch (IllegalArgumentException e) {
+            status = HTTP_BAD_REQUEST;
+            body = e.getMessage() + "\n";
+        } catch (RuntimeException | IOException e) {
+            System.out.println(e.getClass() + ", msg: " + e.getMessage());
+            status = HTTP_INTERNAL_ERROR;
+            body = "internal error: " + e.getClass().getSimpleName() + "\n";
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static Dependency createDependency(Map<String, String> params) {
+        String artifactId = params.get("artifactId");
+        if (artifactId == null || artifactId.isEmpty()) {
+            throw new IllegalArgumentException("artifactId needed");
+        }
+        return new Dependency(artifactId, params.getOrDefault("groupId", ""), params.getOrDefault("version", ""));
+    }
+
+    private static int parsePositiveNumber(Map<String, String> params, String name, int defaultValue) {
+        String value = params.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            int number = Integer.parseInt(value.trim());
+            if (number > 0) {
+                return number;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new IllegalArgumentException(name + " needs a positive number: " + value);
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) throws UnsupportedEncodingException {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery == null) {
+            return params;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                params.put(URLDecoder.decode(pair.substring(0, eq), "UTF-8"), URLDecoder.decode(pair.substring(eq + 1), "UTF-8"));
+            }
+        }
+        return params;
+    }
+
+    private static StringBuilder appendDependency(StringBuilder out, Dependency d) {
+        return out.append(d.getArtifactId()).append(',').append(d.getGroupId()).append(',').append(d.getVersion());
+    }
+
+    private interface Handler {
+        String handle(HttpExchange exchange, Map<String, String> params) throws IOException;
+    }
+
+    /**
+     * indexes of one version of the cache file
+     */
+    static class Snapshot {
+
+        final DependencyMatchIndex matchIndex;
+        final DependencyCacheIndex usesIndex;
+        final DependencyGraph graph;
+        final long lastModified;
+        final long length;
+
+        Snapshot(List<DependencyTree> trees, long lastModified, long length) {
+            this.matchIndex = new DependencyMatchIndex(trees);
+            this.usesIndex = new DependencyCacheIndex(trees);
+            this.graph = DependencyGraph.build(trees);
+            this.lastModified = lastModified;
+            this.length = length;
+        }
+    }
+
+}
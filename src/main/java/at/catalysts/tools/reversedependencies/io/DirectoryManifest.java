@@ -0,0 +1,281 @@
+package at.catalysts.tools.reversedependencies.io;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import at.catalysts.tools.reversedependencies.data.UrlDirectory;
+
+/**
+ * Manifest of repository directories from former scans
+ * <br><br>
+ * holds ETag, Last-Modified and the listing of every directory to issue conditional requests
+ * and to skip poms already checked by a former scan with the same query.
+ * <br><br>
+ * structure (tab separated, children separated by blanks):
+ * <br>#query fingerprint
+ * <br>url etag lastModified fetchedAt scanned folders poms
+ *
+ */
+public class DirectoryManifest {
+
+    private static final String SEPARATOR = "\t";
+    private static final String CHILD_SEPARATOR = " ";
+    private static final String QUERY_PREFIX = "#query" + SEPARATOR;
+    private static final String EMPTY = "-";
+
+    private final File file;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private String queryFingerprint = "";
+    private long ttlMillis;
+
+    /**
+     * construct manifest with file
+     *
+     * @param filename
+     */
+    public DirectoryManifest(String filename) {
+        this.file = new File(filename);
+        this.ttlMillis = 0;
+    }
+
+    public long getTtlMillis() {
+        return ttlMillis;
+    }
+
+    /**
+     * directories fetched within ttl are not requested again
+     *
+     * @param ttlMillis 0 to always send a conditional request
+     */
+    public void setTtlMillis(long ttlMillis) {
+        this.ttlMillis = ttlMillis;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * read manifest from file, poms are only treated as checked if the query is unchanged
+     *
+     * @param queryFingerprint of the current query
+     */
+    public void load(String queryFingerprint) {
+        if (!file.exists()) {
+            this.queryFingerprint = queryFingerprint;
+            return;
+        }
+        try (Stream<String> lines = Files.lines(file.toPath(), StandardCharsets.UTF_8)) {
+            for (String line : (Iterable<String>) lines::iterator) {
+                if (line.startsWith(QUERY_PREFIX)) {
+                    this.queryFingerprint = line.substring(QUERY_PREFIX.length());
+                } else if (!line.isEmpty()) {
+                    Entry entry = parseEntry(line);
+                    if (entry != null) {
+                        entries.put(entry.url, entry);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.out.println(e.getClass() + ", msg: " + e.getMessage());
+        }
+        if (!this.queryFingerprint.equals(queryFingerprint)) {
+            System.out.println("query changed, checking all poms again");
+            for (Entry entry : entries.values()) {
+                entry.scanned = false;
+            }
+            this.queryFingerprint = queryFingerprint;
+        }
+        System.out.println("read manifest directories: " + entries.size());
+    }
+
+    /**
+     * write manifest to temporary file and replace former manifest
+     */
+    public synchronized void save() {
+        Path target = file.getAbsoluteFile().toPath();
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (BufferedWriter out = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            out.write(QUERY_PREFIX + queryFingerprint);
+            out.newLine();
+            for (Entry entry : entries.values()) {
+                out.write(formatEntry(entry));
+                out.newLine();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+        try {
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * @param url
+     * @return null if directory is unknown
+     */
+    public Entry get(String url) {
+        return entries.get(url);
+    }
+
+    /**
+     * store listing of a fetched directory, poms already known stay checked
+     *
+     * @param url
+     * @param etag
+     * @param lastModified
+     * @param urlDirectory
+     * @return new entry
+     */
+    public Entry put(String url, String etag, String lastModified, UrlDirectory urlDirectory) {
+        Entry former = entries.get(url);
+        Entry entry = new Entry(url, etag, lastModified, System.currentTimeMillis(),
+                new ArrayList<>(urlDirectory.getFolders()), new ArrayList<>(urlDirectory.getPoms()));
+        if (former != null && former.scanned) {
+            entry.checkedPoms = former.poms;
+        }
+        entries.put(url, entry);
+        return entry;
+    }
+
+    /**
+     * mark all poms of the directory as checked
+     *
+     * @param url
+     */
+    public void markScanned(String url) {
+        Entry entry = entries.get(url);
+        if (entry != null) {
+            entry.scanned = true;
+            entry.checkedPoms = Collections.emptyList();
+        }
+    }
+
+    private static Entry parseEntry(String line) {
+        String[] values = line.split(SEPARATOR, -1);
+        if (values.length != 7) {
+            return null;
+        }
+        try {
+            Entry entry = new Entry(values[0], fromField(values[1]), fromField(values[2]), Long.parseLong(values[3]),
+                    splitChildren(values[5]), splitChildren(values[6]));
+            entry.scanned = Boolean.parseBoolean(values[4]);
+            return entry;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static String formatEntry(Entry entry) {
+        return entry.url + SEPARATOR + toField(entry.etag) + SEPARATOR + toField(entry.lastModified)
+                + SEPARATOR + entry.fetchedAt + SEPARATOR + entry.scanned
+                + SEPARATOR + String.join(CHILD_SEPARATOR, entry.folders)
+                + SEPARATOR + String.join(CHILD_SEPARATOR, entry.poms);
+    }
+
+    private static List<String> splitChildren(String value) {
+        if (value.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(Arrays.asList(value.split(CHILD_SEPARATOR)));
+    }
+
+    private static String toField(String value) {
+        return value == null || value.isEmpty() ? EMPTY : value;
+    }
+
+    private static String fromField(String value) {
+        return EMPTY.equals(value) ? null : value;
+    }
+
+    /**
+     * directory as seen by the last request
+     */
+    public static class Entry {
+
+        private final String url;
+        private final String etag;
+        private final String lastModified;
+        private volatile long fetchedAt;
+        private final List<String> folders;
+        private final List<String> poms;
+        private volatile boolean scanned;
+        private volatile List<String> checkedPoms = Collections.emptyList();
+
+        private Entry(String url, String etag, String lastModified, long fetchedAt, List<String> folders, List<String> poms) {
+            this.url = url;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.fetchedAt = fetchedAt;
+            this.folders = folders;
+            this.poms = poms;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        public String getLastModified() {
+            return lastModified;
+        }
+
+        public long getFetchedAt() {
+            return fetchedAt;
+        }
+
+        /**
+         * directory was confirmed unchanged by the server
+         */
+        public void touch() {
+            this.fetchedAt = System.currentTimeMillis();
+        }
+
+        public boolean isScanned() {
+            return scanned;
+        }
+
+        /**
+         * @param ttlMillis
+         * @return true if fetched within ttl
+         */
+        public boolean isFresh(long ttlMillis) {
+            return ttlMillis > 0 && System.currentTimeMillis() - fetchedAt < ttlMillis;
+        }
+
+        /**
+         * create listing of the directory
+         *
+         * @param skipCheckedPoms leave out poms checked by a former scan
+         * @return listing to scan
+         */
+        public UrlDirectory toUrlDirectory(boolean skipCheckedPoms) {
+            UrlDirectory urlDirectory = new UrlDirectory();
+            urlDirectory.getFolders().addAll(folders);
+            Set<String> skip = new HashSet<>(!skipCheckedPoms ? Collections.<String>emptyList() : scanned ? poms : checkedPoms);
+            for (String pom : poms) {
+                if (!skip.contains(pom)) {
+                    urlDirectory.getPoms().add(pom);
+                }
+            }
+            return urlDirectory;
+        }
+    }
+
+}
@@ -0,0 +1,86 @@
+package at.catalysts.tools.reversedependencies.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Function;
+
+/**
+ * response of a UrlFetcher with status, headers and decoded body
+ *
+ */
+public class FetchResponse implements Closeable {
+
+    public static final int HTTP_OK = 200;
+    public static final int HTTP_NOT_MODIFIED = 304;
+
+    private final String url;
+    private final int statusCode;
+    private final Function<String, String> headers;
+    private final InputStream body;
+
+    public FetchResponse(String url, int statusCode, Function<String, String> headers, InputStream body) {
+        this.url = url;
+        this.statusCode = statusCode;
+        this.headers = headers;
+        this.body = body;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public boolean isNotModified() {
+        return statusCode == HTTP_NOT_MODIFIED;
+    }
+
+    /**
+     * @param name case insensitive header name
+     * @return first header value or null
+     */
+    public String getHeader(String name) {
+        return headers.apply(name);
+    }
+
+    /**
+     * @return body stream
+     * @throws IOException for error responses
+     */
+    public InputStream getBody() throws IOException {
+        if (statusCode >= 400) {
+            throw new StatusException(statusCode, url);
+        }
+        return body;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (body != null) {
+            body.close();
+        }
+    }
+
+    /**
+     * error response of the repository
+     */
+    public static class StatusException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int statusCode;
+
+        public StatusException(int statusCode, String url) {
+            super("HTTP " + statusCode + " for url: " + url);
+            this.statusCode = statusCode;
+        }
+
+        public int getStatusCode() {
+            return statusCode;
+        }
+    }
+
+}
@@ -0,0 +1,217 @@
+package at.catalysts.tools.reversedependencies.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Fetch http(s) resources with one shared client
+ * <br><br>
+ * the client keeps connections alive in its pool and uses HTTP/2 where the server supports it,
+ * responses are requested gzip encoded and decoded on the fly.
+ * The read timeout bounds the wait for the response headers and every wait for more of the body,
+ * a body that stalls fails the read instead of blocking forever.
+ *
+ */
+public class HttpClientFetcher implements UrlFetcher {
+
+    public static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.ofSeconds(10);
+    public static final Duration DEFAULT_READ_TIMEOUT = Duration.ofSeconds(30);
+
+    private static final String ENCODING_GZIP = "gzip";
+
+    private final HttpClient client;
+    private final Duration readTimeout;
+
+    public HttpClientFetcher() {
+        this(DEFAULT_CONNECT_TIMEOUT, DEFAULT_READ_TIMEOUT);
+    }
+
+    /**
+     * construct fetcher with its pooled client
+     * 
+     * @param connectTimeout
+     * @param readTimeout until the response headers arrive and between parts of the body
+     */
+    public HttpClientFetcher(Duration connectTimeout, Duration readTimeout) {
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(connectTimeout)
+                .build();
+        this.readTimeout = readTimeout;
+    }
+
+    @Override
+    public FetchResponse fetch(String url, Map<String, String> headers) throws IOException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url))
+                .timeout(readTimeout)
+                .header("Accept-Encoding", ENCODING_GZIP)
+                .GET();
+        headers.forEach(request::header);
+        HttpResponse<InputStream> response;
+        try {
+            response = client.send(request.build(), info -> new TimedBodyStream(url, readTimeout));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while fetching: " + url);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("invalid url: " + url, e);
+        }
+        InputStream body = response.body();
+        if (response.statusCode() == FetchResponse.HTTP_OK
+                && ENCODING_GZIP.equalsIgnoreCase(response.headers().firstValue("Content-Encoding").orElse(""))) {
+            try {
+                body = new GZIPInputStream(body);
+            } catch (IOException e) {
+                // the gzip header is read right away, an invalid one leaves the body to close here
+                body.close();
+                throw e;
+            }
+        }
+        return new FetchResponse(url, response.statusCode(), name -> response.headers().firstValue(name).orElse(null), body);
+    }
+
+    /**
+     * body read as stream, every wait for more bytes is limited by the read timeout
+     */
+    private static class TimedBodyStream extends InputStream implements HttpResponse.BodySubscriber<InputStream> {
+
+        private static final List<ByteBuffer> END = new ArrayList<>();
+
+        private final String url;
+        private final long timeoutNanos;
+        private final BlockingQueue<List<ByteBuffer>> parts = new LinkedBlockingQueue<>();
+        private volatile Flow.Subscription subscription;
+        private volatile Throwable error;
+        private volatile boolean closed;
+        private Iterator<ByteBuffer> current = Collections.emptyIterator();
+        private ByteBuffer buffer;
+        private boolean ended;
+
+        private TimedBodyStream(String url, Duration timeout) {
+            this.url = url;
+            this.timeoutNanos = timeout.toNanos();
+        }
+
+        @Override
+        public CompletionStage<InputStream> getBody() {
+            return CompletableFuture.completedFuture(this);
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (closed) {
+                subscription.cancel();
+            } else {
+                subscription.request(1);
+            }
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> item) {
+            parts.offer(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+            parts.offer(END);
+        }
+
+        @Override
+        public void onComplete() {
+            parts.offer(END);
+        }
+
+        @Override
+        public int read() throws IOException {
+            ByteBuffer next = nextBuffer();
+            return next == null ? -1 : next.get() & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            ByteBuffer next = nextBuffer();
+            if (next == null) {
+                return -1;
+            }
+            int n = Math.min(len, next.remaining());
+            next.get(b, off, n);
+            return n;
+        }
+
+        /**
+         * @return buffer with remaining bytes, null at the end of the body
+         */
+        private ByteBuffer nextBuffer() throws IOException {
+            while (buffer == null || !buffer.hasRemaining()) {
+                if (closed) {
+                    throw new IOException("body closed: " + url);
+                }
+                if (current.hasNext()) {
+                    buffer = current.next();
+                    continue;
+                }
+                if (ended) {
+                    return null;
+                }
+                List<ByteBuffer> part;
+                try {
+                    part = parts.poll(timeoutNanos, TimeUnit.NANOSECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("interrupted while reading: " + url);
+                }
+                if (part == null) {
+                    close();
+                    throw new HttpTimeoutException("body read timed out after " + TimeUnit.NANOSECONDS.toMillis(timeoutNanos) + " ms: " + url);
+                }
+                if (part == END) {
+                    ended = true;
+                    if (error != null) {
+                        throw error instanceof IOException ? (IOException) error : new IOException(error);
+                    }
+                    return null;
+                }
+                current = part.iterator();
+                subscription.request(1);
+            }
+            return buffer;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            Flow.Subscription s = subscription;
+            if (s != null) {
+                s.cancel();
+            }
+            parts.clear();
+        }
+    }
+
+}
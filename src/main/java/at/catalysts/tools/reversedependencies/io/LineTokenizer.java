@@ -0,0 +1,113 @@
+package at.catalysts.tools.reversedependencies.io;
+
+/**
+ * Split a dependency line into columns in a single pass without regular expressions
+ * <br><br>
+ * gives the columns of trimming the line, splitting it by comma (trailing empty values dropped)
+ * or else by whitespace and trimming every value. Only the first columns are kept,
+ * strings are created on request only. Not thread safe, reused for all lines of a reader.
+ *
+ */
+class LineTokenizer {
+
+    static final int MAX_COLUMNS = 6;
+
+    private static final char COMMA = ',';
+    private static final char BLANK = ' ';
+
+    private final int[] starts = new int[MAX_COLUMNS];
+    private final int[] ends = new int[MAX_COLUMNS];
+    private String line;
+
+    /**
+     * @param line
+     * @return number of columns, 1 if line is neither comma nor whitespace separated
+     */
+    int tokenize(String line) {
+        this.line = line;
+        int start = 0;
+        int end = line.length();
+        while (start < end && line.charAt(start) <= BLANK) {
+            start++;
+        }
+        while (end > start && line.charAt(end - 1) <= BLANK) {
+            end--;
+        }
+        // trailing empty values are no columns
+        int commaEnd = end;
+        while (commaEnd > start && line.charAt(commaEnd - 1) == COMMA) {
+            commaEnd--;
+        }
+        if (line.lastIndexOf(COMMA, commaEnd - 1) >= start) {
+            return splitComma(start, commaEnd);
+        }
+        for (int i = start; i < end; i++) {
+            if (isWhitespace(line.charAt(i))) {
+                return splitWhitespace(start, end);
+            }
+        }
+        starts[0] = start;
+        ends[0] = end;
+        return 1;
+    }
+
+    /**
+     * @param column
+     * @return trimmed value of the column, less than {@link #MAX_COLUMNS}
+     */
+    String column(int column) {
+        int start = starts[column];
+        int end = ends[column];
+        return start == end ? "" : line.substring(start, end);
+    }
+
+    private int splitComma(int start, int end) {
+        int columns = 0;
+        int valueStart = start;
+        for (int i = start; i <= end; i++) {
+            if (i == end || line.charAt(i) == COMMA) {
+                setColumn(columns++, valueStart, i);
+                valueStart = i + 1;
+            }
+        }
+        return columns;
+    }
+
+    private int splitWhitespace(int start, int end) {
+        int columns = 0;
+        int i = start;
+        while (i < end) {
+            int valueStart = i;
+            while (i < end && !isWhitespace(line.charAt(i))) {
+                i++;
+            }
+            setColumn(columns++, valueStart, i);
+            while (i < end && isWhitespace(line.charAt(i))) {
+                i++;
+            }
+        }
+        return columns;
+    }
+
+    private void setColumn(int column, int start, int end) {
+        if (column >= MAX_COLUMNS) {
+            return;
+        }
+        while (start < end && line.charAt(start) <= BLANK) {
+            start++;
+        }
+        while (end > start && line.charAt(end - 1) <= BLANK) {
+            end--;
+        }
+        starts[column] = start;
+        ends[column] = end;
+    }
+
+    /**
+     * whitespace of the regular expression \s
+     */
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+}
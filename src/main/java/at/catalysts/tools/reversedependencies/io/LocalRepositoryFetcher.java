@@ -0,0 +1,178 @@
+package at.catalysts.tools.reversedependencies.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read a maven repository on local disk, eg. a mirrored ~/.m2/repository, by file: urls
+ * <br><br>
+ * instead of listing every directory, all poms are found by one walk of the file tree and ordered
+ * like a crawl of the directory listings would find them: subfolders by name before the poms of a folder.
+ * Large poms are memory mapped, small ones read at once.
+ *
+ */
+public class LocalRepositoryFetcher implements UrlFetcher {
+
+    public static final String FILE_SCHEME = "file:";
+
+    private static final String FILEENDING_POM = ".pom";
+    private static final int HTTP_NOT_FOUND = 404;
+    private static final long MAP_MIN_BYTES = 64 * 1024;
+
+    /**
+     * check if url points to the local filesystem
+     *
+     * @param url
+     * @return
+     */
+    public static boolean isLocal(String url) {
+        return url != null && url.startsWith(FILE_SCHEME);
+    }
+
+    /**
+     * @param url file: url
+     * @param headers ignored, files are always read
+     * @return response with status 200, or 404 if the file does not exist
+     */
+    @Override
+    public FetchResponse fetch(String url, Map<String, String> headers) throws IOException {
+        Path file = toPath(url);
+        if (!Files.isRegularFile(file)) {
+            return new FetchResponse(url, HTTP_NOT_FOUND, name -> null, null);
+        }
+        return new FetchResponse(url, FetchResponse.HTTP_OK, name -> null, open(file));
+    }
+
+    private static InputStream open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < MAP_MIN_BYTES) {
+                ByteBuffer buffer = ByteBuffer.allocate((int) size);
+                while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                    // read whole file
+                }
+                buffer.flip();
+                return new ByteBufferInputStream(buffer);
+            }
+            // the mapping stays valid after the channel is closed
+            return new ByteBufferInputStream(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        }
+    }
+
+    /**
+     * find all poms below a folder, hidden folders like .index or .meta are skipped
+     *
+     * @param folderUrl file: url of the folder
+     * @return file: urls of the poms in crawl order
+     * @throws IOException
+     */
+    public static List<String> findPomUrls(String folderUrl) throws IOException {
+        Path root = toPath(folderUrl);
+        List<Path> poms = new ArrayList<>();
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                if (!dir.equals(root) && dir.getFileName().toString().startsWith(".")) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (attrs.isRegularFile() && file.getFileName().toString().endsWith(FILEENDING_POM)) {
+                    poms.add(root.relativize(file));
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                System.out.println(e.getClass() + ", msg: " + e.getMessage());
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        poms.sort(CRAWL_ORDER);
+        String base = folderUrl.endsWith("/") ? folderUrl : folderUrl + "/";
+        List<String> urls = new ArrayList<>(poms.size());
+        for (Path pom : poms) {
+            StringBuilder url = new StringBuilder(base);
+            for (int i = 0; i < pom.getNameCount(); i++) {
+                url.append(i == 0 ? "" : "/").append(pom.getName(i));
+            }
+            urls.add(url.toString());
+        }
+        return urls;
+    }
+
+    /**
+     * depth first, subfolders before the files of a folder, names in listing order
+     */
+    private static final Comparator<Path> CRAWL_ORDER = (a, b) -> {
+        int common = Math.min(a.getNameCount(), b.getNameCount());
+        for (int i = 0; i < common; i++) {
+            String nameA = a.getName(i).toString();
+            String nameB = b.getName(i).toString();
+            if (!nameA.equals(nameB)) {
+                boolean folderA = i < a.getNameCount() - 1;
+                boolean folderB = i < b.getNameCount() - 1;
+                if (folderA != folderB) {
+                    return folderA ? -1 : 1;
+                }
+                return nameA.compareTo(nameB);
+            }
+        }
+        return Integer.compare(a.getNameCount(), b.getNameCount());
+    };
+
+    private static Path toPath(String url) {
+        return Paths.get(URI.create(url));
+    }
+
+    /**
+     * stream of a heap or mapped buffer
+     */
+    private static class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+
+}
@@ -0,0 +1,53 @@
+package at.catalysts.tools.reversedependencies.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.maven.model.Model;
+import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
+import org.codehaus.plexus.util.ReaderFactory;
+import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
+
+import at.catalysts.tools.reversedependencies.data.Dependency;
+import at.catalysts.tools.reversedependencies.data.PomInfo;
+
+/**
+ * Read the whole pom into a full maven model
+ *
+ */
+public class MavenModelPomReader implements PomReader {
+
+    @Override
+    public PomInfo read(InputStream in) throws IOException, XmlPullParserException {
+        MavenXpp3Reader reader = new MavenXpp3Reader();
+        // parse straight from the stream, the xml reader detects the encoding of the prolog
+        Model model = reader.read(ReaderFactory.newXmlReader(in));
+        return mapMavenModelToPomInfo(model);
+    }
+
+    private static PomInfo mapMavenModelToPomInfo(Model model) {
+        PomInfo pom = new PomInfo();
+        pom.setProject(new Dependency(model.getArtifactId(), model.getGroupId(), model.getVersion()));
+        if (model.getParent() != null) {
+            pom.setParent(new Dependency(model.getParent().getArtifactId(), model.getParent().getGroupId(), model.getParent().getVersion()));
+        }
+        pom.getProperties().putAll(model.getProperties());
+        for (org.apache.maven.model.Dependency dep : model.getDependencies()) {
+            pom.getDependencies().add(mapDependency(dep));
+        }
+        if (model.getDependencyManagement() != null) {
+            for (org.apache.maven.model.Dependency dep : model.getDependencyManagement().getDependencies()) {
+                pom.getDependencyManagement().add(mapDependency(dep));
+            }
+        }
+        return pom;
+    }
+
+    private static Dependency mapDependency(org.apache.maven.model.Dependency dep) {
+        Dependency dependency = new Dependency(dep.getArtifactId(), dep.getGroupId(), dep.getVersion());
+        dependency.setScope(dep.getScope());
+        dependency.setType(dep.getType());
+        return dependency;
+    }
+
+}
@@ -0,0 +1,209 @@
+package at.catalysts.tools.reversedependencies.io;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
+
+import at.catalysts.tools.reversedependencies.data.Dependency;
+import at.catalysts.tools.reversedependencies.data.DependencyTree;
+import at.catalysts.tools.reversedependencies.data.PomInfo;
+
+/**
+ * Check poms in stages: download, parse, match and sink.
+ * <br><br>
+ * every stage has its own pool of threads and takes from a bounded queue filled by the stage
+ * before, a full queue blocks the stage before (down to the crawler discovering the poms), so
+ * downloads and parsing overlap without buffering more poms than the queues hold.
+ * The sink is a single thread appending results to the cache, poms without results skip it.
+ * A pom failing in a stage skips the stages after, its results are empty.
+ *
+ */
+class PomPipeline {
+
+    private final RepositoryUrlReader reader;
+    private final List<Dependency> queryDependencies;
+    private final BlockingQueue<PomTask> downloads;
+    private final BlockingQueue<PomTask> parses;
+    private final BlockingQueue<PomTask> matches;
+    private final BlockingQueue<PomTask> sinks;
+    private final List<Thread> workers = new ArrayList<>();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private final Object idle = new Object();
+    private int inFlight;
+
+    /**
+     * @param reader fetching, parsing and matching the poms
+     * @param queryDependencies
+     * @param queueSize capacity of the queue before each stage
+     */
+    PomPipeline(RepositoryUrlReader reader, List<Dependency> queryDependencies, int queueSize) {
+        this.reader = reader;
+        this.queryDependencies = queryDependencies;
+        this.downloads = new ArrayBlockingQueue<>(queueSize);
+        this.parses = new ArrayBlockingQueue<>(queueSize);
+        this.matches = new ArrayBlockingQueue<>(queueSize);
+        this.sinks = new ArrayBlockingQueue<>(queueSize);
+    }
+
+    /**
+     * start the threads of all stages
+     *
+     * @param fetchThreads
+     * @param parseThreads
+     * @param matchThreads
+     */
+    void start(int fetchThreads, int parseThreads, int matchThreads) {
+        startStage("pom-fetch", fetchThreads, this.downloads, this.parses, task -> {
+            task.content = this.reader.fetchPom(task.url);
+            return true;
+        });
+        startStage("pom-parse", parseThreads, this.parses, this.matches, task -> {
+            task.pom = this.reader.parsePom(task.content);
+            task.content = null;
+            return true;
+        });
+        startStage("pom-match", matchThreads, this.matches, this.sinks, task -> {
+            task.trees = this.reader.matchPom(task.pom, this.queryDependencies);
+            task.pom = null;
+            return !task.trees.isEmpty();
+        });
+        startStage("pom-sink", 1, this.sinks, null, task -> {
+            this.reader.writeToCache(task.trees);
+            return true;
+        });
+    }
+
+    /**
+     * queue a pom, blocks while the download queue is full
+     *
+     * @param url of the pom
+     * @param done called with the results of the pom when it passed all stages
+     */
+    void submit(String url, Consumer<List<DependencyTree>> done) {
+        synchronized (this.idle) {
+            this.inFlight++;
+        }
+        try {
+            this.downloads.put(new PomTask(url, done));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            finished();
+        }
+    }
+
+    /**
+     * wait until all submitted poms passed the sink
+     *
+     * @throws InterruptedException
+     */
+    void awaitIdle() throws InterruptedException {
+        synchronized (this.idle) {
+            while (this.inFlight > 0) {
+                this.idle.wait();
+            }
+        }
+    }
+
+    /**
+     * @return first unexpected error of a stage, null if none
+     */
+    Throwable getFailure() {
+        return this.failure.get();
+    }
+
+    void shutdown() {
+        for (Thread worker : this.workers) {
+            worker.interrupt();
+        }
+    }
+
+    private void startStage(String name, int threads, BlockingQueue<PomTask> in, BlockingQueue<PomTask> out, Stage stage) {
+        for (int i = 0; i < Math.max(1, threads); i++) {
+            Thread worker = new Thread(() -> work(in, out, stage), name + "-" + (i + 1));
+            worker.setDaemon(true);
+            this.workers.add(worker);
+            worker.start();
+        }
+    }
+
+    private void work(BlockingQueue<PomTask> in, BlockingQueue<PomTask> out, Stage stage) {
+        try {
+            while (true) {
+                PomTask task = in.take();
+                boolean next = false;
+                try {
+                    next = stage.process(task);
+                } catch (IOException | XmlPullParserException e) {
+                    e.printStackTrace();
+                    if (e instanceof IOException) {
+                        this.reader.addFailure(task.url, (IOException) e);
+                    }
+                } catch (Throwable t) {
+                    this.failure.compareAndSet(null, t);
+                }
+                if (next && out != null) {
+                    out.put(task);
+                } else {
+                    complete(task);
+                }
+            }
+        } catch (InterruptedException e) {
+            // pipeline shut down
+        }
+    }
+
+    private void complete(PomTask task) {
+        try {
+            task.done.accept(task.trees == null ? Collections.<DependencyTree>emptyList() : task.trees);
+        } catch (Throwable t) {
+            this.failure.compareAndSet(null, t);
+        } finally {
+            finished();
+        }
+    }
+
+    private void finished() {
+        synchronized (this.idle) {
+            if (--this.inFlight == 0) {
+                this.idle.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * work of a stage on a pom
+     */
+    private interface Stage {
+
+        /**
+         * @param task
+         * @return true to pass the pom to the next stage
+         */
+        boolean process(PomTask task) throws IOException, XmlPullParserException;
+    }
+
+    /**
+     * pom passing the stages, each stage replaces the result of the stage before
+     */
+    private static class PomTask {
+
+        private final String url;
+        private final Consumer<List<DependencyTree>> done;
+        private byte[] content;
+        private PomInfo pom;
+        private List<DependencyTree> trees;
+
+        private PomTask(String url, Consumer<List<DependencyTree>> done) {
+            this.url = url;
+            this.done = done;
+        }
+    }
+
+}
@@ -0,0 +1,35 @@
+package at.catalysts.tools.reversedependencies.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
+
+import at.catalysts.tools.reversedependencies.data.PomInfo;
+
+/**
+ * Read coordinates, parent, properties and dependencies of a pom
+ *
+ */
+public interface PomReader {
+
+    /**
+     * read pom from stream, encoding is detected from the xml declaration
+     * 
+     * @param in
+     * @return
+     * @throws IOException
+     * @throws XmlPullParserException for invalid poms
+     */
+    PomInfo read(InputStream in) throws IOException, XmlPullParserException;
+
+    /**
+     * reader for parent and bom poms, which need all properties and the dependency management
+     * 
+     * @return this if the reader never stops early
+     */
+    default PomReader completeReader() {
+        return this;
+    }
+
+}
@@ -0,0 +1,464 @@
+package at.catalysts.tools.reversedependencies.io;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
+
+import at.catalysts.tools.reversedependencies.data.Dependency;
+import at.catalysts.tools.reversedependencies.data.PomInfo;
+
+/**
+ * Resolve effective dependency versions of a pom with its parents and imported boms
+ * <br><br>
+ * properties and dependency management are inherited from the parents, boms imported by the
+ * dependency management add their managed versions. Effective models of parents and boms are kept
+ * in a LRU cache by groupId:artifactId:version, parsed poms optionally in a cache directory, so
+ * poms sharing parents cause one fetch only. Concurrent requests for the same parent wait for
+ * the first one. Only parents answered by 404 are remembered as missing, other failures like
+ * timeouts fail the pom and are fetched again by the next one.
+ *
+ */
+public class PomResolver {
+
+    private static final String SCOPE_IMPORT = "import";
+    private static final String TYPE_POM = "pom";
+    private static final int MAX_INTERPOLATIONS = 10;
+    private static final int HTTP_NOT_FOUND = 404;
+    private static final long IN_FLIGHT_WAIT_SECONDS = 60;
+    private static final EffectivePom MISSING = new EffectivePom(Collections.<String, String>emptyMap(), Collections.<String, String>emptyMap());
+
+    private static final String SEPARATOR = "\t";
+    private static final String PROJECT = "project";
+    private static final String PARENT = "parent";
+    private static final String PROPERTY = "property";
+    private static final String MANAGED = "managed";
+
+    /**
+     * source of parent and bom poms
+     */
+    public interface PomSource {
+
+        /**
+         * @param gav coordinates of the pom
+         * @return parsed pom with properties and dependency management
+         * @throws IOException if the pom can not be fetched
+         * @throws XmlPullParserException for invalid poms
+         */
+        PomInfo read(Dependency gav) throws IOException, XmlPullParserException;
+    }
+
+    private final PomSource source;
+    private final Map<String, EffectivePom> models;
+    private final Map<String, CompletableFuture<EffectivePom>> inFlight = new ConcurrentHashMap<>();
+    private File cacheDirectory;
+    private final AtomicLong fetchCount = new AtomicLong();
+    private final AtomicLong diskHitCount = new AtomicLong();
+
+    /**
+     * construct resolver with source of parent poms
+     *
+     * @param source
+     * @param cacheSize number of effective parent and bom models kept in memory
+     */
+    public PomResolver(PomSource source, int cacheSize) {
+        this.source = source;
+        this.models = new LinkedHashMap<String, EffectivePom>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, EffectivePom> eldest) {
+                return size() > cacheSize;
+            }
+        };
+        this.cacheDirectory = null;
+    }
+
+    public File getCacheDirectory() {
+        return cacheDirectory;
+    }
+
+    /**
+     * keep parsed parent and bom poms in a directory for the next scans
+     *
+     * @param cacheDirectory null to fetch every pom not in memory
+     */
+    public void setCacheDirectory(File cacheDirectory) {
+        this.cacheDirectory = cacheDirectory;
+    }
+
+    /**
+     * @return number of parent and bom poms fetched from the source
+     */
+    public long getFetchCount() {
+        return fetchCount.get();
+    }
+
+    /**
+     * @return number of parent and bom poms read from the cache directory
+     */
+    public long getDiskHitCount() {
+        return diskHitCount.get();
+    }
+
+    /**
+     * resolve version of a dependency of the pom, parents are only fetched if the version
+     * is missing or refers to properties
+     *
+     * @param pom
+     * @param dep dependency of the pom
+     * @return effective version, empty if unresolvable
+     * @throws IOException if a parent or bom could not be fetched for now, eg. on a timeout or 5xx response
+     */
+    public String resolveVersion(PomInfo pom, Dependency dep) throws IOException {
+        String version = dep.getVersion();
+        if (version != null && !version.isEmpty() && !version.contains("${")) {
+            return version;
+        }
+        EffectivePom effective = build(pom, new HashSet<>());
+        if (version == null || version.isEmpty()) {
+            version = effective.managed.get(managementKey(interpolate(dep.getGroupId(), effective.properties), dep.getArtifactId()));
+        }
+        version = interpolate(version, effective.properties);
+        return version == null || version.contains("${") ? "" : version;
+    }
+
+    /**
+     * effective model of a parent or bom from memory, cache directory or source
+     *
+     * @param gav
+     * @param chain poms being built by the current thread to stop at cyclic parents
+     * @return null if the pom is missing
+     * @throws IOException if the pom could not be fetched for now
+     */
+    private EffectivePom getEffective(Dependency gav, Set<String> chain) throws IOException {
+        if (isEmpty(gav.getGroupId()) || isEmpty(gav.getArtifactId()) || isEmpty(gav.getVersion()) || gav.getVersion().contains("${")) {
+            return null;
+        }
+        String key = gav.getGroupId() + ":" + gav.getArtifactId() + ":" + gav.getVersion();
+        if (chain.contains(key)) {
+            return null;
+        }
+        EffectivePom cached;
+        synchronized (models) {
+            cached = models.get(key);
+        }
+        if (cached != null) {
+            return cached == MISSING ? null : cached;
+        }
+        CompletableFuture<EffectivePom> future = new CompletableFuture<>();
+        CompletableFuture<EffectivePom> loading = inFlight.putIfAbsent(key, future);
+        if (loading != null) {
+            return await(loading);
+        }
+        EffectivePom effective = MISSING;
+        try {
+            PomInfo pom = load(gav);
+            if (pom != null) {
+                chain.add(key);
+                try {
+                    effective = build(pom, chain);
+                } finally {
+                    chain.remove(key);
+                }
+            }
+            synchronized (models) {
+                models.put(key, effective);
+            }
+        } catch (IOException e) {
+            // not remembered, waiting poms fail as well
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            future.complete(effective);
+            inFlight.remove(key);
+        }
+        return effective == MISSING ? null : effective;
+    }
+
+    private static EffectivePom await(CompletableFuture<EffectivePom> loading) throws IOException {
+        try {
+            EffectivePom effective = loading.get(IN_FLIGHT_WAIT_SECONDS, TimeUnit.SECONDS);
+            return effective == MISSING ? null : effective;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+        } catch (TimeoutException e) {
+            // cyclic parents of concurrent poms, resolved without this parent
+        }
+        return null;
+    }
+
+    /**
+     * inherit properties and dependency management from the parent, then import boms
+     */
+    private EffectivePom build(PomInfo pom, Set<String> chain) throws IOException {
+        EffectivePom parent = pom.getParent() == null ? null : getEffective(pom.getParent(), chain);
+        Map<String, String> properties = parent == null ? new HashMap<>() : new HashMap<>(parent.properties);
+        for (String name : pom.getProperties().stringPropertyNames()) {
+            properties.put(name, pom.getProperties().getProperty(name));
+        }
+        Dependency project = pom.getEffectiveProject();
+        putBuiltIn(properties, "project.groupId", project.getGroupId());
+        putBuiltIn(properties, "project.artifactId", project.getArtifactId());
+        putBuiltIn(properties, "project.version", project.getVersion());
+        putBuiltIn(properties, "pom.version", project.getVersion());
+        if (pom.getParent() != null) {
+            putBuiltIn(properties, "project.parent.groupId", pom.getParent().getGroupId());
+            putBuiltIn(properties, "project.parent.version", pom.getParent().getVersion());
+        }
+
+        Map<String, String> managed = parent == null ? new HashMap<>() : new HashMap<>(parent.managed);
+        for (Dependency dep : pom.getDependencyManagement()) {
+            if (!SCOPE_IMPORT.equals(dep.getScope())) {
+                managed.put(managementKey(interpolate(dep.getGroupId(), properties), dep.getArtifactId()), dep.getVersion());
+            }
+        }
+        // declared versions win over imported ones
+        for (Dependency dep : pom.getDependencyManagement()) {
+            if (SCOPE_IMPORT.equals(dep.getScope()) && TYPE_POM.equals(dep.getType())) {
+                Dependency bomGav = new Dependency(dep.getArtifactId(), interpolate(dep.getGroupId(), properties),
+                        interpolate(dep.getVersion(), properties));
+                EffectivePom bom = getEffective(bomGav, chain);
+                if (bom != null) {
+                    for (Map.Entry<String, String> entry : bom.managed.entrySet()) {
+                        managed.putIfAbsent(entry.getKey(), interpolate(entry.getValue(), bom.properties));
+                    }
+                }
+            }
+        }
+        return new EffectivePom(properties, managed);
+    }
+
+    /**
+     * @return null if the pom does not exist or is invalid
+     * @throws IOException if the pom could not be fetched for now
+     */
+    private PomInfo load(Dependency gav) throws IOException {
+        File cached = getCacheFile(gav);
+        if (cached != null && cached.isFile()) {
+            try {
+                PomInfo pom = readCacheFile(cached.toPath());
+                diskHitCount.incrementAndGet();
+                return pom;
+            } catch (IOException | RuntimeException e) {
+                System.out.println("ignore pom cache file: " + cached + ", msg: " + e.getMessage());
+            }
+        }
+        PomInfo pom;
+        try {
+            fetchCount.incrementAndGet();
+            pom = source.read(gav);
+        } catch (IOException | XmlPullParserException e) {
+            System.out.println("parent not resolved: " + gav.getGroupId() + ":" + gav.getArtifactId() + ":" + gav.getVersion()
+                    + ", msg: " + e.getMessage());
+            if (e instanceof IOException && !isNotFound((IOException) e)) {
+                throw (IOException) e;
+            }
+            return null;
+        }
+        if (cached != null && pom != null) {
+            writeCacheFile(cached.toPath(), pom);
+        }
+        return pom;
+    }
+
+    private File getCacheFile(Dependency gav) {
+        if (cacheDirectory == null || !isPathSafe(gav.getGroupId()) || !isPathSafe(gav.getArtifactId()) || !isPathSafe(gav.getVersion())) {
+            return null;
+        }
+        return new File(new File(new File(cacheDirectory, gav.getGroupId()), gav.getArtifactId()), gav.getVersion() + ".tsv");
+    }
+
+    private static boolean isPathSafe(String value) {
+        return !value.isEmpty() && !value.startsWith(".") && value.indexOf('/') < 0 && value.indexOf('\\') < 0
+                && value.indexOf(':') < 0 && value.indexOf('$') < 0;
+    }
+
+    /**
+     * structure (tab separated, tabs and line breaks of values escaped):
+     * <br>project groupId artifactId version
+     * <br>parent groupId artifactId version
+     * <br>property name value
+     * <br>managed groupId artifactId version scope type
+     */
+    private static void writeCacheFile(Path target, PomInfo pom) {
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(target.getParent());
+            try (BufferedWriter out = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                writeRecord(out, PROJECT, pom.getProject().getGroupId(), pom.getProject().getArtifactId(), pom.getProject().getVersion());
+                if (pom.getParent() != null) {
+                    writeRecord(out, PARENT, pom.getParent().getGroupId(), pom.getParent().getArtifactId(), pom.getParent().getVersion());
+                }
+                for (String name : pom.getProperties().stringPropertyNames()) {
+                    writeRecord(out, PROPERTY, name, pom.getProperties().getProperty(name));
+                }
+                for (Dependency dep : pom.getDependencyManagement()) {
+                    writeRecord(out, MANAGED, dep.getGroupId(), dep.getArtifactId(), dep.getVersion(), dep.getScope(), dep.getType());
+                }
+            }
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static PomInfo readCacheFile(Path file) throws IOException {
+        PomInfo pom = new PomInfo();
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        for (String line : lines) {
+            String[] values = line.split(SEPARATOR, -1);
+            for (int i = 1; i < values.length; i++) {
+                values[i] = unescape(values[i]);
+            }
+            if (PROJECT.equals(values[0])) {
+                pom.setProject(new Dependency(values[2], values[1], values[3]));
+            } else if (PARENT.equals(values[0])) {
+                pom.setParent(new Dependency(values[2], values[1], values[3]));
+            } else if (PROPERTY.equals(values[0])) {
+                pom.getProperties().setProperty(values[1], values[2] == null ? "" : values[2]);
+            } else if (MANAGED.equals(values[0])) {
+                Dependency dep = new Dependency(values[2], values[1], values[3]);
+                dep.setScope(values[4]);
+                dep.setType(values[5]);
+                pom.getDependencyManagement().add(dep);
+            }
+        }
+        return pom;
+    }
+
+    private static void writeRecord(BufferedWriter out, String type, String... values) throws IOException {
+        out.write(type);
+        for (String value : values) {
+            out.write(SEPARATOR);
+            out.write(escape(value));
+        }
+        out.newLine();
+    }
+
+    /**
+     * null is written as empty value
+     */
+    private static String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        return value.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n").replace("\r", "\\r");
+    }
+
+    private static String unescape(String value) {
+        if (value.isEmpty()) {
+            return null;
+        }
+        if (value.indexOf('\\') < 0) {
+            return value;
+        }
+        StringBuilder out = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                char next = value.charAt(++i);
+                out.append(next == 't' ? '\t' : next == 'n' ? '\n' : next == 'r' ? '\r' : next);
+            } else {
+                out.append(c);
+            }
+        }
+        return out.toString();
+    }
+
+    private static void putBuiltIn(Map<String, String> properties, String name, String value) {
+        if (value != null) {
+            properties.put(name, value);
+        }
+    }
+
+    private static String managementKey(String groupId, String artifactId) {
+        return groupId + ":" + artifactId;
+    }
+
+    /**
+     * replace ${name} by properties, nested references are replaced again
+     *
+     * @param value
+     * @param properties
+     * @return value with unknown references left as they are
+     */
+    static String interpolate(String value, Map<String, String> properties) {
+        if (value == null) {
+            return null;
+        }
+        String out = value.trim();
+        for (int i = 0; i < MAX_INTERPOLATIONS && out.contains("${"); i++) {
+            StringBuilder replaced = new StringBuilder(out.length());
+            int pos = 0;
+            boolean changed = false;
+            while (pos < out.length()) {
+                int start = out.indexOf("${", pos);
+                int end = start < 0 ? -1 : out.indexOf('}', start + 2);
+                if (end < 0) {
+                    replaced.append(out, pos, out.length());
+                    break;
+                }
+                String property = properties.get(out.substring(start + 2, end));
+                replaced.append(out, pos, start);
+                if (property == null) {
+                    replaced.append(out, start, end + 1);
+                } else {
+                    replaced.append(property.trim());
+                    changed = true;
+                }
+                pos = end + 1;
+            }
+            out = replaced.toString();
+            if (!changed) {
+                break;
+            }
+        }
+        return out;
+    }
+
+    private static boolean isNotFound(IOException e) {
+        return e instanceof FetchResponse.StatusException && ((FetchResponse.StatusException) e).getStatusCode() == HTTP_NOT_FOUND;
+    }
+
+    private static boolean isEmpty(String value) {
+        return value == null || value.isEmpty();
+    }
+
+    /**
+     * inherited properties and managed versions of a pom, versions are interpolated on use
+     */
+    private static class EffectivePom {
+
+        private final Map<String, String> properties;
+        private final Map<String, String> managed;
+
+        private EffectivePom(Map<String, String> properties, Map<String, String> managed) {
+            this.properties = properties;
+            this.managed = managed;
+        }
+    }
+
+}
@@ -0,0 +1,366 @@
+package at.catalysts.tools.reversedependencies.io;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import at.catalysts.tools.reversedependencies.data.Dependency;
+import at.catalysts.tools.reversedependencies.data.DependencyTree;
+import at.catalysts.tools.reversedependencies.data.UrlDirectory;
+
+/**
+ * Crawl a repository directory tree with a pool of workers.
+ * <br><br>
+ * Every folder is a task, the queue of submitted tasks is bounded: when it is full the
+ * discovering worker scans the folder itself. Results are collected per folder and
+ * joined in listing order, so the result equals a sequential depth-first scan.
+ * With a single thread no pool is created and the scan runs in the calling thread.
+ * <br><br>
+ * With a checkpoint every folder is claimed once, finished folders are skipped and a
+ * resumed crawl starts at the pending folders of the checkpoint instead of the root.
+ * <br><br>
+ * Folders with poms known in advance, eg. from a repository index or a local walk, are scanned
+ * as tasks of their poms without listing. Folders with a failed listing or pom are not finished.
+ * <br><br>
+ * Subfolders rejected by the path filter of the reader are not listed, poms of folders only listed
+ * on the way to included ones are not scanned.
+ * <br><br>
+ * With a pom pipeline the workers only list folders and hand the poms to its stages, a folder is
+ * finished by the stage completing its last pom.
+ *
+ */
+class RepositoryCrawler {
+
+    private static final int DEFAULT_QUEUE_SIZE_PER_THREAD = 64;
+    private static final int DEFAULT_QUEUE_SIZE_VIRTUAL = 1024;
+
+    private final RepositoryUrlReader reader;
+    private final List<Dependency> queryDependencies;
+    private final ExecutorService executor;
+    private final Semaphore queueSlots;
+    private final PomPipeline pipeline;
+
+    private final AtomicInteger openTasks = new AtomicInteger();
+    private final CountDownLatch finished = new CountDownLatch(1);
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private CrawlCheckpoint checkpoint;
+
+    RepositoryCrawler(RepositoryUrlReader reader, List<Dependency> queryDependencies, int threads, boolean virtualThreads) {
+        this.reader = reader;
+        this.queryDependencies = queryDependencies;
+        if (virtualThreads) {
+            this.executor = createVirtualThreadExecutor(threads);
+            this.queueSlots = new Semaphore(DEFAULT_QUEUE_SIZE_VIRTUAL);
+        } else if (threads > 1) {
+            this.executor = Executors.newFixedThreadPool(threads);
+            this.queueSlots = new Semaphore(threads * DEFAULT_QUEUE_SIZE_PER_THREAD);
+        } else {
+            this.executor = null;
+            this.queueSlots = null;
+        }
+        if (reader.getPipelineFetchThreads() > 0) {
+            this.pipeline = new PomPipeline(reader, queryDependencies, reader.getPipelineQueueSize());
+        } else {
+            this.pipeline = null;
+        }
+    }
+
+    /**
+     * @param checkpoint frontier to track, its resume folders replace the root
+     */
+    void setCheckpoint(CrawlCheckpoint checkpoint) {
+        this.checkpoint = checkpoint;
+    }
+
+    /**
+     * scan urls and all subfolders
+     *
+     * @param urls
+     * @return reversed DependencyTrees in listing order
+     */
+    List<DependencyTree> crawl(List<String> urls) {
+        List<String> resumeFolders = this.checkpoint == null ? Collections.<String>emptyList() : this.checkpoint.getResumeFolders();
+        List<CrawlNode> roots = new ArrayList<>();
+        for (String folder : resumeFolders.isEmpty() ? urls : resumeFolders) {
+            if (claim(folder)) {
+                roots.add(new CrawlNode(folder, null));
+            }
+        }
+        return crawlNodes(roots);
+    }
+
+    /**
+     * scan folders and their subfolders, eg. failed ones of a former crawl
+     *
+     * @param folderUrls
+     * @return reversed DependencyTrees in order of the folders
+     */
+    List<DependencyTree> crawlFolders(List<String> folderUrls) {
+        List<CrawlNode> roots = new ArrayList<>();
+        for (String folder : folderUrls) {
+            if (claim(folder)) {
+                roots.add(new CrawlNode(folder, null));
+            }
+        }
+        return crawlNodes(roots);
+    }
+
+    /**
+     * scan known poms without listing any directory, poms of a folder are one task
+     *
+     * @param pomUrls
+     * @return reversed DependencyTrees in order of the poms
+     */
+    List<DependencyTree> crawlPoms(List<String> pomUrls) {
+        Map<String, List<String>> folders = new LinkedHashMap<>();
+        for (String pom : pomUrls) {
+            folders.computeIfAbsent(pom.substring(0, pom.lastIndexOf('/') + 1), f -> new ArrayList<>()).add(pom);
+        }
+        List<CrawlNode> roots = new ArrayList<>();
+        for (Map.Entry<String, List<String>> folder : folders.entrySet()) {
+            if (claim(folder.getKey())) {
+                roots.add(new CrawlNode(folder.getKey(), folder.getValue()));
+            }
+        }
+        return crawlNodes(roots);
+    }
+
+    private List<DependencyTree> crawlNodes(List<CrawlNode> roots) {
+        if (this.pipeline != null) {
+            this.pipeline.start(this.reader.getPipelineFetchThreads(), this.reader.getPipelineParseThreads(),
+                    this.reader.getPipelineMatchThreads());
+        }
+        try {
+            discover(roots);
+            if (this.pipeline != null) {
+                this.pipeline.awaitIdle();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (this.pipeline != null) {
+                this.pipeline.shutdown();
+                this.failure.compareAndSet(null, this.pipeline.getFailure());
+            }
+        }
+        if (this.failure.get() != null) {
+            throw new IllegalStateException("repository crawl failed", this.failure.get());
+        }
+        List<DependencyTree> result = new ArrayList<>();
+        for (CrawlNode root : roots) {
+            root.collect(result);
+        }
+        return result;
+    }
+
+    private void discover(List<CrawlNode> roots) throws InterruptedException {
+        if (this.executor == null) {
+            for (CrawlNode root : roots) {
+                scan(root);
+            }
+        } else {
+            try {
+                // hold the latch until all roots are submitted
+                this.openTasks.incrementAndGet();
+                for (CrawlNode root : roots) {
+                    schedule(root);
+                }
+                if (this.openTasks.decrementAndGet() == 0) {
+                    this.finished.countDown();
+                }
+                this.finished.await();
+            } finally {
+                shutdown();
+            }
+        }
+    }
+
+    private void schedule(CrawlNode node) {
+        if (this.queueSlots.tryAcquire()) {
+            this.openTasks.incrementAndGet();
+            this.executor.execute(() -> {
+                this.queueSlots.release();
+                try {
+                    scan(node);
+                } catch (Throwable t) {
+                    this.failure.compareAndSet(null, t);
+                } finally {
+                    if (this.openTasks.decrementAndGet() == 0) {
+                        this.finished.countDown();
+                    }
+                }
+            });
+        } else {
+            // queue is full: work through the folder in the current worker
+            scan(node);
+        }
+    }
+
+    private void scan(CrawlNode node) {
+        if (this.reader.isCached(node.url)) {
+            finish(node);
+            return;
+        }
+        if (node.poms != null) {
+            lookForDependencies(node, node.poms, false);
+            return;
+        }
+        UrlDirectory urlDir = this.reader.readUrlDirectory(node.url);
+        List<String> folders = this.reader.selectFolders(urlDir.getFolders());
+        List<CrawlNode> children = new ArrayList<>(folders.size());
+        for (String folder : folders) {
+            if (claim(folder)) {
+                children.add(new CrawlNode(folder, null));
+            }
+        }
+        node.children = children;
+        for (CrawlNode child : children) {
+            if (this.executor == null) {
+                scan(child);
+            } else {
+                schedule(child);
+            }
+        }
+        List<String> poms = this.reader.isAccepted(node.url) ? urlDir.getPoms() : Collections.<String>emptyList();
+        lookForDependencies(node, poms, true);
+    }
+
+    /**
+     * check poms of the folder, in the pipeline or right away, and finish it when all are done
+     *
+     * @param node
+     * @param poms
+     * @param listed true if the folder was listed
+     */
+    private void lookForDependencies(CrawlNode node, List<String> poms, boolean listed) {
+        if (this.pipeline == null) {
+            node.pomResults = lookForDependencies(poms);
+            complete(node, poms, listed);
+            return;
+        }
+        List<List<DependencyTree>> results = new ArrayList<>(Collections.nCopies(poms.size(), Collections.<DependencyTree>emptyList()));
+        // one more for the submitting worker, so the folder is not completed before all poms are queued
+        AtomicInteger pending = new AtomicInteger(poms.size() + 1);
+        Runnable pomDone = () -> {
+            if (pending.decrementAndGet() == 0) {
+                List<DependencyTree> pomResults = new ArrayList<>();
+                synchronized (results) {
+                    for (List<DependencyTree> pomResult : results) {
+                        pomResults.addAll(pomResult);
+                    }
+                }
+                node.pomResults = pomResults;
+                complete(node, poms, listed);
+            }
+        };
+        for (int i = 0; i < poms.size(); i++) {
+            int index = i;
+            this.pipeline.submit(poms.get(i), trees -> {
+                synchronized (results) {
+                    results.set(index, trees);
+                }
+                pomDone.run();
+            });
+        }
+        pomDone.run();
+    }
+
+    private void complete(CrawlNode node, List<String> poms, boolean listed) {
+        if ((listed && this.reader.isFailed(node.url)) || isFailed(poms)) {
+            // stays pending to be scanned again
+            return;
+        }
+        if (listed) {
+            this.reader.markScanned(node.url);
+        }
+        finish(node);
+    }
+
+    private boolean isFailed(List<String> poms) {
+        for (String pom : poms) {
+            if (this.reader.isFailed(pom)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private List<DependencyTree> lookForDependencies(List<String> poms) {
+        List<DependencyTree> pomResults = new ArrayList<>();
+        for (String pom : poms) {
+            pomResults.addAll(this.reader.lookForDependenciesInPom(pom, this.queryDependencies));
+        }
+        return pomResults;
+    }
+
+    private boolean claim(String url) {
+        return this.checkpoint == null || this.checkpoint.claim(url);
+    }
+
+    private void finish(CrawlNode node) {
+        if (this.checkpoint != null) {
+            this.checkpoint.finish(node.url);
+        }
+    }
+
+    private void shutdown() {
+        this.executor.shutdown();
+        try {
+            this.executor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * use virtual threads when the running jvm provides them (java 21+),
+     * otherwise fall back to a fixed pool of platform threads
+     */
+    private static ExecutorService createVirtualThreadExecutor(int fallbackThreads) {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            System.out.println("virtual threads not supported by jvm, using threads: " + Math.max(fallbackThreads, 1));
+            return Executors.newFixedThreadPool(Math.max(fallbackThreads, 1));
+        }
+    }
+
+    /**
+     * scanned folder with its subfolders in listing order
+     */
+    private static class CrawlNode {
+
+        private final String url;
+        private final List<String> poms;
+        private volatile List<CrawlNode> children = new ArrayList<>();
+        private volatile List<DependencyTree> pomResults = new ArrayList<>();
+
+        /**
+         * @param url of the folder
+         * @param poms known poms of the folder, null to list the folder
+         */
+        private CrawlNode(String url, List<String> poms) {
+            this.url = url;
+            this.poms = poms;
+        }
+
+        private void collect(List<DependencyTree> result) {
+            for (CrawlNode child : this.children) {
+                child.collect(result);
+            }
+            result.addAll(this.pomResults);
+        }
+    }
+
+}
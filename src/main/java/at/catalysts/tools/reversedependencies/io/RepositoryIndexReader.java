@@ -0,0 +1,162 @@
+package at.catalysts.tools.reversedependencies.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.lucene.document.Document;
+import org.apache.maven.index.updater.IndexDataReader;
+
+import at.catalysts.tools.reversedependencies.data.Dependency;
+
+/**
+ * Read artifacts of a published maven repository index (nexus-maven-repository-index.gz)
+ * <br><br>
+ * the full index or incremental chunks are streamed from files or urls in the given order,
+ * artifacts deleted by a later chunk are removed. Every artifact without classifier has a pom,
+ * so its version folder can be scanned without listing any directory.
+ *
+ */
+public class RepositoryIndexReader {
+
+    /**
+     * field names of ArtifactInfo, its class initialization needs a plexus container
+     */
+    static final String FIELD_UINFO = "u";
+    static final String FIELD_DELETED = "del";
+
+    private static final String FIELD_SEPARATOR = "\\|";
+    private static final String NO_CLASSIFIER = "NA";
+
+    private final UrlFetcher fetcher;
+    private String subdirectory;
+
+    /**
+     * construct index reader
+     *
+     * @param fetcher used for index urls, files are read directly
+     */
+    public RepositoryIndexReader(UrlFetcher fetcher) {
+        this.fetcher = fetcher;
+        this.subdirectory = "";
+    }
+
+    public String getSubdirectory() {
+        return subdirectory;
+    }
+
+    /**
+     * only keep artifacts within this repository folder
+     *
+     * @param subdirectory eg: org/apache/maven/plugins/
+     */
+    public void setSubdirectory(String subdirectory) {
+        this.subdirectory = subdirectory == null ? "" : subdirectory;
+    }
+
+    /**
+     * read artifacts with a pom from all index files
+     *
+     * @param locations paths or urls of the full index and/or incremental chunks, oldest first
+     * @return coordinates in index order
+     * @throws IOException if any location can not be read completely, later chunks would apply to a wrong base
+     */
+    public List<Dependency> readArtifacts(List<String> locations) throws IOException {
+        Map<String, Dependency> artifacts = new LinkedHashMap<>();
+        for (String location : locations) {
+            System.out.println("read repository index: " + location);
+            try {
+                readArtifacts(location, artifacts);
+            } catch (IOException e) {
+                throw new IOException("repository index not readable: " + location + ", msg: " + e.getMessage(), e);
+            }
+        }
+        System.out.println("artifacts in repository index: " + artifacts.size());
+        return new ArrayList<>(artifacts.values());
+    }
+
+    private void readArtifacts(String location, Map<String, Dependency> artifacts) throws IOException {
+        if (location.startsWith("http://") || location.startsWith("https://")) {
+            try (FetchResponse response = this.fetcher.fetch(location, Collections.<String, String>emptyMap())) {
+                readArtifacts(response.getBody(), artifacts);
+            }
+        } else {
+            try (InputStream in = Files.newInputStream(new File(location).toPath())) {
+                readArtifacts(in, artifacts);
+            }
+        }
+    }
+
+    /**
+     * read one index stream, gzipped or plain
+     *
+     * @param in
+     * @param artifacts by groupId:artifactId:version, added and removed by the documents of the index
+     * @throws IOException
+     */
+    void readArtifacts(InputStream in, Map<String, Dependency> artifacts) throws IOException {
+        IndexDataReader reader = new IndexDataReader(in);
+        reader.readHeader();
+        Document doc;
+        while ((doc = reader.readDocument()) != null) {
+            String uinfo = doc.get(FIELD_UINFO);
+            if (uinfo != null) {
+                Dependency artifact = parseArtifact(uinfo);
+                if (artifact != null) {
+                    artifacts.putIfAbsent(toKey(artifact), artifact);
+                }
+                continue;
+            }
+            String deleted = doc.get(FIELD_DELETED);
+            if (deleted != null) {
+                Dependency artifact = parseArtifact(deleted);
+                if (artifact != null) {
+                    artifacts.remove(toKey(artifact));
+                }
+            }
+        }
+    }
+
+    /**
+     * @param uinfo groupId|artifactId|version|classifier[|extension]
+     * @return null for classified artifacts and artifacts outside the subdirectory
+     */
+    private Dependency parseArtifact(String uinfo) {
+        String[] values = uinfo.split(FIELD_SEPARATOR);
+        if (values.length < 4 || !NO_CLASSIFIER.equals(values[3])) {
+            return null;
+        }
+        Dependency artifact = new Dependency(values[1], values[0], values[2]);
+        if (!subdirectory.isEmpty() && !toFolder(artifact).startsWith(subdirectory)) {
+            return null;
+        }
+        return artifact;
+    }
+
+    private static String toKey(Dependency artifact) {
+        return artifact.getGroupId() + ":" + artifact.getArtifactId() + ":" + artifact.getVersion();
+    }
+
+    /**
+     * @param artifact
+     * @return version folder relative to the repository url, eg: junit/junit/4.12/
+     */
+    public static String toFolder(Dependency artifact) {
+        return artifact.getGroupId().replace('.', '/') + "/" + artifact.getArtifactId() + "/" + artifact.getVersion() + "/";
+    }
+
+    /**
+     * @param artifact
+     * @return pom file name within the version folder, eg: junit-4.12.pom
+     */
+    public static String toPomName(Dependency artifact) {
+        return artifact.getArtifactId() + "-" + artifact.getVersion() + ".pom";
+    }
+
+}
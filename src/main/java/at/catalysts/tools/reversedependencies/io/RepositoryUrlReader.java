@@ -1,55 +1,125 @@
 package at.catalysts.tools.reversedependencies.io;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.io.StringReader;
 import java.net.URL;
-import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
-import org.apache.maven.model.Model;
-import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
 import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
 
 import at.catalysts.tools.reversedependencies.data.Dependency;
 import at.catalysts.tools.reversedependencies.data.DependencyTree;
+import at.catalysts.tools.reversedependencies.data.PomInfo;
 import at.catalysts.tools.reversedependencies.data.UrlDirectory;
+import at.catalysts.tools.reversedependencies.util.DependencyCacheIndex;
+import at.catalysts.tools.reversedependencies.util.QueryMatcher;
+import at.catalysts.tools.reversedependencies.util.RepositoryPathFilter;
 
 /**
  * Read dependencies from a repository like nexus with http-api
  * with access to maven pom files by hyperlinks.
  * The cacheWriter is used on the fly to prevent data loss.
+ * <br>
+ * With more than one thread the repository is crawled concurrently,
+ * optionally limiting the open connections per host.
+ * Poms can be downloaded, parsed and matched in a pipeline of stages with their own threads.
  * 
  */
 public class RepositoryUrlReader {
 
     private static final String REGEX_HYPERLINK = "<a\\ href=\"(.+?)\">";
     private static final String FILEENDING_POM = ".pom";
+    private static final UrlFetcher SHARED_FETCHER = new HttpClientFetcher();
 
     private String repositoryUrl;
-    private String subdirectory;
+    private List<String> subdirectories;
+    private RepositoryPathFilter pathFilter;
     private DependencyFileWriter cacheWriter;
-    private List<DependencyTree> dependencyCache;
-    private long cacheUsageCount;
+    private DependencyCacheIndex dependencyCache;
+    private final AtomicLong cacheUsageCount = new AtomicLong();
 
     private String ignorePostfixCsv;
 
+    private int threads;
+    private boolean virtualThreads;
+    private int hostConcurrency;
+    private final Map<String, Semaphore> hostPermits = new ConcurrentHashMap<>();
+    private DirectoryManifest manifest;
+    private CrawlCheckpoint checkpoint;
+    private boolean resume;
+    private UrlFetcher fetcher;
+    private PomReader pomReader;
+    private PomResolver pomResolver;
+    private List<String> indexLocations;
+    private volatile QueryMatcher queryMatcher;
+    private final Set<String> failedUrls = ConcurrentHashMap.newKeySet();
+    private int retryFailedRounds;
+    private int pipelineFetchThreads;
+    private int pipelineParseThreads;
+    private int pipelineMatchThreads;
+    private int pipelineQueueSize;
+    private final CrawlMetrics metrics = new CrawlMetrics();
+
     public RepositoryUrlReader(String repositoryUrl) {
         this.repositoryUrl = repositoryUrl;
-        this.subdirectory = "";
+        this.subdirectories = Collections.singletonList("");
+        this.pathFilter = null;
         this.cacheWriter = null;
         this.setCacheUsageCount(0);
-        this.dependencyCache = new ArrayList<>();
+        this.dependencyCache = new DependencyCacheIndex(new ArrayList<>());
+        this.threads = 1;
+        this.virtualThreads = false;
+        this.hostConcurrency = 0;
+        this.pipelineFetchThreads = 0;
+        this.pipelineQueueSize = 256;
+        this.fetcher = LocalRepositoryFetcher.isLocal(repositoryUrl) ? new LocalRepositoryFetcher() : SHARED_FETCHER;
+        this.pomReader = new MavenModelPomReader();
+        this.retryFailedRounds = 1;
     }
 
     public void setSubdirectory(String subdirectory) {
-        this.subdirectory = subdirectory;
+        this.subdirectories = Collections.singletonList(subdirectory);
+    }
+
+    public List<String> getSubdirectories() {
+        return subdirectories;
+    }
+
+    /**
+     * @param subdirectories roots of the scan within the repository, eg: org/apache/maven/plugins/
+     */
+    public void setSubdirectories(List<String> subdirectories) {
+        this.subdirectories = subdirectories.isEmpty() ? Collections.singletonList("") : subdirectories;
+    }
+
+    public RepositoryPathFilter getPathFilter() {
+        return pathFilter;
+    }
+
+    /**
+     * skip folders by their path before listing them
+     * 
+     * @param pathFilter null to scan every folder
+     */
+    public void setPathFilter(RepositoryPathFilter pathFilter) {
+        this.pathFilter = pathFilter;
     }
 
     public String getIgnorePostfixCsv() {
@@ -58,18 +128,148 @@ public class RepositoryUrlReader {
 
     public void setIgnorePostfixCsv(String ignorePostfixCsv) {
         this.ignorePostfixCsv = ignorePostfixCsv;
+        this.queryMatcher = null;
     }
 
     public long getCacheUsageCount() {
-        return cacheUsageCount;
+        return cacheUsageCount.get();
     }
 
     public void setCacheUsageCount(long cacheUsageCount) {
-        this.cacheUsageCount = cacheUsageCount;
+        this.cacheUsageCount.set(cacheUsageCount);
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * number of concurrent workers, 1 scans sequentially
+     * 
+     * @param threads
+     */
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * use a virtual thread per folder, needs java 21+ otherwise threads are used
+     * 
+     * @param virtualThreads
+     */
+    public void setVirtualThreads(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+    }
+
+    public int getRetryFailedRounds() {
+        return retryFailedRounds;
+    }
+
+    /**
+     * rescan folders and poms failed by a network error or a 429/5xx response after the crawl
+     * 
+     * @param retryFailedRounds 0 to not retry
+     */
+    public void setRetryFailedRounds(int retryFailedRounds) {
+        this.retryFailedRounds = retryFailedRounds;
+    }
+
+    public int getPipelineFetchThreads() {
+        return pipelineFetchThreads;
+    }
+
+    public int getPipelineParseThreads() {
+        return pipelineParseThreads;
+    }
+
+    public int getPipelineMatchThreads() {
+        return pipelineMatchThreads;
+    }
+
+    /**
+     * check poms in stages with their own threads instead of within the crawling workers,
+     * the workers only list folders
+     * 
+     * @param fetchThreads downloading poms, 0 to not use stages
+     * @param parseThreads
+     * @param matchThreads
+     */
+    public void setPipeline(int fetchThreads, int parseThreads, int matchThreads) {
+        this.pipelineFetchThreads = fetchThreads;
+        this.pipelineParseThreads = parseThreads;
+        this.pipelineMatchThreads = matchThreads;
+    }
+
+    public int getPipelineQueueSize() {
+        return pipelineQueueSize;
+    }
+
+    /**
+     * @param pipelineQueueSize poms waiting before each stage
+     */
+    public void setPipelineQueueSize(int pipelineQueueSize) {
+        this.pipelineQueueSize = pipelineQueueSize;
+    }
+
+    /**
+     * @return urls still failed after the last scan
+     */
+    public Set<String> getFailedUrls() {
+        return failedUrls;
+    }
+
+    /**
+     * @return timers and counters of the scans of this reader
+     */
+    public CrawlMetrics getMetrics() {
+        return metrics;
+    }
+
+    public UrlFetcher getFetcher() {
+        return fetcher;
+    }
+
+    /**
+     * fetcher for directory listings and poms, by default one shared pooled http client
+     * 
+     * @param fetcher
+     */
+    public void setFetcher(UrlFetcher fetcher) {
+        this.fetcher = fetcher;
+    }
+
+    public PomReader getPomReader() {
+        return pomReader;
+    }
+
+    /**
+     * reader for poms, by default the full maven model is read
+     * 
+     * @param pomReader
+     */
+    public void setPomReader(PomReader pomReader) {
+        this.pomReader = pomReader;
+    }
+
+    public int getHostConcurrency() {
+        return hostConcurrency;
+    }
+
+    /**
+     * maximum number of concurrent requests per host, 0 for no limit
+     * 
+     * @param hostConcurrency
+     */
+    public void setHostConcurrency(int hostConcurrency) {
+        this.hostConcurrency = hostConcurrency;
     }
 
     /**
-     * setup caching, create file if not existing
+     * setup caching, create file if not existing and index cached dependencies
      * 
      * @param writer
      */
@@ -78,7 +278,53 @@ public class RepositoryUrlReader {
         if (!this.cacheWriter.fileExists()) {
             this.cacheWriter.createFile();
         }
-        this.dependencyCache = dependencyCache;
+        this.dependencyCache = new DependencyCacheIndex(dependencyCache);
+    }
+
+    /**
+     * use manifest of former scans for conditional requests and to skip checked poms,
+     * the manifest is loaded and saved by scanUrlDirectory
+     * 
+     * @param manifest
+     */
+    public void setupManifest(DirectoryManifest manifest) {
+        this.manifest = manifest;
+    }
+
+    /**
+     * resolve versions managed or defined by parents and boms, they are read from this repository
+     * 
+     * @param cacheSize number of parent and bom models kept in memory
+     * @param cacheDirectory optional directory keeping parsed parents and boms, null for none
+     */
+    public void setupPomResolver(int cacheSize, File cacheDirectory) {
+        this.pomResolver = new PomResolver(this::readPom, cacheSize);
+        this.pomResolver.setCacheDirectory(cacheDirectory);
+    }
+
+    public PomResolver getPomResolver() {
+        return pomResolver;
+    }
+
+    /**
+     * discover poms by the published repository index instead of listing directories
+     * 
+     * @param indexLocations paths or urls of the full index and/or incremental chunks, oldest first
+     */
+    public void setupIndex(List<String> indexLocations) {
+        this.indexLocations = indexLocations;
+    }
+
+    /**
+     * checkpoint the crawl frontier while scanning, deleted when the scan completes;
+     * results of finished folders are only kept by the cache
+     * 
+     * @param checkpoint
+     * @param resume continue at the frontier of the checkpoint file
+     */
+    public void setupCheckpoint(CrawlCheckpoint checkpoint, boolean resume) {
+        this.checkpoint = checkpoint;
+        this.resume = resume;
     }
 
     /**
@@ -88,42 +334,233 @@ public class RepositoryUrlReader {
      * @return reversed DependencyTrees
      */
     public List<DependencyTree> scanUrlDirectory(List<Dependency> queryDependencies) {
-        List<DependencyTree> trees = scanUrlDirectory(this.repositoryUrl + this.subdirectory, queryDependencies);
+        String queryFingerprint = createQueryFingerprint(queryDependencies);
+        List<String> roots = new ArrayList<>();
+        for (String subdirectory : this.subdirectories) {
+            roots.add(this.repositoryUrl + subdirectory);
+        }
+        String root = String.join(",", roots);
+        this.failedUrls.clear();
+        this.metrics.start();
+        if (this.manifest != null) {
+            this.manifest.load(queryFingerprint);
+        }
+        RepositoryCrawler crawler = new RepositoryCrawler(this, queryDependencies, this.threads, this.virtualThreads);
+        if (this.checkpoint != null) {
+            if (!this.resume || !this.checkpoint.load(root, queryFingerprint)) {
+                this.checkpoint.reset(root, queryFingerprint);
+            }
+            // cached lines of finished folders have to be on disk before the frontier
+            this.checkpoint.setBeforeSave(this::flushCache);
+            crawler.setCheckpoint(this.checkpoint);
+            this.checkpoint.start();
+        }
+        List<DependencyTree> trees;
+        boolean complete = false;
+        boolean indexFailed = false;
+        try {
+            if (this.indexLocations != null && !this.indexLocations.isEmpty()) {
+                List<String> pomUrls;
+                try {
+                    pomUrls = readIndexPomUrls();
+                } catch (IOException e) {
+                    // a partial index would scan a wrong set of poms, nothing is scanned
+                    System.out.println(e.getClass() + ", msg: " + e.getMessage());
+                    pomUrls = new ArrayList<>();
+                    indexFailed = true;
+                }
+                trees = crawler.crawlPoms(selectPoms(pomUrls, roots));
+            } else if (LocalRepositoryFetcher.isLocal(this.repositoryUrl)) {
+                List<String> pomUrls = new ArrayList<>();
+                for (String localRoot : roots) {
+                    pomUrls.addAll(findLocalPomUrls(localRoot));
+                }
+                trees = crawler.crawlPoms(selectPoms(pomUrls, roots));
+            } else {
+                trees = crawler.crawl(roots);
+            }
+            trees.addAll(retryFailed(queryDependencies));
+            // failed folders stay pending in the checkpoint for a resume
+            complete = !Thread.currentThread().isInterrupted() && this.failedUrls.isEmpty() && !indexFailed;
+        } finally {
+            if (this.manifest != null) {
+                this.manifest.save();
+            }
+            if (this.checkpoint != null) {
+                this.checkpoint.stop(complete);
+            }
+        }
         System.out.println("dep scanned: " + trees.size());
+        if (this.pomResolver != null) {
+            System.out.println("parent poms fetched: " + this.pomResolver.getFetchCount() + ", from pom cache: " + this.pomResolver.getDiskHitCount());
+        }
         return trees;
     }
 
-    private List<DependencyTree> scanUrlDirectory(String url, List<Dependency> queryDependencies) {
-        List<DependencyTree> result = new ArrayList<>();
-
-        if (!this.dependencyCache.isEmpty()) {
-            List<DependencyTree> cachedTrees = findCachedDependencyTrees(this.dependencyCache, this.repositoryUrl, url);
-            if (!cachedTrees.isEmpty()) {
-                this.cacheUsageCount += cachedTrees.size();
-                return result;
+    /**
+     * scan failed folders and poms again, results are appended after those of the crawl
+     */
+    private List<DependencyTree> retryFailed(List<Dependency> queryDependencies) {
+        List<DependencyTree> trees = new ArrayList<>();
+        for (int round = 0; round < this.retryFailedRounds && !this.failedUrls.isEmpty()
+                && !Thread.currentThread().isInterrupted(); round++) {
+            List<String> folders = new ArrayList<>();
+            List<String> poms = new ArrayList<>();
+            for (String url : new ArrayList<>(this.failedUrls)) {
+                this.failedUrls.remove(url);
+                (isFolder(url) ? folders : poms).add(url);
             }
+            Collections.sort(folders);
+            Collections.sort(poms);
+            System.out.println("retry failed folders: " + folders.size() + ", poms: " + poms.size());
+            trees.addAll(new RepositoryCrawler(this, queryDependencies, this.threads, this.virtualThreads).crawlFolders(folders));
+            trees.addAll(new RepositoryCrawler(this, queryDependencies, this.threads, this.virtualThreads).crawlPoms(poms));
+        }
+        if (!this.failedUrls.isEmpty()) {
+            System.out.println("failed urls: " + this.failedUrls.size());
+            for (String url : this.failedUrls) {
+                System.out.println(" " + url);
+            }
+        }
+        return trees;
+    }
+
+    /**
+     * remember a url failed by a network error or a 429/5xx response, other errors would fail again
+     */
+    void addFailure(String url, IOException e) {
+        if (!(e instanceof FetchResponse.StatusException) || AdaptiveFetcher.isRetryable(((FetchResponse.StatusException) e).getStatusCode())) {
+            this.failedUrls.add(url);
+        }
+    }
+
+    /**
+     * @param url folder or pom
+     * @return true if the last request of the url failed and is to be retried
+     */
+    boolean isFailed(String url) {
+        return this.failedUrls.contains(url);
+    }
+
+    private List<String> readIndexPomUrls() throws IOException {
+        RepositoryIndexReader indexReader = new RepositoryIndexReader(this.fetcher);
+        indexReader.setSubdirectory(this.subdirectories.size() == 1 ? this.subdirectories.get(0) : "");
+        List<String> pomUrls = new ArrayList<>();
+        for (Dependency artifact : indexReader.readArtifacts(this.indexLocations)) {
+            pomUrls.add(this.repositoryUrl + RepositoryIndexReader.toFolder(artifact) + RepositoryIndexReader.toPomName(artifact));
         }
+        return pomUrls;
+    }
 
-        UrlDirectory urlDir = readUrlDirectory(this.repositoryUrl, url);
-        if (!urlDir.getFolders().isEmpty()) {
-            for (String folder : urlDir.getFolders()) {
-                //System.out.println("scan subfolder: " + folder);
-                List<DependencyTree> dependencyTrees = scanUrlDirectory(folder, queryDependencies);
-                if (!dependencyTrees.isEmpty()) {
-                    result.addAll(dependencyTrees);
+    /**
+     * keep poms within the roots and accepted by the path filter
+     */
+    private List<String> selectPoms(List<String> pomUrls, List<String> roots) {
+        List<String> paths = new ArrayList<>(pomUrls.size());
+        for (String pom : pomUrls) {
+            for (String root : roots) {
+                if (pom.startsWith(root)) {
+                    paths.add(toPath(pom));
+                    break;
                 }
             }
         }
-        if (!urlDir.getPoms().isEmpty()) {
-            for (String pom : urlDir.getPoms()) {
-                //System.out.println("check pom: " + pom);
-                List<DependencyTree> dependencyTrees = lookForDependenciesInPom(pom, queryDependencies);
-                if (!dependencyTrees.isEmpty()) {
-                    result.addAll(dependencyTrees);
-                }
+        if (this.pathFilter != null) {
+            paths = this.pathFilter.selectPoms(paths);
+        }
+        List<String> selected = new ArrayList<>(paths.size());
+        for (String path : paths) {
+            selected.add(this.repositoryUrl + path);
+        }
+        if (selected.size() < pomUrls.size()) {
+            System.out.println("poms selected: " + selected.size() + " of " + pomUrls.size());
+        }
+        return selected;
+    }
+
+    /**
+     * keep subfolders worth listing
+     * 
+     * @param folderUrls of a listing
+     * @return urls in listing order
+     */
+    List<String> selectFolders(List<String> folderUrls) {
+        if (this.pathFilter == null) {
+            return folderUrls;
+        }
+        Map<String, String> urlsByPath = new LinkedHashMap<>();
+        for (String url : folderUrls) {
+            urlsByPath.put(toPath(url), url);
+        }
+        List<String> selected = new ArrayList<>();
+        for (String path : this.pathFilter.selectFolders(new ArrayList<>(urlsByPath.keySet()))) {
+            selected.add(urlsByPath.get(path));
+        }
+        return selected;
+    }
+
+    /**
+     * @param folderUrl
+     * @return true if poms of the folder are scanned
+     */
+    boolean isAccepted(String folderUrl) {
+        return this.pathFilter == null || this.pathFilter.isAccepted(toPath(folderUrl));
+    }
+
+    private String toPath(String url) {
+        return url.startsWith(this.repositoryUrl) ? url.substring(this.repositoryUrl.length()) : url;
+    }
+
+    private static List<String> findLocalPomUrls(String root) {
+        try {
+            List<String> pomUrls = LocalRepositoryFetcher.findPomUrls(root);
+            System.out.println("poms in local repository: " + pomUrls.size());
+            return pomUrls;
+        } catch (IOException | RuntimeException e) {
+            System.out.println(e.getClass() + ", msg: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    private void flushCache() {
+        if (this.cacheWriter != null) {
+            this.cacheWriter.flush();
+        }
+    }
+
+    /**
+     * fingerprint of query and postfixes, checked poms are invalid if it changes
+     * 
+     * @param queryDependencies
+     * @return
+     */
+    String createQueryFingerprint(List<Dependency> queryDependencies) {
+        StringBuilder query = new StringBuilder(String.valueOf(this.ignorePostfixCsv));
+        for (Dependency dep : queryDependencies) {
+            query.append(',').append(dep.getArtifactId());
+        }
+        if (this.pathFilter != null && !this.pathFilter.isEmpty()) {
+            // skipped folders would count as checked otherwise
+            query.append(',').append(this.pathFilter);
+        }
+        return Integer.toHexString(query.toString().hashCode()) + "-" + queryDependencies.size();
+    }
+
+    /**
+     * check cache for an already scanned version folder and count its usage
+     * 
+     * @param url
+     * @return true if url can be skipped
+     */
+    boolean isCached(String url) {
+        if (!this.dependencyCache.isEmpty()) {
+            List<DependencyTree> cachedTrees = findCachedDependencyTrees(this.dependencyCache, this.repositoryUrl, url);
+            if (!cachedTrees.isEmpty()) {
+                this.cacheUsageCount.addAndGet(cachedTrees.size());
+                return true;
             }
         }
-        return result;
+        return false;
     }
 
     /**
@@ -135,21 +572,28 @@ public class RepositoryUrlReader {
      * @return empty list if nothing found
      */
     public static List<DependencyTree> findCachedDependencyTrees(List<DependencyTree> cache, String repoUrl, String url) {
-        List<DependencyTree> foundTrees = new ArrayList<>();
+        return findCachedDependencyTrees(new DependencyCacheIndex(cache), repoUrl, url);
+    }
+
+    /**
+     * find dependency by repository url from indexed cache,
+     * the url is only parsed if the cache holds anything within its folder
+     * 
+     * @param cache
+     * @param repoUrl
+     * @param url
+     * @return empty list if nothing found
+     */
+    public static List<DependencyTree> findCachedDependencyTrees(DependencyCacheIndex cache, String repoUrl, String url) {
+        String folder = url.startsWith(repoUrl) ? url.substring(repoUrl.length()) : url;
+        if (!cache.containsFolder(folder)) {
+            return new ArrayList<>();
+        }
         Dependency currentDependency = parseDependencyFromUrl(repoUrl, url);
         if (currentDependency != null) {
-            for (DependencyTree tree : cache) {
-                if (tree.getUsedBy().isEmpty()) {
-                    continue;
-                }
-                Dependency d = tree.getUsedBy().get(0).getDependency();
-                if (d.getArtifactId().equals(currentDependency.getArtifactId()) && d.getGroupId().equals(currentDependency.getGroupId())
-                        && d.getVersion().equals(currentDependency.getVersion())) {
-                    foundTrees.add(tree);
-                }
-            }
+            return cache.find(currentDependency);
         }
-        return foundTrees;
+        return new ArrayList<>();
     }
 
     /**
@@ -183,38 +627,107 @@ public class RepositoryUrlReader {
         return null;
     }
 
-    private static UrlDirectory readUrlDirectory(String baseUrl, String url) {
-        Pattern findurl = Pattern.compile(REGEX_HYPERLINK);
+    UrlDirectory readUrlDirectory(String url) {
+        DirectoryManifest.Entry known = this.manifest == null ? null : this.manifest.get(url);
+        if (known != null && known.isFresh(this.manifest.getTtlMillis())) {
+            return known.toUrlDirectory(skipCheckedPoms());
+        }
         UrlDirectory urlDirectory = new UrlDirectory();
-        try {
-            URLConnection yc = new URL(url).openConnection();
-            //System.out.println("checking url: " + url);
-            BufferedReader in = new BufferedReader(new InputStreamReader(yc.getInputStream()));
-            String inputLine;
-            while ((inputLine = in.readLine()) != null) {
-                Matcher match = findurl.matcher(inputLine);
-                while (match.find()){
-                    String link = match.group(1);
-                    //System.out.println("link found: " + link);
-                    if (isSubFolderOrFile(link) && !link.contains(url)) {
-                        link = url + link;
-                    }
-                    if (isFolder(link)) {
-                        urlDirectory.getFolders().add(link);
-                        //System.out.println("folder found: " + link);
-                    } else if (isPom(link)) {
-                        urlDirectory.getPoms().add(link);
-                        //System.out.println("pom found: " + link);
-                    }
-                }
+        Map<String, String> headers = new HashMap<>();
+        if (known != null) {
+            if (known.getEtag() != null) {
+                headers.put("If-None-Match", known.getEtag());
+            }
+            if (known.getLastModified() != null) {
+                headers.put("If-Modified-Since", known.getLastModified());
+            }
+        }
+        Semaphore permit = acquireHostPermit(url);
+        //System.out.println("checking url: " + url);
+        long start = System.nanoTime();
+        try (FetchResponse response = this.fetcher.fetch(url, headers)) {
+            this.metrics.addListing();
+            if (known != null && response.isNotModified()) {
+                known.touch();
+                return known.toUrlDirectory(skipCheckedPoms());
+            }
+            BufferedReader in = new BufferedReader(new InputStreamReader(this.metrics.countBytes(response.getBody()), StandardCharsets.UTF_8));
+            parseUrlDirectory(in, url, urlDirectory);
+            if (this.manifest != null) {
+                DirectoryManifest.Entry entry = this.manifest.put(url, response.getHeader("ETag"), response.getHeader("Last-Modified"), urlDirectory);
+                return entry.toUrlDirectory(skipCheckedPoms());
             }
-            in.close();
         } catch (IOException e) {
             e.printStackTrace();
+            addFailure(url, e);
+        } finally {
+            this.metrics.record(CrawlMetrics.Phase.LISTING_FETCH, start);
+            releaseHostPermit(permit);
         }
         return urlDirectory;
     }
 
+    private static void parseUrlDirectory(BufferedReader in, String url, UrlDirectory urlDirectory) throws IOException {
+        Pattern findurl = Pattern.compile(REGEX_HYPERLINK);
+        String inputLine;
+        while ((inputLine = in.readLine()) != null) {
+            Matcher match = findurl.matcher(inputLine);
+            while (match.find()){
+                String link = match.group(1);
+                //System.out.println("link found: " + link);
+                if (isSubFolderOrFile(link) && !link.contains(url)) {
+                    link = url + link;
+                }
+                if (isFolder(link)) {
+                    urlDirectory.getFolders().add(link);
+                    //System.out.println("folder found: " + link);
+                } else if (isPom(link)) {
+                    urlDirectory.getPoms().add(link);
+                    //System.out.println("pom found: " + link);
+                }
+            }
+        }
+    }
+
+    /**
+     * poms checked by a former scan are only skipped if their results are in the cache
+     */
+    private boolean skipCheckedPoms() {
+        return this.cacheWriter != null;
+    }
+
+    /**
+     * remember that all poms of the directory have been checked
+     * 
+     * @param url
+     */
+    void markScanned(String url) {
+        if (this.manifest != null) {
+            this.manifest.markScanned(url);
+        }
+    }
+
+    private Semaphore acquireHostPermit(String url) {
+        if (this.hostConcurrency <= 0) {
+            return null;
+        }
+        String host;
+        try {
+            host = new URL(url).getHost();
+        } catch (IOException e) {
+            return null;
+        }
+        Semaphore permit = this.hostPermits.computeIfAbsent(host, h -> new Semaphore(this.hostConcurrency));
+        permit.acquireUninterruptibly();
+        return permit;
+    }
+
+    private static void releaseHostPermit(Semaphore permit) {
+        if (permit != null) {
+            permit.release();
+        }
+    }
+
     /**
      * check string if subdirectory or file
      * 
@@ -254,67 +767,134 @@ public class RepositoryUrlReader {
         return false;
     }
 
-    private List<DependencyTree> lookForDependenciesInPom(String pom, List<Dependency> queryDependencies) {
-        List<DependencyTree> foundDTrees = new ArrayList<>(); //new DependencyTree();
-        MavenXpp3Reader reader = new MavenXpp3Reader();
+    List<DependencyTree> lookForDependenciesInPom(String pom, List<Dependency> queryDependencies) {
+        PomInfo pomInfo;
         try {
-            Model model = reader.read(new StringReader(readPomFromUrl(pom)));
-            for (Dependency dep : queryDependencies) {
-                if (dep.getArtifactId().isEmpty()) {
-                    continue;
-                }
-                DependencyTree used = findDependent(model, dep, this.ignorePostfixCsv);
-                if (used.getDependency() != null) {
-                    DependencyTree deptree = new DependencyTree();
-                    deptree.setDependency(used.getDependency());
-                    Dependency usedBy = mapMavenModelToDependency(model);
-                    deptree.getUsedBy().add(new DependencyTree(usedBy));
-                    foundDTrees.add(deptree);
-                    //System.out.println(used.getDependency().getArtifactId() + "," + used.getDependency().getGroupId() + "," + used.getDependency().getVersionId()
-                    //    + "," + model.getArtifactId() + "," + model.getGroupId() + "," + model.getVersion());
-                    if (this.cacheWriter != null) {
-                        this.cacheWriter.appendToFile(used.getDependency(), usedBy);
-                    }
-                }
-            }
+            pomInfo = readPom(pom, this.pomReader);
         } catch (IOException | XmlPullParserException e) {
             e.printStackTrace();
+            if (e instanceof IOException) {
+                addFailure(pom, (IOException) e);
+            }
+            return new ArrayList<>();
+        }
+        // parents are fetched after the permit of the pom is released
+        try {
+            return lookForDependenciesInPom(pomInfo, queryDependencies);
+        } catch (IOException e) {
+            // a parent failed, the pom is retried
+            System.out.println(e.getClass() + ", msg: " + e.getMessage());
+            addFailure(pom, e);
+            return new ArrayList<>();
         }
+    }
 
+    /**
+     * read parent or bom pom of this repository completely
+     * 
+     * @param gav
+     * @return
+     * @throws IOException
+     * @throws XmlPullParserException
+     */
+    PomInfo readPom(Dependency gav) throws IOException, XmlPullParserException {
+        String url = this.repositoryUrl + RepositoryIndexReader.toFolder(gav) + RepositoryIndexReader.toPomName(gav);
+        return readPom(url, this.pomReader.completeReader());
+    }
+
+    private PomInfo readPom(String url, PomReader reader) throws IOException, XmlPullParserException {
+        Semaphore permit = acquireHostPermit(url);
+        long start = System.nanoTime();
+        try (FetchResponse response = this.fetcher.fetch(url, Collections.<String, String>emptyMap())) {
+            this.metrics.record(CrawlMetrics.Phase.POM_FETCH, start);
+            this.metrics.addPom();
+            long parseStart = System.nanoTime();
+            PomInfo pom = reader.read(this.metrics.countBytes(response.getBody()));
+            this.metrics.record(CrawlMetrics.Phase.PARSE, parseStart);
+            return pom;
+        } finally {
+            releaseHostPermit(permit);
+        }
+    }
+
+    /**
+     * download pom completely, for parsing in another thread
+     * 
+     * @param url
+     * @return content of the pom
+     * @throws IOException
+     */
+    byte[] fetchPom(String url) throws IOException {
+        Semaphore permit = acquireHostPermit(url);
+        long start = System.nanoTime();
+        try (FetchResponse response = this.fetcher.fetch(url, Collections.<String, String>emptyMap())) {
+            this.metrics.record(CrawlMetrics.Phase.POM_FETCH, start);
+            this.metrics.addPom();
+            return this.metrics.countBytes(response.getBody()).readAllBytes();
+        } finally {
+            releaseHostPermit(permit);
+        }
+    }
+
+    PomInfo parsePom(byte[] content) throws IOException, XmlPullParserException {
+        long start = System.nanoTime();
+        PomInfo pom = this.pomReader.read(new ByteArrayInputStream(content));
+        this.metrics.record(CrawlMetrics.Phase.PARSE, start);
+        return pom;
+    }
+
+    List<DependencyTree> lookForDependenciesInPom(PomInfo pom, List<Dependency> queryDependencies) throws IOException {
+        List<DependencyTree> foundDTrees = matchPom(pom, queryDependencies);
+        writeToCache(foundDTrees);
         return foundDTrees;
     }
 
-    private static String readPomFromUrl(String pomUrl) {
-        String file = "";
-        try {
-            URL url = new URL(pomUrl);
-            URLConnection yc = url.openConnection();
-            BufferedReader in = new BufferedReader(new InputStreamReader(yc.getInputStream()));
-            String inputLine;
-            while ((inputLine = in.readLine()) != null) { 
-                //System.out.println(inputLine);
-                file += inputLine;
-            }
-            in.close();
-        } catch (IOException e) {
-            e.printStackTrace();
+    /**
+     * find query dependencies in pom
+     * 
+     * @param pom
+     * @param queryDependencies
+     * @return reversed DependencyTrees of the pom
+     * @throws IOException if a parent of the pom could not be fetched for now
+     */
+    List<DependencyTree> matchPom(PomInfo pom, List<Dependency> queryDependencies) throws IOException {
+        List<DependencyTree> foundDTrees = new ArrayList<>(); //new DependencyTree();
+        long start = System.nanoTime();
+        List<Dependency> matches = getQueryMatcher(queryDependencies).match(pom.getDependencies());
+        this.metrics.record(CrawlMetrics.Phase.MATCH, start);
+        this.metrics.addDependenciesFound(matches.size());
+        for (Dependency dep : matches) {
+            Dependency used = new Dependency(dep.getArtifactId(), dep.getGroupId(), resolveVersion(pom, dep));
+            DependencyTree deptree = new DependencyTree();
+            deptree.setDependency(used);
+            Dependency usedBy = pom.getEffectiveProject();
+            deptree.addUsedBy(new DependencyTree(usedBy));
+            foundDTrees.add(deptree);
         }
-        return file;
+        return foundDTrees;
     }
 
-    private static DependencyTree findDependent(Model model, Dependency dependencyToFind, String ignorePostfixCsv) {
-        DependencyTree deptree = new DependencyTree();
-        for (org.apache.maven.model.Dependency dep : model.getDependencies()) {
-            if (matchesArtifactIdIgnorePostfix(dep.getArtifactId(), dependencyToFind.getArtifactId(), ignorePostfixCsv)) {
-                String artifactId = dep.getArtifactId();
-                String groupId = dep.getGroupId();
-                String version = getModelDependencyVersion(model, dep.getVersion());
-                Dependency dependency = new Dependency(artifactId, groupId, version);
-                deptree.setDependency(dependency);
-                break;
-            }
+    void writeToCache(List<DependencyTree> foundDTrees) {
+        if (this.cacheWriter == null) {
+            return;
+        }
+        for (DependencyTree deptree : foundDTrees) {
+            long start = System.nanoTime();
+            this.cacheWriter.appendToFile(deptree.getDependency(), deptree.getUsedBy().get(0).getDependency());
+            this.metrics.record(CrawlMetrics.Phase.CACHE_WRITE, start);
         }
-        return deptree;
+    }
+
+    /**
+     * query and postfixes are compiled once and reused for all poms of the scan
+     */
+    private QueryMatcher getQueryMatcher(List<Dependency> queryDependencies) {
+        QueryMatcher matcher = this.queryMatcher;
+        if (matcher == null || matcher.getQueryDependencies() != queryDependencies) {
+            matcher = new QueryMatcher(queryDependencies, this.ignorePostfixCsv);
+            this.queryMatcher = matcher;
+        }
+        return matcher;
     }
 
     public static boolean matchesArtifactIdIgnorePostfix(String artifactId, String mArtifactId, String ignorePostfixCsv) {
@@ -334,27 +914,21 @@ public class RepositoryUrlReader {
         return false;
     }
 
-    private static String getModelDependencyVersion(Model model, String version) {
+    private String resolveVersion(PomInfo pom, Dependency dep) throws IOException {
+        if (this.pomResolver != null) {
+            return this.pomResolver.resolveVersion(pom, dep);
+        }
+        return getModelDependencyVersion(pom, dep.getVersion());
+    }
+
+    private static String getModelDependencyVersion(PomInfo pom, String version) {
         String out = version;
         if (version == null) {
             out = "";
         } else if (version.startsWith("$")) {
-            out = model.getProperties().getProperty(version.substring(2, version.length()-1));
+            out = pom.getProperties().getProperty(version.substring(2, version.length()-1));
         }
         return out;
     }
 
-    private static Dependency mapMavenModelToDependency(Model model) {
-        String artifactId = model.getArtifactId();
-        String groupId = model.getGroupId();
-        if (groupId == null && model.getParent() != null) {
-            groupId = model.getParent().getGroupId();
-        }
-        String version = model.getVersion();
-        if (version == null && model.getParent() != null) {
-            version = model.getParent().getVersion();
-        }
-        return new Dependency(artifactId, groupId, version);
-    }
-
-}
\ No newline at end of file
+}
@@ -0,0 +1,201 @@
+package at.catalysts.tools.reversedependencies.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+import org.codehaus.plexus.util.ReaderFactory;
+import org.codehaus.plexus.util.xml.pull.MXParser;
+import org.codehaus.plexus.util.xml.pull.XmlPullParser;
+import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
+
+import at.catalysts.tools.reversedependencies.data.Dependency;
+import at.catalysts.tools.reversedependencies.data.PomInfo;
+
+/**
+ * Read a pom with a pull parser without building the maven model
+ * <br><br>
+ * keeps coordinates, parent, properties, dependencies and dependency management only, all other
+ * elements are skipped. Parsing stops after the dependencies as soon as coordinates, needed properties
+ * and the managed versions of dependencies without version are known, unless the reader is complete.
+ *
+ */
+public class StreamingPomReader implements PomReader {
+
+    private static final String DEFAULT_TYPE = "jar";
+
+    /**
+     * html entities of latin-1, defined like the maven model reader does to accept them in descriptions
+     */
+    private static final String[] LATIN1_ENTITIES = {"nbsp", "iexcl", "cent", "pound", "curren", "yen", "brvbar", "sect",
+        "uml", "copy", "ordf", "laquo", "not", "shy", "reg", "macr", "deg", "plusmn", "sup2", "sup3", "acute", "micro",
+        "para", "middot", "cedil", "sup1", "ordm", "raquo", "frac14", "frac12", "frac34", "iquest", "Agrave", "Aacute",
+        "Acirc", "Atilde", "Auml", "Aring", "AElig", "Ccedil", "Egrave", "Eacute", "Ecirc", "Euml", "Igrave", "Iacute",
+        "Icirc", "Iuml", "ETH", "Ntilde", "Ograve", "Oacute", "Ocirc", "Otilde", "Ouml", "times", "Oslash", "Ugrave",
+        "Uacute", "Ucirc", "Uuml", "Yacute", "THORN", "szlig", "agrave", "aacute", "acirc", "atilde", "auml", "aring",
+        "aelig", "ccedil", "egrave", "eacute", "ecirc", "euml", "igrave", "iacute", "icirc", "iuml", "eth", "ntilde",
+        "ograve", "oacute", "ocirc", "otilde", "ouml", "divide", "oslash", "ugrave", "uacute", "ucirc", "uuml", "yacute",
+        "thorn", "yuml"};
+    private static final String[][] SPECIAL_ENTITIES = {{"ndash", "\u2013"}, {"mdash", "\u2014"}, {"lsquo", "\u2018"},
+        {"rsquo", "\u2019"}, {"ldquo", "\u201c"}, {"rdquo", "\u201d"}, {"bull", "\u2022"}, {"hellip", "\u2026"},
+        {"trade", "\u2122"}, {"euro", "\u20ac"}};
+
+    private final boolean stopAfterDependencies;
+
+    public StreamingPomReader() {
+        this(true);
+    }
+
+    /**
+     * @param stopAfterDependencies false to read the whole pom, eg. for parents
+     */
+    public StreamingPomReader(boolean stopAfterDependencies) {
+        this.stopAfterDependencies = stopAfterDependencies;
+    }
+
+    @Override
+    public PomReader completeReader() {
+        return stopAfterDependencies ? new StreamingPomReader(false) : this;
+    }
+
+    @Override
+    public PomInfo read(InputStream in) throws IOException, XmlPullParserException {
+        MXParser parser = new MXParser();
+        parser.setInput(ReaderFactory.newXmlReader(in));
+        // setInput resets the parser, entities have to be defined afterwards
+        defineEntities(parser);
+
+        PomInfo pom = new PomInfo();
+        boolean propertiesRead = false;
+        boolean managementRead = false;
+        int eventType = parser.getEventType();
+        while (eventType != XmlPullParser.START_TAG) {
+            eventType = parser.next();
+        }
+        // children of project
+        while (parser.nextTag() == XmlPullParser.START_TAG) {
+            String name = parser.getName();
+            if ("groupId".equals(name)) {
+                pom.getProject().setGroupId(parser.nextText().trim());
+            } else if ("artifactId".equals(name)) {
+                pom.getProject().setArtifactId(parser.nextText().trim());
+            } else if ("version".equals(name)) {
+                pom.getProject().setVersion(parser.nextText().trim());
+            } else if ("parent".equals(name)) {
+                pom.setParent(readCoordinates(parser));
+            } else if ("properties".equals(name)) {
+                readProperties(parser, pom);
+                propertiesRead = true;
+            } else if ("dependencyManagement".equals(name)) {
+                readDependencyManagement(parser, pom);
+                managementRead = true;
+            } else if ("dependencies".equals(name)) {
+                readDependencies(parser, pom.getDependencies());
+                if (stopAfterDependencies && isComplete(pom, propertiesRead, managementRead)) {
+                    break;
+                }
+            } else {
+                skipElement(parser);
+            }
+        }
+        return pom;
+    }
+
+    /**
+     * everything needed is known when coordinates are found, no dependency version
+     * refers to properties and no dependency lacks a version which may still follow
+     */
+    private static boolean isComplete(PomInfo pom, boolean propertiesRead, boolean managementRead) {
+        Dependency project = pom.getProject();
+        boolean inherited = pom.getParent() != null;
+        if (project.getArtifactId() == null || (project.getGroupId() == null && !inherited)
+                || (project.getVersion() == null && !inherited)) {
+            return false;
+        }
+        for (Dependency dep : pom.getDependencies()) {
+            if (dep.getVersion() == null && !managementRead) {
+                return false;
+            }
+            if (dep.getVersion() != null && dep.getVersion().startsWith("$") && !propertiesRead) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void readDependencyManagement(XmlPullParser parser, PomInfo pom) throws IOException, XmlPullParserException {
+        while (parser.nextTag() == XmlPullParser.START_TAG) {
+            if ("dependencies".equals(parser.getName())) {
+                readDependencies(parser, pom.getDependencyManagement());
+            } else {
+                skipElement(parser);
+            }
+        }
+    }
+
+    private static void readDependencies(XmlPullParser parser, List<Dependency> dependencies) throws IOException, XmlPullParserException {
+        while (parser.nextTag() == XmlPullParser.START_TAG) {
+            if ("dependency".equals(parser.getName())) {
+                dependencies.add(readCoordinates(parser));
+            } else {
+                skipElement(parser);
+            }
+        }
+    }
+
+    private static Dependency readCoordinates(XmlPullParser parser) throws IOException, XmlPullParserException {
+        Dependency dependency = new Dependency(null, null, null);
+        dependency.setType(DEFAULT_TYPE);
+        while (parser.nextTag() == XmlPullParser.START_TAG) {
+            String name = parser.getName();
+            if ("groupId".equals(name)) {
+                dependency.setGroupId(parser.nextText().trim());
+            } else if ("artifactId".equals(name)) {
+                dependency.setArtifactId(parser.nextText().trim());
+            } else if ("version".equals(name)) {
+                dependency.setVersion(parser.nextText().trim());
+            } else if ("scope".equals(name)) {
+                dependency.setScope(parser.nextText().trim());
+            } else if ("type".equals(name)) {
+                dependency.setType(parser.nextText().trim());
+            } else {
+                skipElement(parser);
+            }
+        }
+        return dependency;
+    }
+
+    private static void readProperties(XmlPullParser parser, PomInfo pom) throws IOException, XmlPullParserException {
+        while (parser.nextTag() == XmlPullParser.START_TAG) {
+            String name = parser.getName();
+            pom.getProperties().setProperty(name, parser.nextText().trim());
+        }
+    }
+
+    /**
+     * skip current element including all children
+     */
+    private static void skipElement(XmlPullParser parser) throws IOException, XmlPullParserException {
+        int depth = 1;
+        while (depth > 0) {
+            int eventType = parser.next();
+            if (eventType == XmlPullParser.START_TAG) {
+                depth++;
+            } else if (eventType == XmlPullParser.END_TAG) {
+                depth--;
+            } else if (eventType == XmlPullParser.END_DOCUMENT) {
+                throw new XmlPullParserException("unexpected end of document", parser, null);
+            }
+        }
+    }
+
+    private static void defineEntities(MXParser parser) throws XmlPullParserException {
+        for (int i = 0; i < LATIN1_ENTITIES.length; i++) {
+            parser.defineEntityReplacementText(LATIN1_ENTITIES[i], String.valueOf((char) (160 + i)));
+        }
+        for (String[] entity : SPECIAL_ENTITIES) {
+            parser.defineEntityReplacementText(entity[0], entity[1]);
+        }
+    }
+
+}
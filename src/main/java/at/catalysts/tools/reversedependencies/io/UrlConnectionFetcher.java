@@ -0,0 +1,57 @@
+package at.catalysts.tools.reversedependencies.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.time.Duration;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Fetch resources with URLConnection, for any protocol supported by URL (http, https, file, jar)
+ * <br><br>
+ * http connections are kept alive by the jvm as long as responses are read completely and closed
+ *
+ */
+public class UrlConnectionFetcher implements UrlFetcher {
+
+    private static final String ENCODING_GZIP = "gzip";
+
+    private final int connectTimeoutMillis;
+    private final int readTimeoutMillis;
+
+    public UrlConnectionFetcher() {
+        this(HttpClientFetcher.DEFAULT_CONNECT_TIMEOUT, HttpClientFetcher.DEFAULT_READ_TIMEOUT);
+    }
+
+    public UrlConnectionFetcher(Duration connectTimeout, Duration readTimeout) {
+        this.connectTimeoutMillis = (int) connectTimeout.toMillis();
+        this.readTimeoutMillis = (int) readTimeout.toMillis();
+    }
+
+    @Override
+    public FetchResponse fetch(String url, Map<String, String> headers) throws IOException {
+        URLConnection connection = new URL(url).openConnection();
+        connection.setConnectTimeout(connectTimeoutMillis);
+        connection.setReadTimeout(readTimeoutMillis);
+        connection.setRequestProperty("Accept-Encoding", ENCODING_GZIP);
+        headers.forEach(connection::setRequestProperty);
+
+        int statusCode = FetchResponse.HTTP_OK;
+        InputStream body;
+        if (connection instanceof HttpURLConnection) {
+            HttpURLConnection http = (HttpURLConnection) connection;
+            statusCode = http.getResponseCode();
+            body = statusCode >= 400 ? http.getErrorStream() : http.getInputStream();
+        } else {
+            body = connection.getInputStream();
+        }
+        if (statusCode == FetchResponse.HTTP_OK && body != null && ENCODING_GZIP.equalsIgnoreCase(connection.getContentEncoding())) {
+            body = new GZIPInputStream(body);
+        }
+        return new FetchResponse(url, statusCode, connection::getHeaderField, body);
+    }
+
+}
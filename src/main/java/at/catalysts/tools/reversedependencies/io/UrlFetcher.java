@@ -0,0 +1,22 @@
+package at.catalysts.tools.reversedependencies.io;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Fetch repository resources like directory listings and pom files
+ *
+ */
+public interface UrlFetcher {
+
+    /**
+     * request url, the caller has to close the response
+     * 
+     * @param url
+     * @param headers additional request headers, eg: for conditional requests
+     * @return response with decoded body
+     * @throws IOException
+     */
+    FetchResponse fetch(String url, Map<String, String> headers) throws IOException;
+
+}
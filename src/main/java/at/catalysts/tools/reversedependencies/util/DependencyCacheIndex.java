@@ -0,0 +1,99 @@
+package at.catalysts.tools.reversedependencies.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import at.catalysts.tools.reversedependencies.data.Dependency;
+import at.catalysts.tools.reversedependencies.data.DependencyTree;
+
+/**
+ * Index of cached reverse dependency trees by their used-by dependency
+ * <br><br>
+ * trees are grouped by groupId:artifactId:version of the first used-by entry,
+ * additionally every repository folder path leading to a cached used-by dependency
+ * is kept so folders without any cached content can be passed without lookups
+ *
+ */
+public class DependencyCacheIndex {
+
+    private static final char KEY_SEPARATOR = ':';
+    private static final char PATH_SEPARATOR = '/';
+
+    private final Map<String, List<DependencyTree>> treesByUsedBy = new HashMap<>();
+    private final Set<String> folderPaths = new HashSet<>();
+
+    /**
+     * build index from cached trees, trees without used-by entry are ignored
+     *
+     * @param cache
+     */
+    public DependencyCacheIndex(List<DependencyTree> cache) {
+        for (DependencyTree tree : cache) {
+            add(tree);
+        }
+    }
+
+    /**
+     * add a cached tree to the index
+     *
+     * @param tree
+     */
+    public void add(DependencyTree tree) {
+        Dependency usedBy = tree.getFirstUsedBy();
+        if (usedBy == null || usedBy.getArtifactId() == null || usedBy.getGroupId() == null || usedBy.getVersion() == null) {
+            return;
+        }
+        treesByUsedBy.computeIfAbsent(createKey(usedBy), k -> new ArrayList<>()).add(tree);
+        addFolderPaths(usedBy);
+    }
+
+    public boolean isEmpty() {
+        return treesByUsedBy.isEmpty();
+    }
+
+    /**
+     * find cached trees used by the given dependency
+     *
+     * @param usedBy
+     * @return empty list if nothing found
+     */
+    public List<DependencyTree> find(Dependency usedBy) {
+        List<DependencyTree> trees = treesByUsedBy.get(createKey(usedBy));
+        return trees == null ? Collections.<DependencyTree>emptyList() : trees;
+    }
+
+    /**
+     * check if any cached used-by dependency is located within the repository folder
+     *
+     * @param folderPath relative to the repository, eg: org/apache/maven/
+     * @return false if the folder and all its subfolders are not cached
+     */
+    public boolean containsFolder(String folderPath) {
+        if (folderPath.startsWith("/")) {
+            folderPath = folderPath.substring(1);
+        }
+        if (!folderPath.isEmpty() && folderPath.charAt(folderPath.length() - 1) != PATH_SEPARATOR) {
+            folderPath += PATH_SEPARATOR;
+        }
+        return folderPaths.contains(folderPath);
+    }
+
+    private void addFolderPaths(Dependency usedBy) {
+        String path = usedBy.getGroupId().replace('.', PATH_SEPARATOR) + PATH_SEPARATOR
+                + usedBy.getArtifactId() + PATH_SEPARATOR + usedBy.getVersion() + PATH_SEPARATOR;
+        // add parent folders until one is already known
+        for (int end = path.length(); end > 0 && folderPaths.add(path.substring(0, end)); ) {
+            end = path.lastIndexOf(PATH_SEPARATOR, end - 2) + 1;
+        }
+    }
+
+    private static String createKey(Dependency dependency) {
+        return dependency.getGroupId() + KEY_SEPARATOR + dependency.getArtifactId() + KEY_SEPARATOR + dependency.getVersion();
+    }
+
+}
@@ -0,0 +1,320 @@
+package at.catalysts.tools.reversedependencies.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import at.catalysts.tools.reversedependencies.data.Dependency;
+import at.catalysts.tools.reversedependencies.data.DependencyTree;
+
+/**
+ * Reverse dependency graph of all cached dependencies for transitive impact queries
+ * <br><br>
+ * every distinct groupId, artifactId and version is a node with an int id, the edges from a
+ * dependency to the dependencies using it are kept in compressed sparse rows: the used-by ids
+ * of node n are targets[offsets[n]] to targets[offsets[n + 1] - 1].
+ * A dependency recorded without groupId or version also counts for every groupId or version.
+ * <br><br>
+ * queries run a breadth first search up to a depth, large frontiers are expanded in parallel.
+ *
+ */
+public class DependencyGraph {
+
+    private static final int PARALLEL_MIN_FRONTIER = 4096;
+    private static final int UNVISITED = -1;
+
+    private final Dependency[] nodes;
+    private final int[] offsets;
+    private final int[] targets;
+    private final int[] groupless;
+    private final int[] versionless;
+    private final Map<String, List<Integer>> nodesByArtifactId;
+    private int threads;
+    private int parallelMinFrontier;
+    private ForkJoinPool pool;
+
+    private DependencyGraph(Dependency[] nodes, int[] offsets, int[] targets, int[] groupless, int[] versionless,
+            Map<String, List<Integer>> nodesByArtifactId) {
+        this.nodes = nodes;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.groupless = groupless;
+        this.versionless = versionless;
+        this.nodesByArtifactId = nodesByArtifactId;
+        this.threads = Runtime.getRuntime().availableProcessors();
+        this.parallelMinFrontier = PARALLEL_MIN_FRONTIER;
+    }
+
+    /**
+     * build graph of reversed dependency trees, eg. read from the cache
+     *
+     * @param reverseDTs dependencies with their used by dependencies
+     * @return
+     */
+    public static DependencyGraph build(List<DependencyTree> reverseDTs) {
+        Map<String, Integer> ids = new HashMap<>();
+        List<Dependency> nodes = new ArrayList<>();
+        int edgeCount = 0;
+        for (DependencyTree revDT : reverseDTs) {
+            if (revDT.hasUsedBy()) {
+                edgeCount += revDT.getUsedBy().size();
+            }
+        }
+        int[] from = new int[edgeCount];
+        int[] to = new int[edgeCount];
+        int edge = 0;
+        for (DependencyTree revDT : reverseDTs) {
+            if (!revDT.hasUsedBy()) {
+                continue;
+            }
+            int dep = nodeId(revDT.getDependency(), ids, nodes);
+            for (DependencyTree usedBy : revDT.getUsedBy()) {
+                from[edge] = dep;
+                to[edge] = nodeId(usedBy.getDependency(), ids, nodes);
+                edge++;
+            }
+        }
+        int n = nodes.size();
+        int[] offsets = new int[n + 1];
+        for (int i = 0; i < edgeCount; i++) {
+            offsets[from[i] + 1]++;
+        }
+        for (int i = 0; i < n; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+        int[] fill = Arrays.copyOf(offsets, n);
+        int[] targets = new int[edgeCount];
+        for (int i = 0; i < edgeCount; i++) {
+            targets[fill[from[i]]++] = to[i];
+        }
+        // sort rows and drop duplicate edges of repeated cache lines
+        int[] compactOffsets = new int[n + 1];
+        int size = 0;
+        for (int i = 0; i < n; i++) {
+            Arrays.sort(targets, offsets[i], offsets[i + 1]);
+            compactOffsets[i] = size;
+            for (int j = offsets[i]; j < offsets[i + 1]; j++) {
+                if (j == offsets[i] || targets[j] != targets[j - 1]) {
+                    targets[size++] = targets[j];
+                }
+            }
+        }
+        compactOffsets[n] = size;
+
+        Dependency[] nodeArray = nodes.toArray(new Dependency[n]);
+        int[] groupless = new int[n];
+        int[] versionless = new int[n];
+        Map<String, List<Integer>> nodesByArtifactId = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            Dependency d = nodeArray[i];
+            groupless[i] = d.getGroupId().isEmpty() ? UNVISITED : ids.getOrDefault(createKey(d.getArtifactId(), "", d.getVersion()), UNVISITED);
+            versionless[i] = d.getVersion().isEmpty() ? UNVISITED : ids.getOrDefault(createKey(d.getArtifactId(), d.getGroupId(), ""), UNVISITED);
+            nodesByArtifactId.computeIfAbsent(d.getArtifactId(), a -> new ArrayList<>(1)).add(i);
+        }
+        return new DependencyGraph(nodeArray, compactOffsets, Arrays.copyOf(targets, size), groupless, versionless, nodesByArtifactId);
+    }
+
+    private static int nodeId(Dependency dep, Map<String, Integer> ids, List<Dependency> nodes) {
+        Dependency node = new Dependency(nullToEmpty(dep.getArtifactId()), nullToEmpty(dep.getGroupId()), nullToEmpty(dep.getVersion()));
+        Integer id = ids.get(createKey(node.getArtifactId(), node.getGroupId(), node.getVersion()));
+        if (id == null) {
+            id = nodes.size();
+            ids.put(createKey(node.getArtifactId(), node.getGroupId(), node.getVersion()), id);
+            nodes.add(node);
+        }
+        return id;
+    }
+
+    public int getNodeCount() {
+        return nodes.length;
+    }
+
+    public int getEdgeCount() {
+        return targets.length;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * @param threads expanding large frontiers in parallel, 1 to search sequentially
+     */
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    /**
+     * @param parallelMinFrontier smallest frontier expanded in parallel
+     */
+    void setParallelMinFrontier(int parallelMinFrontier) {
+        this.parallelMinFrontier = parallelMinFrontier;
+    }
+
+    /**
+     * find all dependencies using the query directly or transitively
+     *
+     * @param query artifactId with optional groupId and version, empty values match all
+     * @param maxDepth 1 for direct users only
+     * @return dependents ordered by depth, then by coordinates
+     */
+    public List<Dependent> findDependents(Dependency query, int maxDepth) {
+        AtomicIntegerArray depths = new AtomicIntegerArray(nodes.length);
+        for (int i = 0; i < nodes.length; i++) {
+            depths.set(i, UNVISITED);
+        }
+        int[] frontier = findNodes(query);
+        for (int id : frontier) {
+            depths.set(id, 0);
+        }
+        List<Dependent> dependents = new ArrayList<>();
+        for (int depth = 1; depth <= maxDepth && frontier.length > 0; depth++) {
+            frontier = expand(frontier, depths, depth);
+            Arrays.sort(frontier);
+            List<Dependent> level = new ArrayList<>(frontier.length);
+            for (int id : frontier) {
+                level.add(new Dependent(nodes[id], depth));
+            }
+            level.sort((a, b) -> createKey(a.getDependency()).compareTo(createKey(b.getDependency())));
+            dependents.addAll(level);
+        }
+        return dependents;
+    }
+
+    /**
+     * @param query
+     * @return ids of nodes matching the query
+     */
+    int[] findNodes(Dependency query) {
+        List<Integer> candidates = nodesByArtifactId.get(query.getArtifactId());
+        if (candidates == null) {
+            return new int[0];
+        }
+        String groupId = nullToEmpty(query.getGroupId());
+        String version = nullToEmpty(query.getVersion());
+        int[] found = new int[candidates.size()];
+        int count = 0;
+        for (int id : candidates) {
+            Dependency d = nodes[id];
+            if ((groupId.isEmpty() || d.getGroupId().isEmpty() || groupId.equals(d.getGroupId()))
+                    && (version.isEmpty() || d.getVersion().isEmpty() || version.equals(d.getVersion()))) {
+                found[count++] = id;
+            }
+        }
+        return Arrays.copyOf(found, count);
+    }
+
+    private int[] expand(int[] frontier, AtomicIntegerArray depths, int depth) {
+        if (threads <= 1 || frontier.length < parallelMinFrontier) {
+            return expand(frontier, 0, frontier.length, depths, depth);
+        }
+        int chunks = Math.min(threads * 4, frontier.length / Math.max(parallelMinFrontier / 4, 1));
+        chunks = Math.max(chunks, 2);
+        int chunkSize = (frontier.length + chunks - 1) / chunks;
+        List<Future<int[]>> parts = new ArrayList<>(chunks);
+        ForkJoinPool forkJoinPool = getPool();
+        for (int start = 0; start < frontier.length; start += chunkSize) {
+            int from = start;
+            int to = Math.min(start + chunkSize, frontier.length);
+            parts.add(forkJoinPool.submit(() -> expand(frontier, from, to, depths, depth)));
+        }
+        int[][] results = new int[parts.size()][];
+        int total = 0;
+        try {
+            for (int i = 0; i < results.length; i++) {
+                results[i] = parts.get(i).get();
+                total += results[i].length;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("dependency search interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("dependency search failed", e.getCause());
+        }
+        int[] next = new int[total];
+        int pos = 0;
+        for (int[] result : results) {
+            System.arraycopy(result, 0, next, pos, result.length);
+            pos += result.length;
+        }
+        return next;
+    }
+
+    /**
+     * visit users of the frontier nodes, a node is claimed by the first worker reaching it
+     */
+    private int[] expand(int[] frontier, int from, int to, AtomicIntegerArray depths, int depth) {
+        int[] next = new int[16];
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            int id = frontier[i];
+            for (int source : new int[] {id, groupless[id], versionless[id]}) {
+                if (source == UNVISITED || (source != id && depths.get(source) == 0)) {
+                    // aliases of a start node are expanded as start nodes themselves
+                    continue;
+                }
+                for (int e = offsets[source]; e < offsets[source + 1]; e++) {
+                    int target = targets[e];
+                    if (depths.get(target) == UNVISITED && depths.compareAndSet(target, UNVISITED, depth)) {
+                        if (count == next.length) {
+                            next = Arrays.copyOf(next, count * 2);
+                        }
+                        next[count++] = target;
+                    }
+                }
+            }
+        }
+        return Arrays.copyOf(next, count);
+    }
+
+    private synchronized ForkJoinPool getPool() {
+        if (pool == null) {
+            pool = new ForkJoinPool(threads);
+        }
+        return pool;
+    }
+
+    private static String createKey(Dependency d) {
+        return createKey(d.getArtifactId(), d.getGroupId(), d.getVersion());
+    }
+
+    private static String createKey(String artifactId, String groupId, String version) {
+        return artifactId + ':' + groupId + ':' + version;
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+
+    /**
+     * dependency using the queried one over a number of edges
+     */
+    public static class Dependent {
+
+        private final Dependency dependency;
+        private final int depth;
+
+        public Dependent(Dependency dependency, int depth) {
+            this.dependency = dependency;
+            this.depth = depth;
+        }
+
+        public Dependency getDependency() {
+            return dependency;
+        }
+
+        /**
+         * @return 1 for direct users
+         */
+        public int getDepth() {
+            return depth;
+        }
+    }
+
+}
@@ -0,0 +1,104 @@
+package at.catalysts.tools.reversedependencies.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import at.catalysts.tools.reversedependencies.data.Dependency;
+import at.catalysts.tools.reversedependencies.data.DependencyTree;
+
+/**
+ * Index of reversed dependency trees by artifactId and version of their first used-by dependency
+ * <br><br>
+ * matching only visits the trees used by a dependency in use instead of all trees,
+ * the result is the same as {@link DependencyMatcher#matchDependencyQuery(List, List, boolean)}
+ * on the full list. Indexed trees are not modified, so one index can serve any number of matches.
+ *
+ */
+public class DependencyMatchIndex {
+
+    private static final char KEY_SEPARATOR = ':';
+
+    private final List<DependencyTree> trees;
+    private final Map<String, int[]> positionsByUsedBy;
+
+    /**
+     * build index, trees without used-by entry are never matched
+     *
+     * @param reverseDTs
+     */
+    public DependencyMatchIndex(List<DependencyTree> reverseDTs) {
+        this.trees = reverseDTs;
+        Map<String, List<Integer>> positions = new HashMap<>();
+        for (int i = 0; i < reverseDTs.size(); i++) {
+            DependencyTree revDT = reverseDTs.get(i);
+            if (!revDT.hasUsedBy()) {
+                continue;
+            }
+            Dependency usedBy = revDT.getFirstUsedBy();
+            positions.computeIfAbsent(createKey(usedBy.getArtifactId(), usedBy.getVersion()), k -> new ArrayList<>(1)).add(i);
+        }
+        this.positionsByUsedBy = new HashMap<>(positions.size() * 4 / 3 + 1);
+        for (Map.Entry<String, List<Integer>> entry : positions.entrySet()) {
+            this.positionsByUsedBy.put(entry.getKey(), entry.getValue().stream().mapToInt(Integer::intValue).toArray());
+        }
+    }
+
+    public int size() {
+        return trees.size();
+    }
+
+    /**
+     * match a list of dependencies in use against the indexed trees
+     *
+     * @param matchDependencies
+     * @param matchMajorOnly reduce version of reversed dependencies to major version
+     * @return matches in order of the indexed trees
+     */
+    public List<DependencyTree> match(List<Dependency> matchDependencies, boolean matchMajorOnly) {
+        return DependencyMatcher.matchDependencyQuery(findCandidates(matchDependencies, matchMajorOnly), matchDependencies, matchMajorOnly);
+    }
+
+    /**
+     * @return trees used by any of the dependencies in use, in index order, copied if the matcher reduces their versions
+     */
+    private List<DependencyTree> findCandidates(List<Dependency> matchDependencies, boolean copy) {
+        int[] found = new int[16];
+        int count = 0;
+        for (Dependency matchD : matchDependencies) {
+            int[] positions = positionsByUsedBy.get(createKey(matchD.getArtifactId(), matchD.getVersion()));
+            if (positions == null) {
+                continue;
+            }
+            if (count + positions.length > found.length) {
+                found = Arrays.copyOf(found, Math.max(found.length * 2, count + positions.length));
+            }
+            System.arraycopy(positions, 0, found, count, positions.length);
+            count += positions.length;
+        }
+        Arrays.sort(found, 0, count);
+        List<DependencyTree> candidates = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            if (i > 0 && found[i] == found[i - 1]) {
+                continue;
+            }
+            DependencyTree tree = trees.get(found[i]);
+            candidates.add(copy ? copyTree(tree) : tree);
+        }
+        return candidates;
+    }
+
+    private static DependencyTree copyTree(DependencyTree tree) {
+        Dependency d = tree.getDependency();
+        DependencyTree copy = new DependencyTree(new Dependency(d.getArtifactId(), d.getGroupId(), d.getVersion()));
+        copy.addUsedBy(new DependencyTree(tree.getFirstUsedBy()));
+        return copy;
+    }
+
+    private static String createKey(String artifactId, String version) {
+        return artifactId + KEY_SEPARATOR + version;
+    }
+
+}
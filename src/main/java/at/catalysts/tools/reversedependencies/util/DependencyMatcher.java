@@ -1,7 +1,10 @@
 package at.catalysts.tools.reversedependencies.util;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import at.catalysts.tools.reversedependencies.data.Dependency;
 import at.catalysts.tools.reversedependencies.data.DependencyTree;
@@ -12,6 +15,8 @@ import at.catalysts.tools.reversedependencies.data.DependencyTree;
  */
 public class DependencyMatcher {
 
+    private static final char KEY_SEPARATOR = ':';
+
     /**
      * match a list of dependencies against reversed dependencies (their used by information)
      * 
@@ -23,37 +28,80 @@ public class DependencyMatcher {
         return matchDependencyQuery(reverseDTs, matchDependencies, false);
     }
 
+    /**
+     * match a list of dependencies against reversed dependencies (their used by information)
+     * <br>
+     * the dependencies in use are indexed by artifactId and version, matches are grouped
+     * by artifactId and version of the reversed dependency in order of their first occurrence
+     * keeping the first used by dependency only
+     * 
+     * @param reverseDTs
+     * @param matchDependencies
+     * @param matchMajorOnly reduce version of reversed dependencies to major version
+     * @return
+     */
     public static List<DependencyTree> matchDependencyQuery(List<DependencyTree> reverseDTs, List<Dependency> matchDependencies, boolean matchMajorOnly) {
-        List<DependencyTree> found = new ArrayList<>();
+        Map<String, Integer> matchCounts = indexMatchDependencies(matchDependencies);
+        Map<String, DependencyTree> found = new LinkedHashMap<>();
         for (DependencyTree revDT : reverseDTs) {
             Dependency revD = revDT.getDependency();
             if (revD.getArtifactId().isEmpty() || revD.getArtifactId().equals("null")
                     || revD.getVersion().isEmpty() || revD.getVersion().equals("null")) {
                 continue;
             }
-            if (revDT.getUsedBy().isEmpty()) {
+            if (!revDT.hasUsedBy()) {
                 continue;
             }
-            Dependency revDUsedBy = revDT.getUsedBy().get(0).getDependency();
-            for (Dependency matchD : matchDependencies) {
-                if (matchD.getVersion().isEmpty() || matchD.getVersion().equals("null")) {
-                    continue;
-                }
-                if (revDUsedBy.getArtifactId().equals(matchD.getArtifactId())
-                        && revDUsedBy.getVersion().equals(matchD.getVersion())) {
-                    if (matchMajorOnly) {
-                        String majorVersion = getMajorVersion(revDT.getDependency().getVersion());
-                        revD.setVersion(majorVersion);
-                    }
-                    addMatchedDependency(found, revD, revDUsedBy);
+            Dependency revDUsedBy = revDT.getFirstUsedBy();
+            Integer matchCount = matchCounts.get(createKey(revDUsedBy.getArtifactId(), revDUsedBy.getVersion()));
+            if (matchCount == null) {
+                continue;
+            }
+            if (matchMajorOnly) {
+                // reduced once per matching dependency in use
+                for (int i = 0; i < matchCount; i++) {
+                    revD.setVersion(getMajorVersion(revD.getVersion()));
                 }
             }
+            String key = createKey(revD.getArtifactId(), revD.getVersion());
+            if (!found.containsKey(key)) {
+                DependencyTree dt = new DependencyTree();
+                dt.setDependency(revD);
+                dt.addUsedBy(new DependencyTree(revDUsedBy));
+                found.put(key, dt);
+            }
+        }
+        return new ArrayList<>(found.values());
+    }
+
+    /**
+     * count dependencies in use with a version by artifactId and version
+     * 
+     * @param matchDependencies
+     * @return
+     */
+    private static Map<String, Integer> indexMatchDependencies(List<Dependency> matchDependencies) {
+        Map<String, Integer> matchCounts = new HashMap<>();
+        for (Dependency matchD : matchDependencies) {
+            if (matchD.getVersion().isEmpty() || matchD.getVersion().equals("null")) {
+                continue;
+            }
+            matchCounts.merge(createKey(matchD.getArtifactId(), matchD.getVersion()), 1, Integer::sum);
         }
-        
-        return found;
+        return matchCounts;
+    }
+
+    private static String createKey(String artifactId, String version) {
+        return artifactId + KEY_SEPARATOR + version;
     }
 
-    private static String getMajorVersion(String version) {
+    /**
+     * reduce version to the part before the first dot or dash
+     * 
+     * @param version
+     * @return
+     */
+    public static String getMajorVersion(String version) {
         String[] values = null;
         if (version.split("\\.").length > 1) {
             values = version.split("\\.");
@@ -81,7 +129,7 @@ public class DependencyMatcher {
             if (matchedDT.getDependency().getArtifactId().equals(revD.getArtifactId())
                     && matchedDT.getDependency().getVersion().equals(revD.getVersion())) {
                 if (!isDependencyAlreadyUsed(matchedDTrees, matchedDT.getDependency())) {
-                    matchedDT.getUsedBy().add(revDTUsedBy);
+                    matchedDT.addUsedBy(revDTUsedBy);
                 }
                 exists = true;
             }
@@ -89,7 +137,7 @@ public class DependencyMatcher {
         if (!exists) {
             DependencyTree dt = new DependencyTree();
             dt.setDependency(revD);
-            dt.getUsedBy().add(revDTUsedBy);
+            dt.addUsedBy(revDTUsedBy);
             matchedDTrees.add(dt);
         }
     }
@@ -0,0 +1,107 @@
+package at.catalysts.tools.reversedependencies.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import at.catalysts.tools.reversedependencies.data.Dependency;
+
+/**
+ * Query dependencies compiled for matching pom dependencies
+ * <br><br>
+ * every accepted artifactId (query artifactId with and without each ignored postfix)
+ * is mapped to the indices of the queries it belongs to, so a pom dependency
+ * is checked by a single lookup instead of comparing it against every query.
+ *
+ */
+public class QueryMatcher {
+
+    private static final int[] NO_QUERIES = new int[0];
+
+    private final List<Dependency> queryDependencies;
+    private final Map<String, int[]> queriesByArtifactId = new HashMap<>();
+
+    /**
+     * compile query, queries without artifactId are ignored
+     *
+     * @param queryDependencies
+     * @param ignorePostfixCsv postfixes accepted additionally, eg: -client,-bus-client
+     */
+    public QueryMatcher(List<Dependency> queryDependencies, String ignorePostfixCsv) {
+        this.queryDependencies = queryDependencies;
+        String[] postfixes = ignorePostfixCsv == null || ignorePostfixCsv.isEmpty() ? new String[0] : ignorePostfixCsv.split(",");
+        for (int i = 0; i < queryDependencies.size(); i++) {
+            String artifactId = queryDependencies.get(i).getArtifactId();
+            if (artifactId == null || artifactId.isEmpty()) {
+                continue;
+            }
+            addQuery(artifactId, i);
+            for (String postfix : postfixes) {
+                addQuery(artifactId + postfix, i);
+            }
+        }
+    }
+
+    /**
+     * @return query the matcher was compiled from
+     */
+    public List<Dependency> getQueryDependencies() {
+        return queryDependencies;
+    }
+
+    /**
+     * find the first matching pom dependency of every query
+     *
+     * @param dependencies of a pom
+     * @return matching dependencies in query order, one per matched query
+     */
+    public List<Dependency> match(List<Dependency> dependencies) {
+        Dependency[] matched = null;
+        int matchCount = 0;
+        for (Dependency dependency : dependencies) {
+            int[] queries = find(dependency.getArtifactId());
+            for (int query : queries) {
+                if (matched == null) {
+                    matched = new Dependency[queryDependencies.size()];
+                }
+                if (matched[query] == null) {
+                    matched[query] = dependency;
+                    matchCount++;
+                }
+            }
+        }
+        if (matchCount == 0) {
+            return Collections.emptyList();
+        }
+        List<Dependency> result = new ArrayList<>(matchCount);
+        for (Dependency dependency : matched) {
+            if (dependency != null) {
+                result.add(dependency);
+            }
+        }
+        return result;
+    }
+
+    private int[] find(String artifactId) {
+        if (artifactId == null) {
+            return NO_QUERIES;
+        }
+        int[] queries = queriesByArtifactId.get(artifactId);
+        return queries == null ? NO_QUERIES : queries;
+    }
+
+    private void addQuery(String artifactId, int query) {
+        int[] queries = queriesByArtifactId.get(artifactId);
+        if (queries == null) {
+            queriesByArtifactId.put(artifactId, new int[] {query});
+        } else if (queries[queries.length - 1] != query) {
+            int[] extended = Arrays.copyOf(queries, queries.length + 1);
+            extended[queries.length] = query;
+            queriesByArtifactId.put(artifactId, extended);
+        }
+    }
+
+}
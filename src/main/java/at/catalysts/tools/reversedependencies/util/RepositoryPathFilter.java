@@ -0,0 +1,314 @@
+package at.catalysts.tools.reversedependencies.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.sonatype.aether.util.version.GenericVersionScheme;
+import org.sonatype.aether.version.InvalidVersionSpecificationException;
+import org.sonatype.aether.version.Version;
+
+/**
+ * Select folders of a repository to scan by their path, before they are listed
+ * <br><br>
+ * paths are relative to the repository root without trailing slash, eg: org/apache/maven/plugins.
+ * Patterns are globs (<code>*</code> within a folder name, <code>**</code> across folders, <code>?</code>, <code>{a,b}</code>)
+ * or regular expressions with the prefix <code>regex:</code>. A folder matching an include pattern is scanned with all
+ * its subfolders, a folder is only listed if it matches or a subfolder still could. A folder matching an exclude
+ * pattern is skipped with all its subfolders.
+ * <br><br>
+ * Of the version folders of an artifact only the latest can be kept, versions are ordered like maven does.
+ *
+ */
+public class RepositoryPathFilter {
+
+    public static final String REGEX_PREFIX = "regex:";
+    public static final String GLOB_PREFIX = "glob:";
+
+    private static final GenericVersionScheme VERSION_SCHEME = new GenericVersionScheme();
+
+    private final List<String> includePatterns;
+    private final List<String> excludePatterns;
+    private final List<Pattern> includes = new ArrayList<>();
+    private final List<Pattern> excludes = new ArrayList<>();
+    private int latestVersions;
+
+    /**
+     * @param includePatterns empty to include every folder
+     * @param excludePatterns
+     */
+    public RepositoryPathFilter(List<String> includePatterns, List<String> excludePatterns) {
+        this.includePatterns = includePatterns;
+        this.excludePatterns = excludePatterns;
+        for (String pattern : includePatterns) {
+            this.includes.add(compile(pattern));
+        }
+        for (String pattern : excludePatterns) {
+            this.excludes.add(compile(pattern));
+        }
+        this.latestVersions = 0;
+    }
+
+    public int getLatestVersions() {
+        return latestVersions;
+    }
+
+    /**
+     * @param latestVersions version folders kept per artifact, 0 for all
+     */
+    public void setLatestVersions(int latestVersions) {
+        this.latestVersions = latestVersions;
+    }
+
+    /**
+     * @return true if no folder is skipped
+     */
+    public boolean isEmpty() {
+        return this.includes.isEmpty() && this.excludes.isEmpty() && this.latestVersions <= 0;
+    }
+
+    /**
+     * check if a folder is worth listing
+     *
+     * @param path of the folder
+     * @return false if the folder is excluded or no subfolder can be included
+     */
+    public boolean isDescended(String path) {
+        String folder = trim(path);
+        if (isExcluded(folder)) {
+            return false;
+        }
+        if (this.includes.isEmpty() || isIncluded(folder)) {
+            return true;
+        }
+        for (Pattern include : this.includes) {
+            Matcher matcher = include.matcher(folder);
+            // a longer path could still match
+            if (!matcher.matches() && matcher.hitEnd()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * check if poms of a folder are scanned
+     *
+     * @param path of the folder
+     * @return true if the folder or a parent is included and none is excluded
+     */
+    public boolean isAccepted(String path) {
+        String folder = trim(path);
+        return !isExcluded(folder) && (this.includes.isEmpty() || isIncluded(folder));
+    }
+
+    private boolean isExcluded(String folder) {
+        for (String prefix : prefixes(folder)) {
+            for (Pattern exclude : this.excludes) {
+                if (exclude.matcher(prefix).matches()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean isIncluded(String folder) {
+        for (String prefix : prefixes(folder)) {
+            for (Pattern include : this.includes) {
+                if (include.matcher(prefix).matches()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * keep subfolders of a listing worth descending, of version folders only the latest
+     *
+     * @param paths subfolders of one folder
+     * @return paths kept in listing order
+     */
+    public List<String> selectFolders(List<String> paths) {
+        List<String> selected = new ArrayList<>(paths.size());
+        for (String path : paths) {
+            if (isDescended(path)) {
+                selected.add(path);
+            }
+        }
+        return selectVersions(selected);
+    }
+
+    /**
+     * keep poms of accepted folders, of the version folders of an artifact only the latest
+     *
+     * @param pomPaths eg. from a repository index, in the layout group/artifact/version/file.pom
+     * @return paths kept in given order
+     */
+    public List<String> selectPoms(List<String> pomPaths) {
+        Map<String, Set<String>> versionsByArtifact = new LinkedHashMap<>();
+        List<String> accepted = new ArrayList<>(pomPaths.size());
+        for (String pom : pomPaths) {
+            String versionFolder = parent(pom);
+            if (isAccepted(versionFolder)) {
+                accepted.add(pom);
+                versionsByArtifact.computeIfAbsent(parent(versionFolder), a -> new LinkedHashSet<>()).add(versionFolder);
+            }
+        }
+        if (this.latestVersions <= 0) {
+            return accepted;
+        }
+        Set<String> latest = new HashSet<>();
+        for (Set<String> versions : versionsByArtifact.values()) {
+            latest.addAll(selectVersions(new ArrayList<>(versions)));
+        }
+        List<String> selected = new ArrayList<>(accepted.size());
+        for (String pom : accepted) {
+            if (latest.contains(parent(pom))) {
+                selected.add(pom);
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * same selection for listed folders and folders of pom paths
+     *
+     * @param paths subfolders of one folder
+     * @return the latest folders if all are version folders, else all
+     */
+    private List<String> selectVersions(List<String> paths) {
+        if (this.latestVersions > 0 && paths.size() > this.latestVersions && isVersionFolders(paths)) {
+            return selectLatest(paths);
+        }
+        return paths;
+    }
+
+    /**
+     * @param paths version folders of one artifact
+     * @return the latest version folders in given order
+     */
+    private List<String> selectLatest(List<String> paths) {
+        List<String> byVersion = new ArrayList<>(paths);
+        byVersion.sort(Comparator.comparing(RepositoryPathFilter::parseVersion).reversed());
+        Set<String> latest = new HashSet<>(byVersion.subList(0, Math.min(this.latestVersions, byVersion.size())));
+        List<String> selected = new ArrayList<>(latest.size());
+        for (String path : paths) {
+            if (latest.contains(path)) {
+                selected.add(path);
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * folders of an artifact are versions, which start with a digit
+     */
+    private static boolean isVersionFolders(List<String> paths) {
+        for (String path : paths) {
+            String name = name(path);
+            if (name.isEmpty() || !Character.isDigit(name.charAt(0))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Version parseVersion(String path) {
+        try {
+            return VERSION_SCHEME.parseVersion(name(path));
+        } catch (InvalidVersionSpecificationException e) {
+            throw new IllegalArgumentException("invalid version folder: " + path, e);
+        }
+    }
+
+    private static String trim(String path) {
+        String trimmed = path.startsWith("/") ? path.substring(1) : path;
+        return trimmed.endsWith("/") ? trimmed.substring(0, trimmed.length() - 1) : trimmed;
+    }
+
+    private static String name(String path) {
+        String folder = trim(path);
+        return folder.substring(folder.lastIndexOf('/') + 1);
+    }
+
+    private static String parent(String path) {
+        String folder = trim(path);
+        int slash = folder.lastIndexOf('/');
+        return slash < 0 ? "" : folder.substring(0, slash);
+    }
+
+    /**
+     * @return path and its parents, eg: org, org/apache, org/apache/maven
+     */
+    private static List<String> prefixes(String folder) {
+        List<String> prefixes = new ArrayList<>();
+        for (int slash = folder.indexOf('/'); slash >= 0; slash = folder.indexOf('/', slash + 1)) {
+            prefixes.add(folder.substring(0, slash));
+        }
+        prefixes.add(folder);
+        return prefixes;
+    }
+
+    /**
+     * @param pattern glob or regex with prefix
+     * @return pattern matching paths without leading and trailing slash
+     */
+    static Pattern compile(String pattern) {
+        if (pattern.startsWith(REGEX_PREFIX)) {
+            return Pattern.compile(pattern.substring(REGEX_PREFIX.length()));
+        }
+        String glob = pattern.startsWith(GLOB_PREFIX) ? pattern.substring(GLOB_PREFIX.length()) : pattern;
+        return Pattern.compile(globToRegex(trim(glob)));
+    }
+
+    static String globToRegex(String glob) {
+        StringBuilder regex = new StringBuilder();
+        boolean inGroup = false;
+        for (int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            if (c == '*' && i + 1 < glob.length() && glob.charAt(i + 1) == '*') {
+                i++;
+                if (i + 1 < glob.length() && glob.charAt(i + 1) == '/') {
+                    // **/ also matches no folder at all
+                    i++;
+                    regex.append("(?:.*/)?");
+                } else {
+                    regex.append(".*");
+                }
+            } else if (c == '*') {
+                regex.append("[^/]*");
+            } else if (c == '?') {
+                regex.append("[^/]");
+            } else if (c == '{') {
+                inGroup = true;
+                regex.append("(?:");
+            } else if (c == '}' && inGroup) {
+                inGroup = false;
+                regex.append(')');
+            } else if (c == ',' && inGroup) {
+                regex.append('|');
+            } else {
+                if ("\\.[]{}()+-^$|".indexOf(c) >= 0) {
+                    regex.append('\\');
+                }
+                regex.append(c);
+            }
+        }
+        return regex.toString();
+    }
+
+    @Override
+    public String toString() {
+        return "include" + this.includePatterns + " exclude" + this.excludePatterns + " latest " + this.latestVersions;
+    }
+
+}
@@ -6,6 +6,12 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
 import java.util.List;
 
 import org.junit.Test;
@@ -72,4 +78,121 @@ public class ReverseDependenciesTest {
         assertTrue(s.isMatchMajorVersionOnly());
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testParseArgumentsThreads() {
+        Setting s = ReverseDependencies.parseArguments(new String[]{"-q", "query.txt", "-t", "8", "--host-limit", "4"});
+        assertNotNull(s);
+        assertEquals(8, s.getThreads());
+        assertFalse(s.isVirtualThreads());
+        assertEquals(4, s.getHostConcurrency());
+    }
+
+    @Test
+    public void testParseArgumentsVirtualThreads() {
+        Setting s = ReverseDependencies.parseArguments(new String[]{"-q", "query.txt", "--threads", "virtual"});
+        assertNotNull(s);
+        assertEquals(1, s.getThreads());
+        assertTrue(s.isVirtualThreads());
+        assertEquals(0, s.getHostConcurrency());
+    }
+
+    @Test
+    public void testParseArgumentsThreadsInvalid() {
+        assertNull(ReverseDependencies.parseArguments(new String[]{"-q", "query.txt", "-t", "0"}));
+        assertNull(ReverseDependencies.parseArguments(new String[]{"-q", "query.txt", "-t", "many"}));
+    }
+
+    @Test
+    public void testParseArgumentsRetries() {
+        assertEquals(3, ReverseDependencies.parseArguments(new String[]{"-q", "query.txt"}).getMaxRetries());
+        assertEquals(0, ReverseDependencies.parseArguments(new String[]{"-q", "query.txt", "--retries", "0"}).getMaxRetries());
+        assertEquals(5, ReverseDependencies.parseArguments(new String[]{"-q", "query.txt", "--retries", " 5"}).getMaxRetries());
+        assertNull(ReverseDependencies.parseArguments(new String[]{"-q", "query.txt", "--retries", "-1"}));
+    }
+
+    @Test
+    public void testParseArgumentsCheckpointInterval() {
+        Setting s = ReverseDependencies.parseArguments(new String[]{"-q", "query.txt", "-c", "cache.csv", "--checkpoint", "crawl.checkpoint",
+                "--checkpoint-interval", "0"});
+        assertNotNull(s);
+        assertEquals(0, s.getCheckpointIntervalSeconds());
+        assertNull(ReverseDependencies.parseArguments(new String[]{"-q", "query.txt", "-c", "cache.csv", "--checkpoint", "crawl.checkpoint",
+                "--checkpoint-interval", "-1"}));
+    }
+
+    @Test
+    public void testParseArgumentsServeRefresh() {
+        Setting s = ReverseDependencies.parseArguments(new String[]{"-c", "cache.csv", "--serve", "8080", "--serve-refresh", "0"});
+        assertNotNull(s);
+        assertEquals(0, s.getServeRefreshSeconds());
+        assertNull(ReverseDependencies.parseArguments(new String[]{"-c", "cache.csv", "--serve", "8080", "--serve-refresh", "-1"}));
+    }
+
+    @Test
+    public void testParseArgumentsPathFilter() {
+        Setting s = ReverseDependencies.parseArguments(new String[]{"-q", "query.txt", "-s", "org/apache/", "-s", "com/example/",
+                "--include", "**/maven-*", "--exclude", "regex:.*-SNAPSHOT", "--exclude", "org/apache/commons", "--latest", "3"});
+        assertNotNull(s);
+        assertEquals(Arrays.asList("org/apache/", "com/example/"), s.getSubdirectories());
+        assertEquals(Arrays.asList("**/maven-*"), s.getIncludePatterns());
+        assertEquals(Arrays.asList("regex:.*-SNAPSHOT", "org/apache/commons"), s.getExcludePatterns());
+        assertEquals(3, s.getLatestVersions());
+        assertTrue(s.usePathFilter());
+        assertFalse(ReverseDependencies.parseArguments(new String[]{"-q", "query.txt"}).usePathFilter());
+        assertNull(ReverseDependencies.parseArguments(new String[]{"-q", "query.txt", "--include", "regex:org/(apache"}));
+    }
+
+    @Test
+    public void testParseArgumentsPipeline() {
+        Setting s = ReverseDependencies.parseArguments(new String[]{"-q", "query.txt", "--pipeline", "16, 2,1", "--pipeline-queue", "64"});
+        assertNotNull(s);
+        assertTrue(s.usePipeline());
+        assertEquals(16, s.getPipelineFetchThreads());
+        assertEquals(2, s.getPipelineParseThreads());
+        assertEquals(1, s.getPipelineMatchThreads());
+        assertEquals(64, s.getPipelineQueueSize());
+        assertFalse(ReverseDependencies.parseArguments(new String[]{"-q", "query.txt"}).usePipeline());
+        assertNull(ReverseDependencies.parseArguments(new String[]{"-q", "query.txt", "--pipeline", "16,2"}));
+        assertNull(ReverseDependencies.parseArguments(new String[]{"-q", "query.txt", "--pipeline", "16,0,1"}));
+    }
+
+    @Test
+    public void testParseArgumentsMultipleMatch() {
+        Setting s = ReverseDependencies.parseArguments(new String[]{"-m", "envs/test.csv", "-m", "envs/prod.csv", "-o", "out/matches.csv"});
+        assertNotNull(s);
+        assertEquals(Arrays.asList("envs/test.csv", "envs/prod.csv"), s.getPathsMatchDependencies());
+        assertEquals("envs/test.csv", s.getPathMatchDependencies());
+        assertEquals("out/matches-test.csv", s.getPathOutputCsv("envs/test.csv"));
+        assertEquals("out/matches-prod.csv", s.getPathOutputCsv("envs/prod.csv"));
+
+        s = ReverseDependencies.parseArguments(new String[]{"-m", "envs/test.csv", "-o", "out/matches.csv"});
+        assertEquals("out/matches.csv", s.getPathOutputCsv("envs/test.csv"));
+    }
+
+    @Test
+    public void testParseArgumentsMatchOutputCollision() {
+        assertNull(ReverseDependencies.parseArguments(new String[]{"-m", "envs/a/prod.csv", "-m", "envs/b/prod.csv", "-o", "out/matches.csv"}));
+        assertNull(ReverseDependencies.parseArguments(new String[]{"-m", "envs/prod.csv", "-m", "envs/prod.txt"}));
+        assertNotNull(ReverseDependencies.parseArguments(new String[]{"-m", "envs/a/prod.csv", "-m", "envs/b/test.csv"}));
+    }
+
+    @Category(IntegrationTest.class)
+    @Test
+    public void testMainMatchDirectory() throws IOException {
+        Path envs = Paths.get("target/testEnvironments");
+        Files.createDirectories(envs);
+        Files.write(envs.resolve("prod.csv"), "maven-compiler-plugin 3.6.0\n".getBytes(StandardCharsets.UTF_8));
+        Files.write(envs.resolve("test.csv"), "maven-compiler-plugin 3.1\n".getBytes(StandardCharsets.UTF_8));
+        Files.write(envs.resolve(".hidden"), "maven-compiler-plugin 3.6.0\n".getBytes(StandardCharsets.UTF_8));
+        ReverseDependencies.main(new String[] {"-m", envs.toString(), "-c", "src/test/resources/cache.csv",
+                "-o", "target/testEnvironmentMatches.csv"});
+        assertEquals(Arrays.asList("queryArtifactId,queryGroupId,queryVersion,usedByArtifactId,usedByGroupId,usedByVersion",
+                "junit,junit,4.12,maven-compiler-plugin,org.apache.maven.plugins,3.6.0"),
+                Files.readAllLines(Paths.get("target/testEnvironmentMatches-prod.csv")));
+        assertEquals(Arrays.asList("queryArtifactId,queryGroupId,queryVersion,usedByArtifactId,usedByGroupId,usedByVersion",
+                "junit,junit,4.8.1,maven-compiler-plugin,org.apache.maven.plugins,3.1"),
+                Files.readAllLines(Paths.get("target/testEnvironmentMatches-test.csv")));
+        assertFalse(Files.exists(Paths.get("target/testEnvironmentMatches-.hidden.csv")));
+    }
+
+}
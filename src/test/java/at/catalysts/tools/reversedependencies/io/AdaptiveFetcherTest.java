@@ -0,0 +1,249 @@
+package at.catalysts.tools.reversedependencies.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import at.catalysts.tools.reversedependencies.data.Dependency;
+import at.catalysts.tools.reversedependencies.data.DependencyTree;
+
+/**
+ * retries, rate limit and adapted concurrency with a simulated repository
+ *
+ */
+public class AdaptiveFetcherTest {
+
+    private static final String REPO = "http://repo/";
+    private static final String POM = "<project><groupId>at.test</groupId><artifactId>ms-a</artifactId><version>1.0</version>"
+            + "<dependencies><dependency><groupId>junit</groupId><artifactId>junit</artifactId><version>4.12</version>"
+            + "</dependency></dependencies></project>";
+
+    @Test
+    public void testRetryThrottled() throws IOException {
+        SimulatedRepository repo = new SimulatedRepository();
+        repo.failures.put(REPO, new ArrayList<>(Arrays.asList(503, 429)));
+        AdaptiveFetcher fetcher = createFetcher(repo, 2);
+        try (FetchResponse response = fetcher.fetch(REPO, Collections.emptyMap())) {
+            assertEquals(FetchResponse.HTTP_OK, response.getStatusCode());
+        }
+        assertEquals(3, repo.requests.size());
+        assertEquals(2, fetcher.getRetryCount());
+        assertEquals(2, fetcher.getThrottledCount());
+    }
+
+    @Test
+    public void testRetriesExhausted() throws IOException {
+        SimulatedRepository repo = new SimulatedRepository();
+        repo.failures.put(REPO, new ArrayList<>(Arrays.asList(503, 503, 503)));
+        AdaptiveFetcher fetcher = createFetcher(repo, 1);
+        try (FetchResponse response = fetcher.fetch(REPO, Collections.emptyMap())) {
+            assertEquals(503, response.getStatusCode());
+        }
+        assertEquals(2, repo.requests.size());
+
+        repo.failures.put(REPO, new ArrayList<>(Arrays.asList(-1, -1, -1)));
+        try {
+            fetcher.fetch(REPO, Collections.emptyMap());
+            fail("connection failure expected");
+        } catch (IOException e) {
+            assertEquals("connection reset", e.getMessage());
+        }
+        assertEquals(4, repo.requests.size());
+    }
+
+    @Test
+    public void testRetryTimeouts() throws IOException {
+        List<String> requests = new ArrayList<>();
+        AdaptiveFetcher fetcher = createFetcher((url, headers) -> {
+            requests.add(url);
+            if (requests.size() == 1) {
+                throw new SocketTimeoutException("read timed out");
+            }
+            return new FetchResponse(url, FetchResponse.HTTP_OK, name -> null, new ByteArrayInputStream(new byte[0]));
+        }, 1);
+        try (FetchResponse response = fetcher.fetch(REPO, Collections.emptyMap())) {
+            assertEquals(FetchResponse.HTTP_OK, response.getStatusCode());
+        }
+        assertEquals(2, requests.size());
+        assertEquals(1, fetcher.getRetryCount());
+    }
+
+    @Test
+    public void testNoRetryOfClientErrors() throws IOException {
+        SimulatedRepository repo = new SimulatedRepository();
+        AdaptiveFetcher fetcher = createFetcher(repo, 3);
+        try (FetchResponse response = fetcher.fetch(REPO + "missing/", Collections.emptyMap())) {
+            assertEquals(404, response.getStatusCode());
+        }
+        assertEquals(1, repo.requests.size());
+        assertEquals(0, fetcher.getRetryCount());
+    }
+
+    @Test
+    public void testTokenBucket() {
+        AdaptiveFetcher.HostState host = new AdaptiveFetcher.HostState(0);
+        long now = System.nanoTime();
+        assertEquals(0, host.reserve(now, 10));
+        // next token after 100 ms
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), host.reserve(now, 10));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(200), host.reserve(now, 10));
+        // refilled to a burst of one second at most
+        long later = now + TimeUnit.SECONDS.toNanos(10);
+        for (int i = 0; i < 10; i++) {
+            assertEquals(0, host.reserve(later, 10));
+        }
+        assertTrue(host.reserve(later, 10) > 0);
+        host.pause(later + TimeUnit.SECONDS.toNanos(1));
+        assertEquals(TimeUnit.SECONDS.toNanos(1), host.reserve(later, 0));
+    }
+
+    @Test
+    public void testAdaptConcurrency() throws InterruptedException {
+        AdaptiveFetcher.HostState host = new AdaptiveFetcher.HostState(8);
+        long latency = TimeUnit.MILLISECONDS.toNanos(1);
+        long now = TimeUnit.SECONDS.toNanos(1);
+        host.acquire();
+        host.release(now, latency, true, 4);
+        assertEquals(4, host.getLimit());
+        for (int i = 0; i < 30; i++) {
+            host.acquire();
+            host.release(now, latency, false, 4);
+        }
+        assertEquals(8, host.getLimit());
+        // latency climbing over the tolerance halves the limit, at most once per round
+        now += TimeUnit.MILLISECONDS.toNanos(50);
+        host.acquire();
+        host.release(now, latency * 100, false, 4);
+        assertEquals(4, host.getLimit());
+        host.acquire();
+        host.release(now, latency * 100, false, 4);
+        assertEquals(4, host.getLimit());
+    }
+
+    @Test
+    public void testFastestLatencyExpires() throws InterruptedException {
+        AdaptiveFetcher.HostState host = new AdaptiveFetcher.HostState(8);
+        long latency = TimeUnit.MILLISECONDS.toNanos(1);
+        long now = TimeUnit.SECONDS.toNanos(1);
+        host.acquire();
+        host.release(now, latency, false, 4);
+        // a slower host is still compared to the fastest request of the previous window
+        now += TimeUnit.SECONDS.toNanos(11);
+        for (int i = 0; i < 10; i++) {
+            host.acquire();
+            host.release(now, latency * 10, false, 4);
+        }
+        assertEquals(4, host.getLimit());
+        // and accepted once that window passed
+        now += TimeUnit.SECONDS.toNanos(11);
+        for (int i = 0; i < 30; i++) {
+            host.acquire();
+            host.release(now, latency * 10, false, 4);
+        }
+        assertTrue(host.getLimit() > 4);
+    }
+
+    @Test
+    public void testSlotHeldUntilClosed() throws IOException {
+        SimulatedRepository repo = new SimulatedRepository();
+        AdaptiveFetcher fetcher = createFetcher(repo, 0);
+        FetchResponse response = fetcher.fetch(REPO, Collections.emptyMap());
+        assertEquals(1, fetcher.getInFlight("repo"));
+        response.getBody().readAllBytes();
+        assertEquals(1, fetcher.getInFlight("repo"));
+        response.close();
+        response.close();
+        assertEquals(0, fetcher.getInFlight("repo"));
+    }
+
+    @Test
+    public void testParseRetryAfter() {
+        assertEquals(0, AdaptiveFetcher.parseRetryAfterMillis(null));
+        assertEquals(2000, AdaptiveFetcher.parseRetryAfterMillis(" 2"));
+        assertEquals(0, AdaptiveFetcher.parseRetryAfterMillis("Wed, 21 Oct 2015 07:28:00 GMT"));
+    }
+
+    @Test
+    public void testRetryFailedAfterCrawl() {
+        SimulatedRepository repo = new SimulatedRepository();
+        repo.failures.put(REPO + "lib-a/", new ArrayList<>(Arrays.asList(503)));
+        repo.failures.put(REPO + "lib-b/ms-b.pom", new ArrayList<>(Arrays.asList(-1)));
+        RepositoryUrlReader reader = new RepositoryUrlReader(REPO);
+        reader.setFetcher(repo);
+        List<DependencyTree> result = reader.scanUrlDirectory(Arrays.asList(new Dependency("junit", "", "")));
+        assertEquals(3, result.size());
+        assertTrue(reader.getFailedUrls().isEmpty());
+        assertEquals(2, repo.requests.stream().filter(url -> url.equals(REPO + "lib-a/")).count());
+        assertEquals(1, repo.requests.stream().filter(url -> url.equals(REPO + "missing/")).count());
+    }
+
+    @Test
+    public void testKeepFailed() {
+        SimulatedRepository repo = new SimulatedRepository();
+        repo.failures.put(REPO + "lib-a/", new ArrayList<>(Arrays.asList(503, 503)));
+        RepositoryUrlReader reader = new RepositoryUrlReader(REPO);
+        reader.setFetcher(repo);
+        List<DependencyTree> result = reader.scanUrlDirectory(Arrays.asList(new Dependency("junit", "", "")));
+        assertEquals(2, result.size());
+        assertEquals(Collections.singleton(REPO + "lib-a/"), reader.getFailedUrls());
+    }
+
+    private static AdaptiveFetcher createFetcher(UrlFetcher delegate, int maxRetries) {
+        AdaptiveFetcher fetcher = new AdaptiveFetcher(delegate);
+        fetcher.setMaxRetries(maxRetries);
+        fetcher.setMaxConcurrency(2);
+        fetcher.setBackoffMillis(1, 5);
+        return fetcher;
+    }
+
+    /**
+     * root with folders lib-a/, lib-b/ and missing/ (404), each existing folder holds poms using junit;
+     * queued failures are answered first, -1 for a connection failure
+     */
+    private static class SimulatedRepository implements UrlFetcher {
+
+        private final Map<String, List<Integer>> failures = new HashMap<>();
+        private final List<String> requests = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public synchronized FetchResponse fetch(String url, Map<String, String> headers) throws IOException {
+            requests.add(url);
+            List<Integer> queued = failures.get(url);
+            if (queued != null && !queued.isEmpty()) {
+                int status = queued.remove(0);
+                if (status < 0) {
+                    throw new IOException("connection reset");
+                }
+                return new FetchResponse(url, status, name -> "Retry-After".equals(name) ? "0" : null, null);
+            }
+            String body;
+            if (url.equals(REPO)) {
+                body = "<a href=\"lib-a/\">lib-a/</a>\n<a href=\"lib-b/\">lib-b/</a>\n<a href=\"missing/\">missing/</a>";
+            } else if (url.equals(REPO + "lib-a/")) {
+                body = "<a href=\"ms-a.pom\">ms-a.pom</a>";
+            } else if (url.equals(REPO + "lib-b/")) {
+                body = "<a href=\"ms-b.pom\">ms-b.pom</a>\n<a href=\"ms-c.pom\">ms-c.pom</a>";
+            } else if (url.endsWith(".pom") && !url.contains("missing")) {
+                body = POM;
+            } else {
+                return new FetchResponse(url, 404, name -> null, null);
+            }
+            return new FetchResponse(url, FetchResponse.HTTP_OK, name -> null, new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+        }
+    }
+
+}
@@ -0,0 +1,130 @@
+package at.catalysts.tools.reversedependencies.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import at.catalysts.tools.reversedependencies.data.Dependency;
+import at.catalysts.tools.reversedependencies.data.DependencyTree;
+import at.catalysts.tools.reversedependencies.test.IntegrationTest;
+import at.catalysts.tools.reversedependencies.util.DependencyMatcher;
+
+/**
+ * integrative Tests for BinaryDependencyCache against csv cache reading and matching
+ *
+ */
+public class BinaryDependencyCacheTest {
+
+    private static String TESTFILE_BINARY = "target/testBinaryCache.bin";
+    private static String TESTFILE_CSV = "target/testBinaryCache.csv";
+    private static String TESTFILE_CONVERTED = "target/testBinaryCacheConverted.csv";
+
+    @Category(IntegrationTest.class)
+    @Test
+    public void testWriteAndRead() throws IOException {
+        List<DependencyTree> trees = createDependencyTrees(200);
+        BinaryDependencyCache.write(trees, TESTFILE_BINARY);
+        assertTrue(BinaryDependencyCache.isBinaryCache(TESTFILE_BINARY));
+        BinaryDependencyCache cache = BinaryDependencyCache.open(TESTFILE_BINARY);
+        List<DependencyTree> read = cache.readDependencyTrees();
+        assertEquals(trees.size(), read.size());
+        for (int i = 0; i < trees.size(); i++) {
+            assertDependencyTree(trees.get(i), read.get(i));
+        }
+        assertEquals(-1, cache.findString("unknown"));
+        assertEquals("ms-data", cache.getString(cache.findString("ms-data")));
+    }
+
+    @Category(IntegrationTest.class)
+    @Test
+    public void testFind() throws IOException {
+        BinaryDependencyCache.write(createDependencyTrees(200), TESTFILE_BINARY);
+        BinaryDependencyCache cache = BinaryDependencyCache.open(TESTFILE_BINARY);
+        List<DependencyTree> found = cache.find(new Dependency("ms-3", "at.catalysts", "2.1"));
+        assertFalse(found.isEmpty());
+        for (DependencyTree tree : found) {
+            assertEquals("ms-3", tree.getUsedBy().get(0).getDependency().getArtifactId());
+            assertEquals("2.1", tree.getUsedBy().get(0).getDependency().getVersion());
+        }
+        assertTrue(cache.find(new Dependency("ms-3", "at.other", "2.1")).isEmpty());
+    }
+
+    @Category(IntegrationTest.class)
+    @Test
+    public void testMatchLikeDependencyMatcher() throws IOException {
+        List<Dependency> matchDs = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            matchDs.add(new Dependency("ms-" + i, "", "2." + (i % 3)));
+        }
+        matchDs.add(new Dependency("ms-1", "", "2.1"));
+        matchDs.add(new Dependency("ms-2", "", ""));
+        BinaryDependencyCache.write(createDependencyTrees(500), TESTFILE_BINARY);
+        BinaryDependencyCache cache = BinaryDependencyCache.open(TESTFILE_BINARY);
+        for (boolean majorOnly : new boolean[] {false, true}) {
+            List<DependencyTree> expected = DependencyMatcher.matchDependencyQuery(createDependencyTrees(500), matchDs, majorOnly);
+            List<DependencyTree> result = cache.matchDependencyQuery(matchDs, majorOnly);
+            assertEquals(expected.size(), result.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertDependencyTree(expected.get(i), result.get(i));
+            }
+        }
+    }
+
+    @Category(IntegrationTest.class)
+    @Test
+    public void testConvert() {
+        DependencyFileWriter writer = new DependencyFileWriter(TESTFILE_CSV, false, true);
+        writer.writeDependencyList(createDependencyTrees(50));
+        CacheConverter.csvToBinary(TESTFILE_CSV, TESTFILE_BINARY);
+        CacheConverter.binaryToCsv(TESTFILE_BINARY, TESTFILE_CONVERTED);
+        List<DependencyTree> expected = readCsv(TESTFILE_CSV);
+        List<DependencyTree> result = readCsv(TESTFILE_CONVERTED);
+        assertEquals(expected.size(), result.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertDependencyTree(expected.get(i), result.get(i));
+        }
+    }
+
+    private static List<DependencyTree> readCsv(String filename) {
+        DependencyFileReader reader = new DependencyFileReader(filename);
+        reader.setReversedWithUsedByDependencies(true);
+        return reader.readDependencyTreeFile();
+    }
+
+    private static void assertDependencyTree(DependencyTree expected, DependencyTree actual) {
+        assertDependency(expected.getDependency(), actual.getDependency());
+        assertEquals(expected.getUsedBy().size(), actual.getUsedBy().size());
+        if (!expected.getUsedBy().isEmpty()) {
+            assertDependency(expected.getUsedBy().get(0).getDependency(), actual.getUsedBy().get(0).getDependency());
+        }
+    }
+
+    private static void assertDependency(Dependency expected, Dependency actual) {
+        assertEquals(expected.getArtifactId(), actual.getArtifactId());
+        assertEquals(expected.getGroupId(), actual.getGroupId());
+        assertEquals(expected.getVersion(), actual.getVersion());
+    }
+
+    private static List<DependencyTree> createDependencyTrees(int count) {
+        Random random = new Random(42);
+        List<DependencyTree> trees = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String version = random.nextInt(10) == 0 ? "null" : "1." + random.nextInt(5) + ".0";
+            DependencyTree tree = new DependencyTree(new Dependency("lib-" + random.nextInt(20), "at.catalysts", version));
+            tree.getUsedBy().add(new DependencyTree(new Dependency("ms-" + random.nextInt(10), "at.catalysts", "2." + random.nextInt(3))));
+            trees.add(tree);
+        }
+        trees.add(new DependencyTree(new Dependency("ms-data", "at.catalysts", "1.0")));
+        trees.add(new DependencyTree(new Dependency("lib-\u00e4", "", "")));
+        return trees;
+    }
+
+}
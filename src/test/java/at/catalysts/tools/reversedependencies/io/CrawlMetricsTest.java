@@ -0,0 +1,72 @@
+package at.catalysts.tools.reversedependencies.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import at.catalysts.tools.reversedependencies.data.Dependency;
+import at.catalysts.tools.reversedependencies.data.DependencyTree;
+
+public class CrawlMetricsTest {
+
+    private static final String REPO = "http://repo/";
+    private static final String LISTING = "<a href=\"ms-a.pom\">ms-a.pom</a>\n<a href=\"ms-b.pom\">ms-b.pom</a>";
+    private static final String POM = "<project><groupId>at.test</groupId><artifactId>ms-a</artifactId><version>1.0</version>"
+            + "<dependencies><dependency><groupId>junit</groupId><artifactId>junit</artifactId><version>4.12</version>"
+            + "</dependency></dependencies></project>";
+
+    @Test
+    public void testScanMetrics() {
+        RepositoryUrlReader reader = new RepositoryUrlReader(REPO);
+        reader.setFetcher((url, headers) -> {
+            String body = url.equals(REPO) ? LISTING : POM;
+            return new FetchResponse(url, FetchResponse.HTTP_OK, name -> null, new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+        });
+        List<DependencyTree> result = reader.scanUrlDirectory(Arrays.asList(new Dependency("junit", "", "")));
+        assertEquals(2, result.size());
+
+        CrawlMetrics metrics = reader.getMetrics();
+        assertEquals(1, metrics.getListings());
+        assertEquals(2, metrics.getPoms());
+        assertEquals(2, metrics.getDependenciesFound());
+        assertEquals(LISTING.length() + 2 * POM.length(), metrics.getBytesDownloaded());
+        assertEquals(1, metrics.getHistogram(CrawlMetrics.Phase.LISTING_FETCH).getCount());
+        assertEquals(2, metrics.getHistogram(CrawlMetrics.Phase.POM_FETCH).getCount());
+        assertEquals(2, metrics.getHistogram(CrawlMetrics.Phase.PARSE).getCount());
+        assertEquals(2, metrics.getHistogram(CrawlMetrics.Phase.MATCH).getCount());
+        assertEquals(0, metrics.getHistogram(CrawlMetrics.Phase.CACHE_WRITE).getCount());
+        assertEquals(Long.valueOf(2), metrics.getPhaseCounts().get("pom fetch"));
+        assertTrue(metrics.getProgressLine().startsWith("progress: listings 1, poms 2"));
+        assertTrue(metrics.getSummary().contains("parse: 2"));
+    }
+
+    @Test
+    public void testRateStartsWithCrawl() {
+        CrawlMetrics metrics = new CrawlMetrics();
+        metrics.addPom();
+        assertEquals(0, metrics.getPomsPerSecond(), 0);
+        metrics.start();
+        assertTrue(metrics.getPomsPerSecond() > 0);
+    }
+
+    @Test
+    public void testPrometheusText() {
+        CrawlMetrics metrics = new CrawlMetrics();
+        metrics.addPom();
+        metrics.getHistogram(CrawlMetrics.Phase.PARSE).record(1500000);
+        String text = metrics.getPrometheusText();
+        assertTrue(text.contains("# TYPE reverse_dependencies_poms_total counter\nreverse_dependencies_poms_total 1\n"));
+        assertTrue(text.contains("# TYPE reverse_dependencies_phase_seconds summary\n"));
+        assertTrue(text.contains("reverse_dependencies_phase_seconds{phase=\"parse\",quantile=\"0.5\"} 0.001500000\n"));
+        assertTrue(text.contains("reverse_dependencies_phase_seconds{phase=\"parse\",quantile=\"0.999\"} 0.001500000\n"));
+        assertTrue(text.contains("reverse_dependencies_phase_seconds_count{phase=\"parse\"} 1\n"));
+        assertTrue(text.contains("reverse_dependencies_phase_seconds_count{phase=\"match\"} 0\n"));
+    }
+
+}
@@ -2,8 +2,19 @@ package at.catalysts.tools.reversedependencies.io;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
 import java.util.stream.Stream;
 
 import org.junit.Test;
@@ -18,6 +29,9 @@ public class DependencyFileReaderTest {
 
     private static String TESTFILE = "src/test/resources/dependencyFile.txt";
     private static String TESTFILE_404 = "src/test/resources/nonexisting";
+    private static String TESTFILE_CHUNKED = "target/testReadChunked.csv";
+    private static String TESTFILE_SHARED = "target/testReadShared.csv";
+    private static String TESTFILE_MALFORMED = "target/testReadMalformed.csv";
 
     @Category(IntegrationTest.class)
     @Test
@@ -37,6 +51,80 @@ public class DependencyFileReaderTest {
         assertEquals(0, result.size());
     }
 
+    @Category(IntegrationTest.class)
+    @Test
+    public void testReadChunkedLikeSequential() throws IOException {
+        StringBuilder content = new StringBuilder();
+        Random random = new Random(42);
+        String[] lineEnds = {"\n", "\r\n", "\n\n", "\r"};
+        for (int i = 0; i < 500; i++) {
+            content.append("lib-").append(i).append(i % 7 == 0 ? "-\u00e4\u20ac" : "").append(",at.test,1.").append(i)
+                .append(",ms-").append(random.nextInt(20)).append(",at.test,2.0").append(lineEnds[random.nextInt(lineEnds.length)]);
+        }
+        content.append("last,at.test,1.0");
+        Files.write(Paths.get(TESTFILE_CHUNKED), content.toString().getBytes(StandardCharsets.UTF_8));
+
+        DependencyFileReader sequential = new DependencyFileReader(TESTFILE_CHUNKED);
+        sequential.setThreads(1);
+        sequential.setReversedWithUsedByDependencies(true);
+        List<DependencyTree> expected = sequential.readDependencyTreeFile();
+        for (long chunkBytes : new long[] {1, 37, 1000}) {
+            DependencyFileReader chunked = new DependencyFileReader(TESTFILE_CHUNKED);
+            chunked.setThreads(3);
+            chunked.setChunkBytes(chunkBytes);
+            chunked.setReversedWithUsedByDependencies(true);
+            List<DependencyTree> result = chunked.readDependencyTreeFile();
+            assertEquals(expected.size(), result.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i).getDependency().getArtifactId(), result.get(i).getDependency().getArtifactId());
+                assertEquals(expected.get(i).getDependency().getVersion(), result.get(i).getDependency().getVersion());
+                assertEquals(expected.get(i).getUsedBy().size(), result.get(i).getUsedBy().size());
+            }
+            assertEquals(expected.size(), chunked.readDependencyFile().size());
+        }
+        assertEquals(501, expected.size());
+    }
+
+    @Category(IntegrationTest.class)
+    @Test
+    public void testReadMalformedFailsLikeSequential() throws IOException {
+        Files.write(Paths.get(TESTFILE_MALFORMED), new byte[] {'l', 'i', 'b', ',', (byte) 0xc3, (byte) 0x28, '\n', 'm', 's', '\n'});
+        for (int threads : new int[] {1, 3}) {
+            DependencyFileReader reader = new DependencyFileReader(TESTFILE_MALFORMED);
+            reader.setThreads(threads);
+            reader.setChunkBytes(4);
+            try {
+                reader.readDependencyTreeFile();
+                fail("invalid utf-8 has to fail the read, threads: " + threads);
+            } catch (UncheckedIOException e) {
+                assertNotNull(e.getCause());
+            }
+            try {
+                reader.readDependencyFile();
+                fail("invalid utf-8 has to fail the read, threads: " + threads);
+            } catch (UncheckedIOException e) {
+                assertNotNull(e.getCause());
+            }
+        }
+    }
+
+    @Category(IntegrationTest.class)
+    @Test
+    public void testReadSharesCoordinatesWithinOneRead() throws IOException {
+        Files.write(Paths.get(TESTFILE_SHARED),
+                "ms-lib,at.test,1.0,ms-app,at.test,2.0\nms-lib,at.test,1.0,ms-web,at.test,2.0\n".getBytes(StandardCharsets.UTF_8));
+        DependencyFileReader reader = new DependencyFileReader(TESTFILE_SHARED);
+        reader.setThreads(1);
+
+        List<DependencyTree> first = reader.readDependencyTreeFile();
+        List<DependencyTree> second = reader.readDependencyTreeFile();
+
+        assertEquals(2, first.size());
+        assertSame(first.get(0).getDependency().getArtifactId(), first.get(1).getDependency().getArtifactId());
+        assertSame(first.get(0).getDependency().getGroupId(), first.get(1).getUses().get(0).getDependency().getGroupId());
+        assertNotSame(first.get(0).getDependency().getArtifactId(), second.get(0).getDependency().getArtifactId());
+    }
+
     @Test
     public void testReadDependencyTreeFileWithBlanks() {
         Stream<String> lines = Stream.of("li-test-portlet     1.0.8    ", "  ", " ssp-test-hook group.id 2.1.46 ");
@@ -129,4 +217,78 @@ public class DependencyFileReaderTest {
         assertEquals("20", u.getVersion());
     }
 
+    @Test
+    public void testParseLineLikeSplit() {
+        List<String> lines = Arrays.asList("", " ", ",", ",,,", "a,", "a,,", ",a", "a,,b", "a, ,b, ,", "a b,c", "a,b c",
+                "a\tb", " a  b   c ", "a,b,c,d", "a,b,c,d,e", "a,b,c,d,e,f", "a,b,c,d,e,f,g", "a b c d e f",
+                "a,b,c,,e,f", "a,b,c, ,e,f", "a\u0001 b", "a\u0001,b", "a\u000Bb\fc", "\u0001a");
+        DependencyFileReader reader = new DependencyFileReader(TESTFILE);
+        for (String line : lines) {
+            assertParsedLikeSplit(reader, line);
+        }
+        char[] chars = {'a', 'b', '.', '-', ',', ',', ' ', ' ', '\t', '\u0001'};
+        Random random = new Random(42);
+        for (int i = 0; i < 20000; i++) {
+            char[] line = new char[random.nextInt(24)];
+            for (int c = 0; c < line.length; c++) {
+                line[c] = chars[random.nextInt(chars.length)];
+            }
+            assertParsedLikeSplit(reader, new String(line));
+        }
+    }
+
+    private static void assertParsedLikeSplit(DependencyFileReader reader, String line) {
+        String[] expected = parseLineBySplit(line);
+        DependencyTree result = reader.parseLine(line);
+        if (expected == null) {
+            assertNull(line, result);
+            return;
+        }
+        assertNotNull(line, result);
+        assertEquals(line, expected[0], result.getDependency().getArtifactId());
+        assertEquals(line, expected[1], result.getDependency().getGroupId());
+        assertEquals(line, expected[2], result.getDependency().getVersion());
+        if (expected[3].isEmpty()) {
+            assertEquals(line, 0, result.getUses().size());
+        } else {
+            Dependency u = result.getUses().get(0).getDependency();
+            assertEquals(line, expected[3], u.getArtifactId());
+            assertEquals(line, expected[4], u.getGroupId());
+            assertEquals(line, expected[5], u.getVersion());
+        }
+    }
+
+    /**
+     * former parsing by regular expressions as reference
+     */
+    private static String[] parseLineBySplit(String line) {
+        String[] columns = {line.trim(), "", "", "", "", ""};
+        String[] values = null;
+        if (columns[0].split(",").length > 1) {
+            values = columns[0].split(",");
+        } else if (columns[0].split("\\s+").length > 1) {
+            values = columns[0].split("\\s+");
+        }
+        if (values != null) {
+            columns[0] = values[0].trim();
+            if (values.length == 2 || values.length == 4) {
+                columns[2] = values[1].trim();
+            }
+            if (values.length == 4) {
+                columns[3] = values[2].trim();
+                columns[5] = values[3].trim();
+            }
+            if (values.length == 3 || values.length == 6) {
+                columns[1] = values[1].trim();
+                columns[2] = values[2].trim();
+            }
+            if (values.length == 6) {
+                columns[3] = values[3].trim();
+                columns[4] = values[4].trim();
+                columns[5] = values[5].trim();
+            }
+        }
+        return columns[0].isEmpty() ? null : columns;
+    }
+
 }
\ No newline at end of file
@@ -23,6 +23,7 @@ public class DependencyFileWriterTest {
     private static String TESTFILE_APPEND = "target/testWriteAppend.csv";
     private static String TESTFILE_DEPLIST = "target/testWriteDepList.csv";
     private static String TESTFILE_REVDEPLIST = "target/testWriteRevDepList.csv";
+    private static String TESTFILE_BATCH = "target/testWriteBatch.csv";
 
     @Category(IntegrationTest.class)
     @Test
@@ -51,6 +52,23 @@ public class DependencyFileWriterTest {
         assertEquals("1.0.1", result.get(1).getVersion());
     }
 
+    @Category(IntegrationTest.class)
+    @Test
+    public void testAppendToFileBatched() {
+        DependencyFileWriter writer = new DependencyFileWriter(TESTFILE_BATCH, true, false);
+        writer.setFlushRecords(2);
+        writer.createFile();
+        writer.appendToFile(createDependencyTree("ms-test").getDependency());
+        assertEquals(1, new DependencyFileReader(TESTFILE_BATCH).readDependencyFile().size());
+        writer.appendToFile(createDependencyTree("ms-util").getDependency());
+        assertEquals(3, new DependencyFileReader(TESTFILE_BATCH).readDependencyFile().size());
+        writer.appendToFile(createDependencyTree("ms-data").getDependency());
+        writer.close();
+        List<Dependency> result = new DependencyFileReader(TESTFILE_BATCH).readDependencyFile();
+        assertEquals(4, result.size());
+        assertEquals("ms-data", result.get(3).getArtifactId());
+    }
+
     @Category(IntegrationTest.class)
     @Test
     public void testWriteDependencyList() {
@@ -0,0 +1,137 @@
+package at.catalysts.tools.reversedependencies.io;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import at.catalysts.tools.reversedependencies.test.IntegrationTest;
+
+/**
+ * queries over http on a cache file on disk
+ *
+ */
+@Category(IntegrationTest.class)
+public class DependencyQueryServerTest {
+
+    private static final Path CACHE = Paths.get("target/testQueryServerCache.csv");
+
+    private DependencyQueryServer server;
+
+    @Before
+    public void startServer() throws IOException {
+        writeCache("junit,junit,4.12,ms-lib,at.test,1.0\n"
+                + "ms-lib,at.test,1.0,ms-app,at.test,2.0\n"
+                + "hamcrest-core,org.hamcrest,1.3,ms-lib,at.test,1.0\n");
+        server = new DependencyQueryServer(CACHE.toString(), 0);
+        server.setThreads(2);
+        server.setRefreshIntervalMillis(0);
+        server.start();
+    }
+
+    @After
+    public void stopServer() {
+        server.stop();
+    }
+
+    @Test
+    public void testDependents() throws IOException {
+        assertEquals("artifactId,groupId,version,depth\nms-lib,at.test,1.0,1\n", get("/dependents?artifactId=junit&version=4.12"));
+        assertEquals("artifactId,groupId,version,depth\nms-lib,at.test,1.0,1\nms-app,at.test,2.0,2\n",
+                get("/dependents?artifactId=junit&groupId=junit&depth=5"));
+        assertEquals(400, status("GET", "/dependents?version=4.12"));
+        assertEquals(400, status("GET", "/dependents?artifactId=junit&depth=x"));
+    }
+
+    @Test
+    public void testUses() throws IOException {
+        assertEquals("artifactId,groupId,version\njunit,junit,4.12\nhamcrest-core,org.hamcrest,1.3\n",
+                get("/uses?artifactId=ms-lib&groupId=at.test&version=1.0"));
+    }
+
+    @Test
+    public void testMatch() throws IOException {
+        assertEquals("queryArtifactId,queryGroupId,queryVersion,usedByArtifactId,usedByGroupId,usedByVersion\n"
+                + "ms-lib,at.test,1.0,ms-app,at.test,2.0\n", post("/match", "ms-app 2.0\nms-other 1.0\n"));
+        assertEquals(405, status("GET", "/match"));
+        assertEquals(404, status("GET", "/status/x"));
+    }
+
+    @Test
+    public void testRefreshOnChange() throws IOException {
+        assertEquals("trees,3", get("/status").split("\n")[0]);
+        server.refreshIfChanged();
+        assertEquals("trees,3", get("/status").split("\n")[0]);
+        writeCache("junit,junit,4.12,ms-lib,at.test,1.0\n");
+        server.refreshIfChanged();
+        assertEquals("trees,1", get("/status").split("\n")[0]);
+        assertEquals("artifactId,groupId,version,depth\nms-lib,at.test,1.0,1\n", get("/dependents?artifactId=junit&depth=5"));
+    }
+
+    @Test
+    public void testRefreshKeepsSnapshotOnFailedRead() throws IOException {
+        Files.write(CACHE, new byte[] {'j', 'u', 'n', 'i', 't', ',', (byte) 0xc3, (byte) 0x28, '\n'});
+        server.refreshIfChanged();
+        assertEquals("trees,3", get("/status").split("\n")[0]);
+        writeCache("junit,junit,4.12,ms-lib,at.test,1.0\n");
+        server.refreshIfChanged();
+        assertEquals("trees,1", get("/status").split("\n")[0]);
+    }
+
+    private static void writeCache(String content) throws IOException {
+        Files.createDirectories(CACHE.getParent());
+        Files.write(CACHE, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String get(String path) throws IOException {
+        HttpURLConnection connection = open("GET", path);
+        assertEquals(200, connection.getResponseCode());
+        return read(connection.getInputStream());
+    }
+
+    private String post(String path, String body) throws IOException {
+        HttpURLConnection connection = open("POST", path);
+        connection.setDoOutput(true);
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(body.getBytes(StandardCharsets.UTF_8));
+        }
+        assertEquals(200, connection.getResponseCode());
+        return read(connection.getInputStream());
+    }
+
+    private int status(String method, String path) throws IOException {
+        return open(method, path).getResponseCode();
+    }
+
+    private HttpURLConnection open(String method, String path) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + server.getPort() + path).openConnection();
+        connection.setRequestMethod(method);
+        return connection;
+    }
+
+    private static String read(InputStream in) throws IOException {
+        try (InputStream body = in) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int n;
+            while ((n = body.read(buffer)) >= 0) {
+                out.write(buffer, 0, n);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+}
@@ -0,0 +1,93 @@
+package at.catalysts.tools.reversedependencies.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Arrays;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import at.catalysts.tools.reversedependencies.data.UrlDirectory;
+import at.catalysts.tools.reversedependencies.test.IntegrationTest;
+
+public class DirectoryManifestTest {
+
+    private static final String URL = "https://repo/junit/junit/4.12/";
+    private static final String POM = URL + "junit-4.12.pom";
+    private static final String POM_NEW = URL + "junit-4.12-new.pom";
+
+    @Category(IntegrationTest.class)
+    @Test
+    public void testSaveAndLoad() {
+        String filename = "target/testManifest.tsv";
+        new File(filename).delete();
+        DirectoryManifest manifest = new DirectoryManifest(filename);
+        manifest.load("q1");
+        manifest.put(URL, "\"abc\"", null, createUrlDirectory(POM));
+        manifest.markScanned(URL);
+        manifest.save();
+
+        DirectoryManifest loaded = new DirectoryManifest(filename);
+        loaded.load("q1");
+        assertEquals(1, loaded.size());
+        DirectoryManifest.Entry entry = loaded.get(URL);
+        assertNotNull(entry);
+        assertEquals("\"abc\"", entry.getEtag());
+        assertNull(entry.getLastModified());
+        assertTrue(entry.isScanned());
+        UrlDirectory dir = entry.toUrlDirectory(false);
+        assertEquals(Arrays.asList(URL + "sub/"), dir.getFolders());
+        assertEquals(Arrays.asList(POM), dir.getPoms());
+        assertTrue(entry.toUrlDirectory(true).getPoms().isEmpty());
+    }
+
+    @Category(IntegrationTest.class)
+    @Test
+    public void testQueryChanged() {
+        String filename = "target/testManifestQuery.tsv";
+        new File(filename).delete();
+        DirectoryManifest manifest = new DirectoryManifest(filename);
+        manifest.load("q1");
+        manifest.put(URL, null, "Tue, 15 Nov 1994 12:45:26 GMT", createUrlDirectory(POM));
+        manifest.markScanned(URL);
+        manifest.save();
+
+        DirectoryManifest loaded = new DirectoryManifest(filename);
+        loaded.load("q2");
+        assertFalse(loaded.get(URL).isScanned());
+        assertEquals(Arrays.asList(POM), loaded.get(URL).toUrlDirectory(true).getPoms());
+    }
+
+    @Test
+    public void testOnlyNewPoms() {
+        DirectoryManifest manifest = new DirectoryManifest("target/testManifestNew.tsv");
+        manifest.put(URL, null, null, createUrlDirectory(POM));
+        manifest.markScanned(URL);
+        DirectoryManifest.Entry entry = manifest.put(URL, null, null, createUrlDirectory(POM, POM_NEW));
+        assertEquals(Arrays.asList(POM_NEW), entry.toUrlDirectory(true).getPoms());
+        assertEquals(Arrays.asList(POM, POM_NEW), entry.toUrlDirectory(false).getPoms());
+        manifest.markScanned(URL);
+        assertTrue(entry.toUrlDirectory(true).getPoms().isEmpty());
+    }
+
+    @Test
+    public void testIsFresh() {
+        DirectoryManifest manifest = new DirectoryManifest("target/testManifestFresh.tsv");
+        DirectoryManifest.Entry entry = manifest.put(URL, null, null, createUrlDirectory(POM));
+        assertFalse(entry.isFresh(0));
+        assertTrue(entry.isFresh(60000));
+    }
+
+    private static UrlDirectory createUrlDirectory(String... poms) {
+        UrlDirectory dir = new UrlDirectory();
+        dir.getFolders().add(URL + "sub/");
+        dir.getPoms().addAll(Arrays.asList(poms));
+        return dir;
+    }
+
+}
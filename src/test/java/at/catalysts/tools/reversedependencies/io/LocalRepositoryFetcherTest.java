@@ -0,0 +1,154 @@
+package at.catalysts.tools.reversedependencies.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import at.catalysts.tools.reversedependencies.data.Dependency;
+import at.catalysts.tools.reversedependencies.data.DependencyTree;
+import at.catalysts.tools.reversedependencies.data.UrlDirectory;
+import at.catalysts.tools.reversedependencies.test.IntegrationTest;
+
+/**
+ * scan a repository on disk and compare with a crawl of the same repository by http listings
+ *
+ */
+@Category(IntegrationTest.class)
+public class LocalRepositoryFetcherTest {
+
+    private static final Path REPO = Paths.get("target/testLocalRepository");
+    private static final String HTTP_REPO = "http://repo/";
+
+    @BeforeClass
+    public static void createRepository() throws IOException {
+        if (Files.exists(REPO)) {
+            try (Stream<Path> paths = Files.walk(REPO)) {
+                paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+        writePom("at/catalysts/ms-b/2.0/ms-b-2.0.pom", "ms-b", "2.0", "4.12", 0);
+        writePom("at/catalysts/ms-a/1.1/ms-a-1.1.pom", "ms-a", "1.1", "4.12", 0);
+        writePom("at/catalysts/ms-a/1.0/ms-a-1.0.pom", "ms-a", "1.0", "4.11", 100 * 1024);
+        writePom("at/catalysts/ms-a/ms-a-parent.pom", "ms-a-parent", "1", "4.10", 0);
+        writePom(".index/hidden.pom", "hidden", "1", "4.12", 0);
+    }
+
+    @Test
+    public void testFindPomUrls() throws IOException {
+        String root = REPO.toAbsolutePath().toUri().toString();
+        List<String> poms = LocalRepositoryFetcher.findPomUrls(root);
+        assertEquals(Arrays.asList(root + "at/catalysts/ms-a/1.0/ms-a-1.0.pom", root + "at/catalysts/ms-a/1.1/ms-a-1.1.pom",
+                root + "at/catalysts/ms-a/ms-a-parent.pom", root + "at/catalysts/ms-b/2.0/ms-b-2.0.pom"), poms);
+    }
+
+    @Test
+    public void testFetch() throws IOException {
+        LocalRepositoryFetcher fetcher = new LocalRepositoryFetcher();
+        String root = REPO.toAbsolutePath().toUri().toString();
+        try (FetchResponse response = fetcher.fetch(root + "at/catalysts/ms-a/1.0/ms-a-1.0.pom", Collections.emptyMap())) {
+            assertEquals(FetchResponse.HTTP_OK, response.getStatusCode());
+            // large pom is memory mapped
+            assertTrue(readAll(response.getBody()).length > 100 * 1024);
+        }
+        try (FetchResponse response = fetcher.fetch(root + "missing.pom", Collections.emptyMap())) {
+            assertEquals(404, response.getStatusCode());
+        }
+    }
+
+    @Test
+    public void testSameResultAsHttp() {
+        List<Dependency> query = Arrays.asList(new Dependency("junit", "", ""));
+        RepositoryUrlReader local = new RepositoryUrlReader(REPO.toAbsolutePath().toUri().toString());
+        local.setIgnorePostfixCsv("");
+        RepositoryUrlReader http = new DiskListingReader();
+        http.setIgnorePostfixCsv("");
+        List<String> localResult = toLines(local.scanUrlDirectory(query));
+        assertEquals(4, localResult.size());
+        assertEquals(toLines(http.scanUrlDirectory(query)), localResult);
+    }
+
+    private static List<String> toLines(List<DependencyTree> trees) {
+        List<String> lines = new ArrayList<>();
+        for (DependencyTree tree : trees) {
+            Dependency d = tree.getDependency();
+            Dependency u = tree.getFirstUsedBy();
+            lines.add(d.getArtifactId() + "," + d.getGroupId() + "," + d.getVersion() + " <- " + u.getArtifactId() + "," + u.getVersion());
+        }
+        return lines;
+    }
+
+    private static void writePom(String path, String artifactId, String version, String junitVersion, int padding) throws IOException {
+        StringBuilder pom = new StringBuilder("<project><groupId>at.catalysts</groupId><artifactId>").append(artifactId)
+                .append("</artifactId><version>").append(version).append("</version><description>");
+        for (int i = 0; i < padding; i++) {
+            pom.append('x');
+        }
+        pom.append("</description><dependencies><dependency><groupId>junit</groupId><artifactId>junit</artifactId><version>")
+                .append(junitVersion).append("</version></dependency></dependencies></project>");
+        Path file = REPO.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.write(file, pom.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        byte[] buffer = new byte[8192];
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int n;
+        while ((n = in.read(buffer)) >= 0) {
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * http crawl with listings sorted by name and without hidden files like repository servers show them
+     */
+    private static class DiskListingReader extends RepositoryUrlReader {
+
+        DiskListingReader() {
+            super(HTTP_REPO);
+            setFetcher((url, headers) -> new LocalRepositoryFetcher().fetch(toFileUrl(url), headers));
+        }
+
+        @Override
+        UrlDirectory readUrlDirectory(String url) {
+            UrlDirectory dir = new UrlDirectory();
+            File[] files = new File(REPO.toFile(), url.substring(HTTP_REPO.length())).listFiles();
+            Arrays.sort(files);
+            for (File file : files) {
+                if (file.getName().startsWith(".")) {
+                    continue;
+                }
+                if (file.isDirectory()) {
+                    dir.getFolders().add(url + file.getName() + "/");
+                } else if (file.getName().endsWith(".pom")) {
+                    dir.getPoms().add(url + file.getName());
+                }
+            }
+            return dir;
+        }
+
+        private static String toFileUrl(String url) {
+            return REPO.toAbsolutePath().toUri().toString() + url.substring(HTTP_REPO.length());
+        }
+    }
+
+}
@@ -0,0 +1,79 @@
+package at.catalysts.tools.reversedependencies.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
+import org.junit.Test;
+
+import at.catalysts.tools.reversedependencies.data.Dependency;
+import at.catalysts.tools.reversedependencies.data.PomInfo;
+
+/**
+ * both pom readers have to extract the same information
+ *
+ */
+public class PomReaderTest {
+
+    private static final String TESTPOM = "src/test/resources/test.pom";
+
+    @Test
+    public void testMavenModelPomReader() throws IOException, XmlPullParserException {
+        assertTestPom(new MavenModelPomReader().read(openTestPom()));
+    }
+
+    @Test
+    public void testStreamingPomReader() throws IOException, XmlPullParserException {
+        assertTestPom(new StreamingPomReader().read(openTestPom()));
+    }
+
+    @Test
+    public void testStreamingPomReaderStopsAfterDependencies() throws IOException, XmlPullParserException {
+        String pom = "<project><groupId>g</groupId><artifactId>a</artifactId><version>1</version>"
+                + "<dependencies><dependency><artifactId>junit</artifactId><version>4.12</version></dependency></dependencies>"
+                + "<build><unclosed></project>";
+        PomInfo info = new StreamingPomReader().read(new ByteArrayInputStream(pom.getBytes(StandardCharsets.UTF_8)));
+        assertEquals("a", info.getProject().getArtifactId());
+        assertEquals(1, info.getDependencies().size());
+        assertEquals("4.12", info.getDependencies().get(0).getVersion());
+    }
+
+    private static InputStream openTestPom() throws IOException {
+        return Files.newInputStream(Paths.get(TESTPOM));
+    }
+
+    private static void assertTestPom(PomInfo pom) {
+        Dependency project = pom.getEffectiveProject();
+        assertEquals("ms-test", project.getArtifactId());
+        assertEquals("at.catalysts.parent", project.getGroupId());
+        assertEquals("2.0.1", project.getVersion());
+        assertNull(pom.getProject().getGroupId());
+        assertNotNull(pom.getParent());
+        assertEquals("ms-parent", pom.getParent().getArtifactId());
+        assertEquals("4.12", pom.getProperties().getProperty("junit.version"));
+
+        assertEquals(3, pom.getDependencies().size());
+        Dependency junit = pom.getDependencies().get(0);
+        assertEquals("junit", junit.getArtifactId());
+        assertEquals("junit", junit.getGroupId());
+        assertEquals("${junit.version}", junit.getVersion());
+        assertEquals("test", junit.getScope());
+        assertEquals("jar", junit.getType());
+        assertEquals("1.0.2", pom.getDependencies().get(1).getVersion());
+        assertEquals("ms-data", pom.getDependencies().get(2).getArtifactId());
+        assertNull(pom.getDependencies().get(2).getVersion());
+
+        assertEquals(1, pom.getDependencyManagement().size());
+        assertEquals("junit", pom.getDependencyManagement().get(0).getArtifactId());
+        assertEquals("4.11", pom.getDependencyManagement().get(0).getVersion());
+    }
+
+}
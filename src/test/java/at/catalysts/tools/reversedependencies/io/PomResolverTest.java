@@ -0,0 +1,179 @@
+package at.catalysts.tools.reversedependencies.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import at.catalysts.tools.reversedependencies.data.Dependency;
+import at.catalysts.tools.reversedependencies.data.PomInfo;
+import at.catalysts.tools.reversedependencies.test.IntegrationTest;
+
+/**
+ * resolve versions with parents and boms of an in memory repository
+ *
+ */
+public class PomResolverTest {
+
+    private static final String PARENT = "<project><groupId>g</groupId><artifactId>parent</artifactId><version>1</version>"
+            + "<properties><lib.version>2.0</lib.version><util.version>${lib.version}.1</util.version></properties>"
+            + "<dependencyManagement><dependencies>"
+            + "<dependency><groupId>g</groupId><artifactId>lib</artifactId><version>${lib.version}</version></dependency>"
+            + "<dependency><groupId>g</groupId><artifactId>override</artifactId><version>1.0</version></dependency>"
+            + "<dependency><groupId>b</groupId><artifactId>bom</artifactId><version>3</version><type>pom</type><scope>import</scope></dependency>"
+            + "</dependencies></dependencyManagement></project>";
+    private static final String BOM = "<project><groupId>b</groupId><artifactId>bom</artifactId><version>3</version>"
+            + "<properties><bom.version>3.3</bom.version></properties>"
+            + "<dependencyManagement><dependencies>"
+            + "<dependency><groupId>b</groupId><artifactId>fromBom</artifactId><version>${bom.version}</version></dependency>"
+            + "<dependency><groupId>g</groupId><artifactId>lib</artifactId><version>9.9</version></dependency>"
+            + "</dependencies></dependencyManagement></project>";
+    private static final String CHILD = "<project><parent><groupId>g</groupId><artifactId>parent</artifactId><version>1</version></parent>"
+            + "<artifactId>child</artifactId>"
+            + "<dependencyManagement><dependencies>"
+            + "<dependency><groupId>g</groupId><artifactId>override</artifactId><version>1.1</version></dependency>"
+            + "</dependencies></dependencyManagement>"
+            + "<dependencies>"
+            + "<dependency><groupId>g</groupId><artifactId>lib</artifactId></dependency>"
+            + "<dependency><groupId>g</groupId><artifactId>util</artifactId><version>${util.version}</version></dependency>"
+            + "<dependency><groupId>g</groupId><artifactId>override</artifactId></dependency>"
+            + "<dependency><groupId>b</groupId><artifactId>fromBom</artifactId></dependency>"
+            + "<dependency><groupId>${project.groupId}</groupId><artifactId>sibling</artifactId><version>${project.version}</version></dependency>"
+            + "<dependency><groupId>g</groupId><artifactId>unknown</artifactId></dependency>"
+            + "</dependencies></project>";
+
+    @Test
+    public void testResolveWithParentAndBom() throws Exception {
+        InMemorySource source = new InMemorySource();
+        PomResolver resolver = new PomResolver(source, 10);
+        PomInfo child = parse(CHILD);
+        assertEquals("2.0", resolver.resolveVersion(child, child.getDependencies().get(0)));
+        assertEquals("2.0.1", resolver.resolveVersion(child, child.getDependencies().get(1)));
+        assertEquals("1.1", resolver.resolveVersion(child, child.getDependencies().get(2)));
+        assertEquals("3.3", resolver.resolveVersion(child, child.getDependencies().get(3)));
+        assertEquals("1", resolver.resolveVersion(child, child.getDependencies().get(4)));
+        assertEquals("", resolver.resolveVersion(child, child.getDependencies().get(5)));
+        // parent and bom are fetched once for all dependencies
+        assertEquals(2, resolver.getFetchCount());
+    }
+
+    @Test
+    public void testExplicitVersionNeedsNoParent() throws Exception {
+        PomResolver resolver = new PomResolver(new InMemorySource(), 10);
+        PomInfo child = parse(CHILD);
+        assertEquals("1.0", resolver.resolveVersion(child, new Dependency("x", "g", "1.0")));
+        assertEquals(0, resolver.getFetchCount());
+    }
+
+    @Test
+    public void testMissingParent() throws Exception {
+        InMemorySource source = new InMemorySource();
+        source.poms.remove("g:parent:1");
+        PomResolver resolver = new PomResolver(source, 10);
+        PomInfo child = parse(CHILD);
+        assertEquals("", resolver.resolveVersion(child, child.getDependencies().get(0)));
+        assertEquals("", resolver.resolveVersion(child, child.getDependencies().get(1)));
+        // missing parents are remembered as well
+        assertEquals(1, resolver.getFetchCount());
+    }
+
+    @Test
+    public void testFailedParentIsFetchedAgain() throws Exception {
+        InMemorySource source = new InMemorySource();
+        source.failing = "g:parent:1";
+        PomResolver resolver = new PomResolver(source, 10);
+        PomInfo child = parse(CHILD);
+        try {
+            resolver.resolveVersion(child, child.getDependencies().get(0));
+            fail("a parent failing by timeout has to fail the pom");
+        } catch (IOException e) {
+            assertEquals("timeout", e.getMessage());
+        }
+        source.failing = null;
+        assertEquals("2.0", resolver.resolveVersion(child, child.getDependencies().get(0)));
+        // the failed parent is not remembered as missing
+        assertEquals(3, resolver.getFetchCount());
+    }
+
+    @Test
+    public void testInterpolate() {
+        Map<String, String> properties = new HashMap<>();
+        properties.put("a", "${b}");
+        properties.put("b", "1");
+        assertEquals("1-1", PomResolver.interpolate("${a}-${b}", properties));
+        assertEquals("${c}-1", PomResolver.interpolate("${c}-${b}", properties));
+        assertEquals("${unclosed", PomResolver.interpolate("${unclosed", properties));
+    }
+
+    @Category(IntegrationTest.class)
+    @Test
+    public void testCacheDirectory() throws Exception {
+        File directory = new File("target/testPomCache");
+        deleteDirectory(directory.toPath());
+        PomResolver resolver = new PomResolver(new InMemorySource(), 10);
+        resolver.setCacheDirectory(directory);
+        PomInfo child = parse(CHILD);
+        assertEquals("2.0", resolver.resolveVersion(child, child.getDependencies().get(0)));
+        assertEquals(2, resolver.getFetchCount());
+
+        InMemorySource empty = new InMemorySource();
+        empty.poms.clear();
+        PomResolver cached = new PomResolver(empty, 10);
+        cached.setCacheDirectory(directory);
+        assertEquals("2.0", cached.resolveVersion(child, child.getDependencies().get(0)));
+        assertEquals("3.3", cached.resolveVersion(child, child.getDependencies().get(3)));
+        assertEquals(0, cached.getFetchCount());
+        assertEquals(2, cached.getDiskHitCount());
+    }
+
+    private static PomInfo parse(String pom) throws IOException, XmlPullParserException {
+        return new StreamingPomReader(false).read(new ByteArrayInputStream(pom.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static void deleteDirectory(Path directory) throws IOException {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    private static class InMemorySource implements PomResolver.PomSource {
+
+        private final Map<String, String> poms = new HashMap<>();
+        private volatile String failing;
+
+        InMemorySource() {
+            poms.put("g:parent:1", PARENT);
+            poms.put("b:bom:3", BOM);
+        }
+
+        @Override
+        public PomInfo read(Dependency gav) throws IOException, XmlPullParserException {
+            String key = gav.getGroupId() + ":" + gav.getArtifactId() + ":" + gav.getVersion();
+            if (key.equals(failing)) {
+                throw new IOException("timeout");
+            }
+            String pom = poms.get(key);
+            if (pom == null) {
+                throw new FetchResponse.StatusException(404, gav.getArtifactId());
+            }
+            return parse(pom);
+        }
+    }
+
+}
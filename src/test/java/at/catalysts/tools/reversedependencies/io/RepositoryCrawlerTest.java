@@ -0,0 +1,267 @@
+package at.catalysts.tools.reversedependencies.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import at.catalysts.tools.reversedependencies.data.Dependency;
+import at.catalysts.tools.reversedependencies.data.DependencyTree;
+import at.catalysts.tools.reversedependencies.data.UrlDirectory;
+import at.catalysts.tools.reversedependencies.test.IntegrationTest;
+import at.catalysts.tools.reversedependencies.util.RepositoryPathFilter;
+
+/**
+ * crawl a generated repository without network access
+ *
+ */
+public class RepositoryCrawlerTest {
+
+    private static final String REPO = "http://repo/";
+    private static final List<Dependency> JUNIT = Arrays.asList(new Dependency("junit", "", ""));
+
+    @Test
+    public void testCrawlSequential() {
+        List<DependencyTree> result = new GeneratedRepositoryReader().scanUrlDirectory(new ArrayList<>());
+        assertEquals(Arrays.asList("a/a/1/", "a/a/2/", "a/b/1/", "a/b/2/", "b/a/1/", "b/a/2/", "b/b/1/", "b/b/2/"), toUrls(result));
+    }
+
+    @Test
+    public void testCrawlConcurrentKeepsOrder() {
+        GeneratedRepositoryReader reader = new GeneratedRepositoryReader();
+        reader.setThreads(4);
+        reader.setHostConcurrency(2);
+        List<DependencyTree> result = reader.scanUrlDirectory(new ArrayList<>());
+        assertEquals(toUrls(new GeneratedRepositoryReader().scanUrlDirectory(new ArrayList<>())), toUrls(result));
+    }
+
+    @Test
+    public void testCrawlVirtualThreadsKeepsOrder() {
+        GeneratedRepositoryReader reader = new GeneratedRepositoryReader();
+        reader.setVirtualThreads(true);
+        List<DependencyTree> result = reader.scanUrlDirectory(new ArrayList<>());
+        assertEquals(8, result.size());
+        assertEquals("a/a/1/", result.get(0).getDependency().getArtifactId());
+    }
+
+    @Test
+    public void testCrawlPipelineKeepsOrder() {
+        List<String> expected = toUsedBy(createPipelineReader(1, 0).scanUrlDirectory(JUNIT));
+        assertEquals(8, expected.size());
+        assertEquals("grp-a.art-a:1.0", expected.get(0));
+        assertEquals(expected, toUsedBy(createPipelineReader(1, 1).scanUrlDirectory(JUNIT)));
+        assertEquals(expected, toUsedBy(createPipelineReader(4, 3).scanUrlDirectory(JUNIT)));
+    }
+
+    @Test
+    public void testCrawlPipelineFailedPom() {
+        RepositoryUrlReader reader = createPipelineReader(2, 2);
+        reader.setRetryFailedRounds(0);
+        ((GeneratedRepositoryFetcher) reader.getFetcher()).failingUrl = REPO + "grp-b/art-a/2.0/test.pom";
+        List<DependencyTree> result = reader.scanUrlDirectory(JUNIT);
+        assertEquals(7, result.size());
+        assertFalse(toUsedBy(result).contains("grp-b.art-a:2.0"));
+        assertEquals(Collections.singleton(REPO + "grp-b/art-a/2.0/test.pom"), reader.getFailedUrls());
+    }
+
+    @Test
+    public void testCrawlFilteredRoots() {
+        RepositoryUrlReader reader = createPipelineReader(1, 0);
+        reader.setSubdirectories(Arrays.asList("grp-a/art-b/", "grp-b/"));
+        RepositoryPathFilter pathFilter = new RepositoryPathFilter(Collections.<String>emptyList(), Arrays.asList("grp-b/art-a"));
+        pathFilter.setLatestVersions(1);
+        reader.setPathFilter(pathFilter);
+        List<DependencyTree> result = reader.scanUrlDirectory(JUNIT);
+        assertEquals(Arrays.asList("grp-a.art-b:2.0", "grp-b.art-b:2.0"), toUsedBy(result));
+        // excluded and older folders are not requested
+        List<String> requests = ((GeneratedRepositoryFetcher) reader.getFetcher()).requests;
+        assertFalse(requests.contains(REPO + "grp-b/art-a/"));
+        assertFalse(requests.contains(REPO + "grp-b/art-b/1.0/"));
+        // two roots, one artifact folder and of each artifact the latest version folder with its pom
+        assertEquals(7, requests.size());
+    }
+
+    @Category(IntegrationTest.class)
+    @Test
+    public void testResumeFetchesNoListingTwice() {
+        String filename = "target/testCheckpoint.tsv";
+        new File(filename).delete();
+        GeneratedRepositoryReader crashing = new GeneratedRepositoryReader();
+        crashing.failAt = REPO + "b/a/";
+        crashing.setupCheckpoint(new CrawlCheckpoint(filename), false);
+        try {
+            crashing.scanUrlDirectory(new ArrayList<>());
+            fail("crawl should fail");
+        } catch (IllegalArgumentException e) {
+            // checkpoint is saved
+        }
+        assertTrue(new File(filename).exists());
+
+        GeneratedRepositoryReader resumed = new GeneratedRepositoryReader();
+        resumed.setupCheckpoint(new CrawlCheckpoint(filename), true);
+        List<DependencyTree> result = resumed.scanUrlDirectory(new ArrayList<>());
+        assertEquals(Arrays.asList("b/a/1/", "b/a/2/", "b/b/1/", "b/b/2/"), sorted(toUrls(result)));
+        assertFalse(new File(filename).exists());
+
+        Set<String> twice = new HashSet<>(crashing.listed);
+        twice.retainAll(resumed.listed);
+        // only the unfinished parents of the failed folder are listed again
+        assertEquals(new HashSet<>(Arrays.asList(REPO, REPO + "b/")), twice);
+        Set<String> all = new HashSet<>(crashing.listed);
+        all.addAll(resumed.listed);
+        GeneratedRepositoryReader full = new GeneratedRepositoryReader();
+        full.scanUrlDirectory(new ArrayList<>());
+        assertEquals(new HashSet<>(full.listed), all);
+    }
+
+    @Category(IntegrationTest.class)
+    @Test
+    public void testResumeConcurrent() {
+        String filename = "target/testCheckpointConcurrent.tsv";
+        new File(filename).delete();
+        GeneratedRepositoryReader crashing = new GeneratedRepositoryReader();
+        crashing.failAt = REPO + "a/b/2/";
+        crashing.setupCheckpoint(new CrawlCheckpoint(filename), false);
+        try {
+            crashing.scanUrlDirectory(new ArrayList<>());
+            fail("crawl should fail");
+        } catch (IllegalArgumentException e) {
+            // checkpoint is saved
+        }
+        GeneratedRepositoryReader resumed = new GeneratedRepositoryReader();
+        resumed.setThreads(4);
+        resumed.setupCheckpoint(new CrawlCheckpoint(filename), true);
+        List<DependencyTree> result = resumed.scanUrlDirectory(new ArrayList<>());
+        assertEquals(new HashSet<>(resumed.listed).size(), resumed.listed.size());
+        assertTrue(toUrls(result).contains("a/b/2/"));
+        assertFalse(toUrls(result).contains("a/a/1/"));
+    }
+
+    /**
+     * @param threads listing folders
+     * @param stageThreads of each pipeline stage, 0 for no pipeline
+     */
+    private static RepositoryUrlReader createPipelineReader(int threads, int stageThreads) {
+        RepositoryUrlReader reader = new RepositoryUrlReader(REPO);
+        reader.setFetcher(new GeneratedRepositoryFetcher());
+        reader.setThreads(threads);
+        reader.setPipeline(stageThreads, stageThreads, stageThreads);
+        // smallest queues block every stage on the next one
+        reader.setPipelineQueueSize(1);
+        return reader;
+    }
+
+    private static List<String> toUsedBy(List<DependencyTree> trees) {
+        List<String> usedBy = new ArrayList<>();
+        for (DependencyTree tree : trees) {
+            Dependency dep = tree.getUsedBy().get(0).getDependency();
+            usedBy.add(dep.getArtifactId() + ":" + dep.getVersion());
+        }
+        return usedBy;
+    }
+
+    private static List<String> sorted(List<String> values) {
+        List<String> sorted = new ArrayList<>(values);
+        Collections.sort(sorted);
+        return sorted;
+    }
+
+    private static List<String> toUrls(List<DependencyTree> trees) {
+        List<String> urls = new ArrayList<>();
+        for (DependencyTree tree : trees) {
+            urls.add(tree.getDependency().getArtifactId());
+        }
+        return urls;
+    }
+
+    /**
+     * listings and poms of a repository with two groups of two artifacts in two versions,
+     * every pom uses junit
+     */
+    private static class GeneratedRepositoryFetcher implements UrlFetcher {
+
+        private volatile String failingUrl;
+        private final List<String> requests = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public FetchResponse fetch(String url, Map<String, String> headers) throws IOException {
+            requests.add(url);
+            if (url.equals(failingUrl)) {
+                return new FetchResponse(url, 503, name -> null, null);
+            }
+            String[] path = url.substring(REPO.length()).split("/");
+            String body;
+            if (url.endsWith(".pom")) {
+                body = "<project><groupId>at.test</groupId><artifactId>" + path[0] + "." + path[1] + "</artifactId>"
+                        + "<version>" + path[2] + "</version><dependencies><dependency><groupId>junit</groupId>"
+                        + "<artifactId>junit</artifactId><version>4.12</version></dependency></dependencies></project>";
+            } else {
+                int depth = url.equals(REPO) ? 0 : path.length;
+                String[][] names = {{"grp-a/", "grp-b/"}, {"art-a/", "art-b/"}, {"1.0/", "2.0/"}, {"test.pom"}};
+                StringBuilder listing = new StringBuilder();
+                for (String name : names[depth]) {
+                    listing.append("<a href=\"").append(name).append("\">").append(name).append("</a>\n");
+                }
+                body = listing.toString();
+            }
+            return new FetchResponse(url, FetchResponse.HTTP_OK, name -> null, new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+        }
+    }
+
+    /**
+     * repository with two levels of two folders and two version folders with one pom each
+     */
+    private static class GeneratedRepositoryReader extends RepositoryUrlReader {
+
+        private final List<String> listed = Collections.synchronizedList(new ArrayList<>());
+        private String failAt;
+
+        GeneratedRepositoryReader() {
+            super(REPO);
+        }
+
+        @Override
+        UrlDirectory readUrlDirectory(String url) {
+            if (url.equals(failAt)) {
+                throw new IllegalArgumentException("listing failed: " + url);
+            }
+            listed.add(url);
+            UrlDirectory dir = new UrlDirectory();
+            int depth = url.substring(REPO.length()).split("/").length;
+            if (url.equals(REPO)) {
+                depth = 0;
+            }
+            if (depth < 3) {
+                String[] names = depth == 2 ? new String[] {"1/", "2/"} : new String[] {"a/", "b/"};
+                for (String name : names) {
+                    dir.getFolders().add(url + name);
+                }
+            } else {
+                dir.getPoms().add(url + "test.pom");
+            }
+            return dir;
+        }
+
+        @Override
+        List<DependencyTree> lookForDependenciesInPom(String pom, List<Dependency> queryDependencies) {
+            String folder = pom.substring(REPO.length(), pom.length() - "test.pom".length());
+            return Arrays.asList(new DependencyTree(new Dependency(folder, "", "")));
+        }
+    }
+
+}
@@ -0,0 +1,157 @@
+package at.catalysts.tools.reversedependencies.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.maven.index.context.IndexingContext;
+import org.apache.maven.index.updater.IndexDataWriter;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import at.catalysts.tools.reversedependencies.data.Dependency;
+import at.catalysts.tools.reversedependencies.data.DependencyTree;
+import at.catalysts.tools.reversedependencies.data.UrlDirectory;
+import at.catalysts.tools.reversedependencies.test.IntegrationTest;
+
+/**
+ * read generated index data like published by maven repositories
+ *
+ */
+public class RepositoryIndexReaderTest {
+
+    private static final String REPO = "http://repo/";
+
+    @Test
+    public void testReadArtifacts() throws IOException {
+        byte[] index = writeIndex(RepositoryIndexReader.FIELD_UINFO, "junit|junit|4.12|NA|jar", RepositoryIndexReader.FIELD_UINFO, "junit|junit|4.12|sources|jar",
+                RepositoryIndexReader.FIELD_UINFO, "org.apache.maven|maven-core|3.0|NA", RepositoryIndexReader.FIELD_UINFO, "junit|junit|4.11|NA|jar");
+        Map<String, Dependency> artifacts = new LinkedHashMap<>();
+        new RepositoryIndexReader(null).readArtifacts(new ByteArrayInputStream(index), artifacts);
+        assertEquals(Arrays.asList("junit:junit:4.12", "org.apache.maven:maven-core:3.0", "junit:junit:4.11"),
+                new ArrayList<>(artifacts.keySet()));
+    }
+
+    @Test
+    public void testIncrementalChunkDeletes() throws IOException {
+        byte[] full = writeIndex(RepositoryIndexReader.FIELD_UINFO, "junit|junit|4.12|NA|jar", RepositoryIndexReader.FIELD_UINFO, "junit|junit|4.11|NA|jar");
+        byte[] chunk = writeIndex(RepositoryIndexReader.FIELD_DELETED, "junit|junit|4.11|NA|jar", RepositoryIndexReader.FIELD_UINFO, "junit|junit|4.13|NA|jar");
+        Map<String, Dependency> artifacts = new LinkedHashMap<>();
+        RepositoryIndexReader reader = new RepositoryIndexReader(null);
+        reader.readArtifacts(new ByteArrayInputStream(full), artifacts);
+        reader.readArtifacts(new ByteArrayInputStream(chunk), artifacts);
+        assertEquals(Arrays.asList("junit:junit:4.12", "junit:junit:4.13"), new ArrayList<>(artifacts.keySet()));
+    }
+
+    @Test
+    public void testSubdirectory() throws IOException {
+        byte[] index = writeIndex(RepositoryIndexReader.FIELD_UINFO, "junit|junit|4.12|NA|jar", RepositoryIndexReader.FIELD_UINFO, "org.apache.maven|maven-core|3.0|NA");
+        Map<String, Dependency> artifacts = new LinkedHashMap<>();
+        RepositoryIndexReader reader = new RepositoryIndexReader(null);
+        reader.setSubdirectory("org/apache/");
+        reader.readArtifacts(new ByteArrayInputStream(index), artifacts);
+        assertEquals(1, artifacts.size());
+        Dependency core = artifacts.get("org.apache.maven:maven-core:3.0");
+        assertEquals("org/apache/maven/maven-core/3.0/", RepositoryIndexReader.toFolder(core));
+        assertEquals("maven-core-3.0.pom", RepositoryIndexReader.toPomName(core));
+    }
+
+    @Category(IntegrationTest.class)
+    @Test
+    public void testScanByIndexFile() throws IOException {
+        String filename = "target/test-repository-index.gz";
+        Files.write(Paths.get(filename), writeIndex(RepositoryIndexReader.FIELD_UINFO, "junit|junit|4.12|NA|jar",
+                RepositoryIndexReader.FIELD_UINFO, "org.apache.maven|maven-core|3.0|NA"));
+        List<String> poms = new ArrayList<>();
+        RepositoryUrlReader reader = new RepositoryUrlReader(REPO) {
+            @Override
+            UrlDirectory readUrlDirectory(String url) {
+                fail("no listing expected: " + url);
+                return null;
+            }
+
+            @Override
+            List<DependencyTree> lookForDependenciesInPom(String pom, List<Dependency> queryDependencies) {
+                poms.add(pom);
+                return Arrays.asList(new DependencyTree(new Dependency(pom, "", "")));
+            }
+        };
+        reader.setupIndex(Arrays.asList(filename));
+        List<DependencyTree> result = reader.scanUrlDirectory(new ArrayList<>());
+        assertEquals(Arrays.asList(REPO + "junit/junit/4.12/junit-4.12.pom", REPO + "org/apache/maven/maven-core/3.0/maven-core-3.0.pom"), poms);
+        assertEquals(2, result.size());
+    }
+
+    @Category(IntegrationTest.class)
+    @Test
+    public void testTruncatedChunkFailsScan() throws IOException {
+        String full = "target/test-repository-index-full.gz";
+        String chunk = "target/test-repository-index-chunk.gz";
+        String checkpoint = "target/test-repository-index-checkpoint.txt";
+        Files.deleteIfExists(Paths.get(checkpoint));
+        Files.write(Paths.get(full), writeIndex(RepositoryIndexReader.FIELD_UINFO, "junit|junit|4.12|NA|jar"));
+        byte[] deletes = writeIndex(RepositoryIndexReader.FIELD_DELETED, "junit|junit|4.12|NA|jar");
+        Files.write(Paths.get(chunk), Arrays.copyOf(deletes, deletes.length / 2));
+        try {
+            new RepositoryIndexReader(null).readArtifacts(Arrays.asList(full, chunk));
+            fail("a truncated chunk has to fail the index");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains(chunk));
+        }
+
+        List<String> poms = new ArrayList<>();
+        RepositoryUrlReader reader = new RepositoryUrlReader(REPO) {
+            @Override
+            List<DependencyTree> lookForDependenciesInPom(String pom, List<Dependency> queryDependencies) {
+                poms.add(pom);
+                return new ArrayList<>();
+            }
+        };
+        reader.setupIndex(Arrays.asList(full, chunk));
+        reader.setupCheckpoint(new CrawlCheckpoint(checkpoint), false);
+        assertEquals(0, reader.scanUrlDirectory(new ArrayList<>()).size());
+        assertEquals(0, poms.size());
+        // the checkpoint of an incomplete scan is kept
+        assertTrue(Files.exists(Paths.get(checkpoint)));
+    }
+
+    /**
+     * @param fields pairs of field name and value, one document each
+     * @return gzipped index data
+     */
+    private static byte[] writeIndex(String... fields) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        IndexDataWriter writer = new IndexDataWriter(out);
+        writer.writeHeader(createContext());
+        for (int i = 0; i < fields.length; i += 2) {
+            Document doc = new Document();
+            doc.add(new Field(fields[i], fields[i + 1], Field.Store.YES, Field.Index.NOT_ANALYZED));
+            writer.writeDocument(doc);
+        }
+        writer.close();
+        return out.toByteArray();
+    }
+
+    /**
+     * context without timestamp, only needed for the header
+     */
+    private static IndexingContext createContext() {
+        return (IndexingContext) Proxy.newProxyInstance(IndexingContext.class.getClassLoader(), new Class<?>[] {IndexingContext.class},
+                (proxy, method, args) -> null);
+    }
+
+}
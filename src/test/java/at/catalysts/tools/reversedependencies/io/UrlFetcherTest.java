@@ -0,0 +1,155 @@
+package at.catalysts.tools.reversedependencies.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipException;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.sun.net.httpserver.HttpServer;
+
+import at.catalysts.tools.reversedependencies.test.IntegrationTest;
+
+/**
+ * fetch from a local http server
+ *
+ */
+@Category(IntegrationTest.class)
+public class UrlFetcherTest {
+
+    private static final String ETAG = "\"v1\"";
+    private static final String CONTENT = "<a href=\"junit/\">junit/</a>";
+
+    private static HttpServer server;
+    private static String baseUrl;
+
+    @BeforeClass
+    public static void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/repo/", exchange -> {
+            exchange.getResponseHeaders().add("ETag", ETAG);
+            if (ETAG.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return;
+            }
+            byte[] body = CONTENT.getBytes(StandardCharsets.UTF_8);
+            if ("gzip".equals(exchange.getRequestHeaders().getFirst("Accept-Encoding"))) {
+                ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+                try (GZIPOutputStream out = new GZIPOutputStream(gzipped)) {
+                    out.write(body);
+                }
+                body = gzipped.toByteArray();
+                exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            }
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.createContext("/stalled/", exchange -> {
+            exchange.sendResponseHeaders(200, CONTENT.length() * 2);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(CONTENT.getBytes(StandardCharsets.UTF_8));
+                out.flush();
+                Thread.sleep(2000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        server.createContext("/broken-gzip/", exchange -> {
+            byte[] body = CONTENT.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        baseUrl = "http://localhost:" + server.getAddress().getPort() + "/";
+    }
+
+    @AfterClass
+    public static void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testHttpClientFetcher() throws IOException {
+        assertFetch(new HttpClientFetcher());
+    }
+
+    @Test
+    public void testUrlConnectionFetcher() throws IOException {
+        assertFetch(new UrlConnectionFetcher());
+    }
+
+    @Test
+    public void testHttpClientFetcherStalledBody() throws IOException {
+        HttpClientFetcher fetcher = new HttpClientFetcher(Duration.ofSeconds(1), Duration.ofMillis(200));
+        long start = System.nanoTime();
+        try (FetchResponse response = fetcher.fetch(baseUrl + "stalled/", Collections.<String, String>emptyMap())) {
+            assertEquals(200, response.getStatusCode());
+            read(response.getBody());
+            fail("stalled body has to time out");
+        } catch (HttpTimeoutException e) {
+            assertTrue(System.nanoTime() - start < Duration.ofMillis(1500).toNanos());
+        }
+    }
+
+    @Test
+    public void testHttpClientFetcherBrokenGzip() {
+        HttpClientFetcher fetcher = new HttpClientFetcher();
+        try (FetchResponse response = fetcher.fetch(baseUrl + "broken-gzip/", Collections.<String, String>emptyMap())) {
+            fail("invalid gzip body has to fail the fetch");
+        } catch (IOException e) {
+            assertTrue(e instanceof ZipException);
+        }
+    }
+
+    private static void assertFetch(UrlFetcher fetcher) throws IOException {
+        try (FetchResponse response = fetcher.fetch(baseUrl + "repo/", Collections.<String, String>emptyMap())) {
+            assertEquals(200, response.getStatusCode());
+            assertEquals(ETAG, response.getHeader("etag"));
+            assertEquals(CONTENT, read(response.getBody()));
+        }
+        try (FetchResponse response = fetcher.fetch(baseUrl + "repo/", Collections.singletonMap("If-None-Match", ETAG))) {
+            assertTrue(response.isNotModified());
+        }
+        try (FetchResponse response = fetcher.fetch(baseUrl + "missing/", Collections.<String, String>emptyMap())) {
+            assertEquals(404, response.getStatusCode());
+            response.getBody();
+            fail("error response has no body");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("404"));
+        }
+    }
+
+    private static String read(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int n;
+        while ((n = in.read(buffer)) > 0) {
+            out.write(buffer, 0, n);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+}
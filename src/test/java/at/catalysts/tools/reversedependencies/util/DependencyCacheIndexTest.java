@@ -0,0 +1,65 @@
+package at.catalysts.tools.reversedependencies.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import at.catalysts.tools.reversedependencies.data.Dependency;
+import at.catalysts.tools.reversedependencies.data.DependencyTree;
+
+public class DependencyCacheIndexTest {
+
+    @Test
+    public void testFind() {
+        DependencyCacheIndex index = new DependencyCacheIndex(createCachedDependencies());
+        List<DependencyTree> trees = index.find(new Dependency("maven-compiler-plugin", "org.apache.maven.plugins", "3.6.0"));
+        assertEquals(2, trees.size());
+        assertEquals("junit", trees.get(0).getDependency().getArtifactId());
+        assertEquals("hamcrest-core", trees.get(1).getDependency().getArtifactId());
+        assertEquals(1, index.find(new Dependency("maven-compiler-plugin", "org.apache.maven.plugins", "3.5")).size());
+        assertEquals(0, index.find(new Dependency("maven-compiler-plugin", "org.apache.maven.plugins", "3.1")).size());
+        assertEquals(0, index.find(new Dependency("maven-compiler-plugin", "org.apache.maven", "3.6.0")).size());
+    }
+
+    @Test
+    public void testIgnoreWithoutUsedBy() {
+        List<DependencyTree> cache = new ArrayList<>();
+        cache.add(new DependencyTree(new Dependency("junit", "junit", "4.12")));
+        DependencyCacheIndex index = new DependencyCacheIndex(cache);
+        assertTrue(index.isEmpty());
+        assertEquals(0, index.find(new Dependency("junit", "junit", "4.12")).size());
+    }
+
+    @Test
+    public void testContainsFolder() {
+        DependencyCacheIndex index = new DependencyCacheIndex(createCachedDependencies());
+        assertTrue(index.containsFolder("org/"));
+        assertTrue(index.containsFolder("/org/apache/maven/"));
+        assertTrue(index.containsFolder("org/apache/maven/plugins/maven-compiler-plugin/"));
+        assertTrue(index.containsFolder("org/apache/maven/plugins/maven-compiler-plugin/3.6.0/"));
+        assertTrue(index.containsFolder("org/apache/maven/plugins/maven-compiler-plugin/3.5"));
+        assertFalse(index.containsFolder("org/apache/maven/plugins/maven-compiler-plugin/3.1/"));
+        assertFalse(index.containsFolder("org/apache/maven/plugins/maven-surefire-plugin/"));
+        assertFalse(index.containsFolder("com/"));
+    }
+
+    public List<DependencyTree> createCachedDependencies() {
+        List<DependencyTree> trees = new ArrayList<>();
+        trees.add(createDependencyTree("junit", "3.6.0"));
+        trees.add(createDependencyTree("hamcrest-core", "3.6.0"));
+        trees.add(createDependencyTree("junit", "3.5"));
+        return trees;
+    }
+
+    public DependencyTree createDependencyTree(String artifactId, String usedByVersion) {
+        DependencyTree tree = new DependencyTree(new Dependency(artifactId, "junit", "4.12"));
+        tree.getUsedBy().add(new DependencyTree(new Dependency("maven-compiler-plugin", "org.apache.maven.plugins", usedByVersion)));
+        return tree;
+    }
+
+}
@@ -0,0 +1,96 @@
+package at.catalysts.tools.reversedependencies.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import at.catalysts.tools.reversedependencies.data.Dependency;
+import at.catalysts.tools.reversedependencies.data.DependencyTree;
+
+/**
+ * transitive dependents of the reverse dependency graph
+ *
+ */
+public class DependencyGraphTest {
+
+    @Test
+    public void testTransitiveDependentsByDepth() {
+        List<DependencyTree> trees = new ArrayList<>();
+        trees.add(usedBy("junit", "4.12", "ms-lib", "1.0"));
+        trees.add(usedBy("ms-lib", "1.0", "ms-service", "2.0"));
+        trees.add(usedBy("ms-service", "2.0", "ms-app", "3.0"));
+        trees.add(usedBy("junit", "4.12", "ms-service", "2.0"));
+        trees.add(usedBy("junit", "4.12", "ms-lib", "1.0"));
+        DependencyGraph graph = DependencyGraph.build(trees);
+        assertEquals(4, graph.getEdgeCount());
+
+        assertEquals(Arrays.asList("ms-lib:1.0@1", "ms-service:2.0@1", "ms-app:3.0@2"),
+                toStrings(graph.findDependents(new Dependency("junit", "at.used", "4.12"), 10)));
+        assertEquals(Arrays.asList("ms-lib:1.0@1", "ms-service:2.0@1"),
+                toStrings(graph.findDependents(new Dependency("junit", "", ""), 1)));
+        assertEquals(0, graph.findDependents(new Dependency("junit", "", "4.11"), 10).size());
+        assertEquals(0, graph.findDependents(new Dependency("missing", "", ""), 10).size());
+    }
+
+    @Test
+    public void testCycle() {
+        List<DependencyTree> trees = new ArrayList<>();
+        trees.add(usedBy("ms-a", "1", "ms-b", "1"));
+        trees.add(usedBy("ms-b", "1", "ms-c", "1"));
+        trees.add(usedBy("ms-c", "1", "ms-a", "1"));
+        DependencyGraph graph = DependencyGraph.build(trees);
+        assertEquals(Arrays.asList("ms-b:1@1", "ms-c:1@2"), toStrings(graph.findDependents(new Dependency("ms-a", "", "1"), 10)));
+    }
+
+    @Test
+    public void testVersionlessDependency() {
+        // a dependency without version, eg. managed by a parent, is used by each version
+        List<DependencyTree> trees = new ArrayList<>();
+        trees.add(usedBy("junit", "4.12", "ms-lib", "1.0"));
+        trees.add(usedBy("ms-lib", "", "ms-app", "3.0"));
+        DependencyGraph graph = DependencyGraph.build(trees);
+        assertEquals(Arrays.asList("ms-lib:1.0@1", "ms-app:3.0@2"), toStrings(graph.findDependents(new Dependency("junit", "", "4.12"), 10)));
+    }
+
+    @Test
+    public void testParallelSameAsSequential() {
+        List<DependencyTree> trees = new ArrayList<>();
+        int width = 200;
+        for (int level = 0; level < 4; level++) {
+            for (int i = 0; i < width; i++) {
+                String dep = level == 0 ? "root" : "ms-" + level + "-" + i;
+                for (int j = 0; j < 3; j++) {
+                    trees.add(usedBy(dep, "1", "ms-" + (level + 1) + "-" + ((i * 7 + j * 31) % width), "1"));
+                }
+            }
+        }
+        DependencyGraph graph = DependencyGraph.build(trees);
+        graph.setThreads(1);
+        List<String> sequential = toStrings(graph.findDependents(new Dependency("root", "", ""), 3));
+        graph.setThreads(4);
+        graph.setParallelMinFrontier(2);
+        assertEquals(sequential, toStrings(graph.findDependents(new Dependency("root", "", ""), 3)));
+        assertTrue(sequential.size() > width);
+    }
+
+    private static DependencyTree usedBy(String artifactId, String version, String usedByArtifactId, String usedByVersion) {
+        DependencyTree tree = new DependencyTree(new Dependency(artifactId, "at.used", version));
+        tree.addUsedBy(new DependencyTree(new Dependency(usedByArtifactId, "at.used", usedByVersion)));
+        return tree;
+    }
+
+    private static List<String> toStrings(List<DependencyGraph.Dependent> dependents) {
+        List<String> result = new ArrayList<>();
+        for (DependencyGraph.Dependent dependent : dependents) {
+            Dependency d = dependent.getDependency();
+            result.add(d.getArtifactId() + ":" + d.getVersion() + "@" + dependent.getDepth());
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,69 @@
+package at.catalysts.tools.reversedependencies.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import at.catalysts.tools.reversedependencies.data.Dependency;
+import at.catalysts.tools.reversedependencies.data.DependencyTree;
+
+/**
+ * indexed matching gives the same result as matching all trees
+ *
+ */
+public class DependencyMatchIndexTest {
+
+    @Test
+    public void testSameAsMatcher() {
+        List<Dependency> inUse = Arrays.asList(new Dependency("ms-b", "", "1.0"), new Dependency("ms-a", "at.test", "1.0.1"),
+                new Dependency("ms-a", "", ""), new Dependency("ms-c", "", "9"));
+        DependencyMatchIndex index = new DependencyMatchIndex(createReverseDependencyTrees());
+        assertEquals(toStrings(DependencyMatcher.matchDependencyQuery(createReverseDependencyTrees(), inUse, false)),
+                toStrings(index.match(inUse, false)));
+        assertEquals(Arrays.asList("junit:3.2 <- ms-a:1.0.1", "hamcrest:1.3 <- ms-a:1.0.1", "junit:4.12 <- ms-b:1.0"),
+                toStrings(index.match(inUse, false)));
+    }
+
+    @Test
+    public void testMajorKeepsIndex() {
+        List<Dependency> inUse = Arrays.asList(new Dependency("ms-a", "", "1.0.1"), new Dependency("ms-b", "", "1.0"));
+        DependencyMatchIndex index = new DependencyMatchIndex(createReverseDependencyTrees());
+        assertEquals(toStrings(DependencyMatcher.matchDependencyQuery(createReverseDependencyTrees(), inUse, true)),
+                toStrings(index.match(inUse, true)));
+        // versions of the indexed trees are not reduced
+        assertEquals(Arrays.asList("junit:3.2 <- ms-a:1.0.1", "hamcrest:1.3 <- ms-a:1.0.1", "junit:4.12 <- ms-b:1.0"),
+                toStrings(index.match(inUse, false)));
+    }
+
+    private static List<DependencyTree> createReverseDependencyTrees() {
+        List<DependencyTree> trees = new ArrayList<>();
+        trees.add(createTree("junit", "3.2", "ms-a", "1.0.1"));
+        trees.add(createTree("hamcrest", "1.3", "ms-a", "1.0.1"));
+        trees.add(createTree("junit", "4.12", "ms-b", "1.0"));
+        trees.add(createTree("junit", "4.12", "ms-b", "2.0"));
+        trees.add(createTree("junit", "3.2", "ms-a", "1.0.1"));
+        trees.add(new DependencyTree(new Dependency("junit", "junit", "4.11")));
+        return trees;
+    }
+
+    private static DependencyTree createTree(String artifactId, String version, String usedByArtifactId, String usedByVersion) {
+        DependencyTree tree = new DependencyTree(new Dependency(artifactId, "at.used", version));
+        tree.addUsedBy(new DependencyTree(new Dependency(usedByArtifactId, "at.test", usedByVersion)));
+        return tree;
+    }
+
+    private static List<String> toStrings(List<DependencyTree> trees) {
+        List<String> result = new ArrayList<>();
+        for (DependencyTree tree : trees) {
+            Dependency u = tree.getFirstUsedBy();
+            result.add(tree.getDependency().getArtifactId() + ":" + tree.getDependency().getVersion() + " <- "
+                    + u.getArtifactId() + ":" + u.getVersion());
+        }
+        return result;
+    }
+
+}
@@ -55,6 +55,26 @@ public class DependencyMatcherTest {
         assertEquals(1, result.get(1).getUsedBy().size());
     }
 
+    @Test
+    public void testMatchGroupsByFirstOccurrence() {
+        List<DependencyTree> trees = createReverseDependencyTrees();
+        trees.add(0, createDependencyTree("ms-testm", "junit", "3.1"));
+        trees.add(createDependencyTree("ms-util", "junit", "3.2"));
+        List<Dependency> deps = createDependencies();
+        deps.add(new Dependency("ms-test", null, "1.0.1"));
+        deps.add(new Dependency("ms-test", null, ""));
+        List<DependencyTree> result = DependencyMatcher.matchDependencyQuery(trees, deps);
+        assertNotNull(result);
+        assertEquals(3, result.size());
+        assertEquals("3.1", result.get(0).getDependency().getVersion());
+        assertEquals(1, result.get(0).getUsedBy().size());
+        assertEquals("ms-testm", result.get(0).getUsedBy().get(0).getDependency().getArtifactId());
+        assertEquals("3.2", result.get(1).getDependency().getVersion());
+        assertEquals(1, result.get(1).getUsedBy().size());
+        assertEquals("ms-test", result.get(1).getUsedBy().get(0).getDependency().getArtifactId());
+        assertEquals("4.2", result.get(2).getDependency().getVersion());
+    }
+
     public List<DependencyTree> createReverseDependencyTrees() {
         List<DependencyTree> trees = new ArrayList<>();
         trees.add(createDependencyTree("ms-test", "junit", "3.2"));
@@ -0,0 +1,49 @@
+package at.catalysts.tools.reversedependencies.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void testBucketBounds() {
+        for (long value : new long[] {0, 1, 63, 64, 65, 127, 128, 1000, 123456789, Long.MAX_VALUE / 3}) {
+            int index = LatencyHistogram.bucketIndex(value);
+            assertTrue(value <= LatencyHistogram.bucketUpperBound(index));
+            if (index > 0) {
+                assertTrue(value > LatencyHistogram.bucketUpperBound(index - 1));
+            }
+        }
+        assertEquals(63, LatencyHistogram.bucketUpperBound(LatencyHistogram.bucketIndex(63)));
+        assertEquals(65, LatencyHistogram.bucketUpperBound(LatencyHistogram.bucketIndex(64)));
+        assertEquals(Long.MAX_VALUE, LatencyHistogram.bucketUpperBound(LatencyHistogram.bucketIndex(Long.MAX_VALUE)));
+    }
+
+    @Test
+    public void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getPercentileNanos(99));
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(TimeUnit.MICROSECONDS.toNanos(i));
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(TimeUnit.MICROSECONDS.toNanos(1000), histogram.getMaxNanos());
+        assertEquals(TimeUnit.MICROSECONDS.toNanos(500500), histogram.getTotalNanos());
+        assertPrecision(TimeUnit.MICROSECONDS.toNanos(500), histogram.getPercentileNanos(50));
+        assertPrecision(TimeUnit.MICROSECONDS.toNanos(990), histogram.getPercentileNanos(99));
+        assertEquals(histogram.getMaxNanos(), histogram.getPercentileNanos(100));
+        assertEquals(1.0, histogram.getPercentileMillis(100), 0.0);
+        histogram.record(-5);
+        assertEquals(0, histogram.getPercentileNanos(0));
+    }
+
+    private static void assertPrecision(long expected, long actual) {
+        assertTrue(actual >= expected);
+        assertTrue(actual - expected <= expected / 32);
+    }
+
+}
@@ -0,0 +1,43 @@
+package at.catalysts.tools.reversedependencies.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import at.catalysts.tools.reversedependencies.data.Dependency;
+
+public class QueryMatcherTest {
+
+    @Test
+    public void testMatchInQueryOrder() {
+        QueryMatcher matcher = new QueryMatcher(Arrays.asList(
+                new Dependency("ms-b", "", ""), new Dependency("", "", ""), new Dependency("ms-a", "", "")), null);
+        List<Dependency> pomDependencies = Arrays.asList(
+                new Dependency("ms-a", "at.catalysts", "1.0"), new Dependency(null, "x", "1"),
+                new Dependency("ms-b", "at.catalysts", "2.0"), new Dependency("ms-a", "at.catalysts", "1.1"));
+        List<Dependency> matched = matcher.match(pomDependencies);
+        assertEquals(2, matched.size());
+        assertSame(pomDependencies.get(2), matched.get(0));
+        assertSame(pomDependencies.get(0), matched.get(1));
+    }
+
+    @Test
+    public void testMatchIgnorePostfix() {
+        QueryMatcher matcher = new QueryMatcher(Arrays.asList(
+                new Dependency("ms-a", "", ""), new Dependency("ms-a-client", "", "")), "-client,-bus-client");
+        List<Dependency> matched = matcher.match(Arrays.asList(new Dependency("ms-a-client", "at.catalysts", "1.0")));
+        // matches ms-a by postfix and ms-a-client exactly
+        assertEquals(2, matched.size());
+        assertEquals("ms-a-client", matched.get(0).getArtifactId());
+        assertEquals(1, matcher.match(Arrays.asList(new Dependency("ms-a-bus-client", "", ""))).size());
+        assertTrue(matcher.match(Arrays.asList(new Dependency("ms-a-clien", "", ""))).isEmpty());
+        assertTrue(matcher.match(new ArrayList<Dependency>()).isEmpty());
+    }
+
+}
@@ -0,0 +1,83 @@
+package at.catalysts.tools.reversedependencies.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+public class RepositoryPathFilterTest {
+
+    @Test
+    public void testGlob() {
+        assertTrue(RepositoryPathFilter.compile("org/apache/**").matcher("org/apache/maven/plugins").matches());
+        assertTrue(RepositoryPathFilter.compile("org/*/maven/").matcher("org/apache/maven").matches());
+        assertFalse(RepositoryPathFilter.compile("org/*").matcher("org/apache/maven").matches());
+        assertTrue(RepositoryPathFilter.compile("**/maven-*-plugin").matcher("maven-jar-plugin").matches());
+        assertTrue(RepositoryPathFilter.compile("**/maven-*-plugin").matcher("org/apache/maven-jar-plugin").matches());
+        assertTrue(RepositoryPathFilter.compile("{org,com}/ex?mple").matcher("com/example").matches());
+        assertFalse(RepositoryPathFilter.compile("com/example.x").matcher("com/example-x").matches());
+        assertTrue(RepositoryPathFilter.compile("regex:org/apache/maven(/.*)?").matcher("org/apache/maven/plugins").matches());
+    }
+
+    @Test
+    public void testIncludeExclude() {
+        RepositoryPathFilter filter = new RepositoryPathFilter(Arrays.asList("org/apache/**", "com/example"),
+                Arrays.asList("**/*-SNAPSHOT", "org/apache/commons"));
+        // listed on the way to included folders, without scanning its poms
+        assertTrue(filter.isDescended("org/"));
+        assertFalse(filter.isAccepted("org/"));
+        assertTrue(filter.isDescended("com/"));
+        assertFalse(filter.isDescended("net/"));
+        assertFalse(filter.isDescended("org/eclipse/"));
+        assertTrue(filter.isAccepted("org/apache/maven/maven-core/3.0/"));
+        // subfolders of an included folder are included
+        assertTrue(filter.isAccepted("com/example/app/1.0/"));
+        assertFalse(filter.isDescended("org/apache/commons/"));
+        assertFalse(filter.isAccepted("org/apache/commons/commons-lang3/3.0/"));
+        assertFalse(filter.isDescended("org/apache/maven/maven-core/3.1-SNAPSHOT/"));
+        assertEquals(Arrays.asList("org/apache/maven/", "org/apache/ant/"),
+                filter.selectFolders(Arrays.asList("org/apache/maven/", "org/apache/commons/", "org/apache/ant/")));
+
+        RepositoryPathFilter empty = new RepositoryPathFilter(Collections.<String>emptyList(), Collections.<String>emptyList());
+        assertTrue(empty.isEmpty());
+        assertTrue(empty.isDescended("net/"));
+        assertTrue(empty.isAccepted("net/"));
+    }
+
+    @Test
+    public void testLatestVersions() {
+        RepositoryPathFilter filter = new RepositoryPathFilter(Collections.<String>emptyList(), Collections.<String>emptyList());
+        filter.setLatestVersions(3);
+        // maven order: 1.2 < 1.9 < 1.10 < 2.0-alpha < 2.0-beta
+        assertEquals(Arrays.asList("a/b/1.10/", "a/b/2.0-alpha/", "a/b/2.0-beta/"),
+                filter.selectFolders(Arrays.asList("a/b/1.10/", "a/b/1.9/", "a/b/2.0-alpha/", "a/b/1.2/", "a/b/2.0-beta/")));
+        // not version folders
+        assertEquals(Arrays.asList("a/b/", "a/c/", "a/d/", "a/e/"), filter.selectFolders(Arrays.asList("a/b/", "a/c/", "a/d/", "a/e/")));
+        filter.setLatestVersions(2);
+        assertEquals(Arrays.asList("a/b/2.0/b-2.0.pom", "a/b/1.10/b-1.10.pom", "a/c/1.0/c-1.0.pom"),
+                filter.selectPoms(Arrays.asList("a/b/1.9/b-1.9.pom", "a/b/2.0/b-2.0.pom", "a/b/1.10/b-1.10.pom", "a/c/1.0/c-1.0.pom")));
+    }
+
+    @Test
+    public void testLatestVersionsOfMixedFolder() {
+        RepositoryPathFilter filter = new RepositoryPathFilter(Collections.<String>emptyList(), Collections.<String>emptyList());
+        filter.setLatestVersions(2);
+        List<String> folders = Arrays.asList("a/b/1.0/", "a/b/2.0/", "a/b/3.0/", "a/b/site/");
+        List<String> poms = Arrays.asList("a/b/1.0/b-1.0.pom", "a/b/2.0/b-2.0.pom", "a/b/3.0/b-3.0.pom", "a/b/site/b-site.pom");
+        // a folder with other than version folders is no artifact, all its folders are kept on both paths
+        assertEquals(folders, filter.selectFolders(folders));
+        assertEquals(poms, filter.selectPoms(poms));
+        List<String> pomFolders = new ArrayList<>();
+        for (String pom : filter.selectPoms(poms)) {
+            pomFolders.add(pom.substring(0, pom.lastIndexOf('/') + 1));
+        }
+        assertEquals(filter.selectFolders(folders), pomFolders);
+    }
+
+}